@@ -0,0 +1,79 @@
+package src.bench;
+
+import java.util.Collection;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the benchmarks with the GC profiler attached and sums them up as
+// ns/op, MB/s of the corpus and bytes allocated per operation. Takes the
+// usual JMH options, e.g.
+//   java -jar bench/target/benchmarks.jar -f 1 -wi 2 -i 3 ParserBench
+// Set -Djson.corpus.dir (through -jvmArgsAppend) to run on the original
+// corpus files, see Corpus.
+public final class BenchMain {
+    private BenchMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        if (commandLine.shouldList()) {
+            new Runner(commandLine).list();
+            return;
+        }
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        if (commandLine.getProfilers().stream().noneMatch(p -> p.getKlass().equals(GCProfiler.class.getName())))
+            builder.addProfiler(GCProfiler.class);
+        final Options options = builder.build();
+        final Collection<RunResult> results = new Runner(options).run();
+
+        System.out.println();
+        System.out.printf("%-50s %-10s %14s %10s %14s%n", "Benchmark", "Param", "ns/op", "MB/s", "B/op");
+        for (RunResult result : results) {
+            final BenchmarkParams params = result.getParams();
+            final String name = params.getBenchmark().substring(params.getBenchmark().lastIndexOf('.',
+                    params.getBenchmark().lastIndexOf('.') - 1) + 1);
+            String param = "";
+            for (String key : params.getParamsKeys())
+                param += (param.isEmpty() ? "" : ",") + params.getParam(key);
+            final double nanos = NanosPerOp(params, result.getPrimaryResult().getScore());
+            String throughput = "";
+            if (params.getParamsKeys().contains("corpus") && nanos > 0) {
+                final double bytes = Corpus.valueOf(params.getParam("corpus")).Bytes().length;
+                throughput = String.format("%.1f", bytes / (nanos / 1e9) / (1 << 20));
+            }
+            String allocated = "";
+            for (String key : result.getSecondaryResults().keySet()) {
+                final Result<?> secondary = result.getSecondaryResults().get(key);
+                if (key.endsWith("gc.alloc.rate.norm"))
+                    allocated = String.format("%.0f", secondary.getScore());
+            }
+            System.out.printf("%-50s %-10s %14.0f %10s %14s%n", name, param, nanos, throughput, allocated);
+        }
+    }
+
+    private static double NanosPerOp(BenchmarkParams params, double score) {
+        final double unit = params.getTimeUnit().toNanos(1);
+        switch (params.getMode()) {
+            case Throughput:
+                return score == 0 ? 0 : unit / score;
+            case AverageTime:
+            case SampleTime:
+            case SingleShotTime:
+                return score * unit;
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package src.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Random;
+
+// Benchmark documents. Each one is generated from a fixed seed in the shape of
+// a well-known corpus, so runs are comparable without shipping the files:
+//   TWITTER  search results: short strings, unicode, nested user objects
+//   CITM     a catalog: maps keyed by ids, many small integer arrays
+//   CANADA   polygon coordinates: almost only floating point numbers
+//   DEEP     containers nested a few hundred levels deep
+//   ESCAPES  long strings full of escape sequences
+//   NDJSON   newline-delimited log records, one value per line
+// The first three are read from -Djson.corpus.dir instead when the original
+// twitter.json, citm_catalog.json or canada.json is found there.
+public enum Corpus {
+    TWITTER("twitter.json"),
+    CITM("citm_catalog.json"),
+    CANADA("canada.json"),
+    DEEP(null),
+    ESCAPES(null),
+    NDJSON(null);
+
+    private static final int SIZE = 1 << 20;
+
+    private final String fileName;
+    private byte[] bytes;
+
+    Corpus(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public synchronized byte[] Bytes() {
+        if (this.bytes == null)
+            this.bytes = this.Load();
+        return this.bytes;
+    }
+
+    private byte[] Load() {
+        final String dir = System.getProperty("json.corpus.dir");
+        if (dir != null && this.fileName != null) {
+            final Path path = Paths.get(dir, this.fileName);
+            if (Files.exists(path)) {
+                try {
+                    return Files.readAllBytes(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        final Random random = new Random(this.ordinal() + 1);
+        final StringBuilder sb = new StringBuilder(SIZE + (SIZE >> 3));
+        switch (this) {
+            case TWITTER:
+                Twitter(sb, random);
+                break;
+            case CITM:
+                Citm(sb, random);
+                break;
+            case CANADA:
+                Canada(sb, random);
+                break;
+            case DEEP:
+                Deep(sb, random);
+                break;
+            case ESCAPES:
+                Escapes(sb, random);
+                break;
+            default:
+                Ndjson(sb, random);
+                break;
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final String[] WORDS = {
+        "json", "parser", "stream", "token", "value", "object", "array", "number", "string", "bench",
+        "東京", "ラーメン", "café", "naïve", "Straße", "αβγ", "📈", "🙂", "über", "日本語",
+    };
+
+    private static String Words(Random random, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0)
+                sb.append(' ');
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    // Appends 's' as a JSON string; with 'ascii' every other character becomes
+    // a hex escape, as some producers write them.
+    private static void Quote(StringBuilder sb, String s, boolean ascii) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '/':
+                    sb.append("\\/");
+                    break;
+                default:
+                    if (c < 0x20 || (ascii && c > 0x7e))
+                        sb.append(String.format("\\u%04x", (int) c));
+                    else
+                        sb.append(c);
+                    break;
+            }
+        }
+        sb.append('"');
+    }
+
+    private static void Twitter(StringBuilder sb, Random random) {
+        sb.append("{\"statuses\":[");
+        int count = 0;
+        long id = 505874924095815681L;
+        while (sb.length() < SIZE) {
+            if (count++ > 0)
+                sb.append(',');
+            id -= random.nextInt(100000);
+            final int user = random.nextInt(1 << 30);
+            final boolean ascii = random.nextInt(4) == 0;
+            sb.append("{\"metadata\":{\"result_type\":\"recent\",\"iso_language_code\":\"")
+                    .append(ascii ? "en" : "ja").append("\"},");
+            sb.append("\"created_at\":\"Sun Aug 31 00:").append(10 + random.nextInt(50)).append(":15 +0000 2014\",");
+            sb.append("\"id\":").append(id).append(",\"id_str\":\"").append(id).append("\",");
+            sb.append("\"text\":");
+            Quote(sb, "@user" + user + " " + Words(random, 4 + random.nextInt(12)) + "\n#" + WORDS[random.nextInt(10)],
+                    ascii);
+            sb.append(",\"source\":");
+            Quote(sb, "<a href=\"http://twitter.com/download/iphone\" rel=\"nofollow\">Twitter for iPhone</a>", false);
+            sb.append(",\"truncated\":false,\"in_reply_to_status_id\":");
+            if (random.nextBoolean())
+                sb.append("null");
+            else
+                sb.append(id - random.nextInt(1 << 20));
+            sb.append(",\"user\":{\"id\":").append(user).append(",\"name\":");
+            Quote(sb, Words(random, 2), ascii);
+            sb.append(",\"screen_name\":\"user").append(user).append("\",\"location\":");
+            Quote(sb, Words(random, 1), ascii);
+            sb.append(",\"description\":");
+            Quote(sb, Words(random, 8 + random.nextInt(16)), ascii);
+            sb.append(",\"followers_count\":").append(random.nextInt(100000))
+                    .append(",\"friends_count\":").append(random.nextInt(5000))
+                    .append(",\"verified\":").append(random.nextInt(20) == 0)
+                    .append(",\"profile_image_url\":");
+            Quote(sb, "http://pbs.twimg.com/profile_images/" + random.nextInt(1 << 30) + "/avatar_normal.jpeg", false);
+            sb.append("},\"geo\":null,\"retweet_count\":").append(random.nextInt(1000))
+                    .append(",\"favorite_count\":").append(random.nextInt(1000))
+                    .append(",\"entities\":{\"hashtags\":[");
+            final int hashtags = 1 + random.nextInt(3);
+            for (int i = 0; i < hashtags; i++) {
+                if (i > 0)
+                    sb.append(',');
+                final int start = random.nextInt(100);
+                sb.append("{\"text\":");
+                Quote(sb, WORDS[random.nextInt(WORDS.length)], ascii);
+                sb.append(",\"indices\":[").append(start).append(',').append(start + 5).append("]}");
+            }
+            sb.append("],\"urls\":[{\"url\":\"http://t.co/").append(Integer.toString(random.nextInt(1 << 30), 36))
+                    .append("\",\"indices\":[").append(random.nextInt(100)).append(",140]}]},");
+            sb.append("\"favorited\":false,\"lang\":\"").append(ascii ? "en" : "ja").append("\"}");
+        }
+        sb.append("],\"search_metadata\":{\"completed_in\":0.087,\"max_id\":505874924095815681,\"query\":\"%23json\",\"count\":")
+                .append(count).append("}}");
+    }
+
+    private static void Citm(StringBuilder sb, Random random) {
+        final int areas = 200;
+        final int events = 1000;
+        sb.append("{\"areaNames\":{");
+        for (int i = 0; i < areas; i++) {
+            if (i > 0)
+                sb.append(',');
+            sb.append('"').append(205705993 + i).append("\":");
+            Quote(sb, "Arrière-scène " + Words(random, 2), false);
+        }
+        sb.append("},\"audienceSubCategoryNames\":{\"337100890\":\"Abonné\"},\"events\":{");
+        for (int i = 0; i < events; i++) {
+            if (i > 0)
+                sb.append(',');
+            final int id = 138586341 + i;
+            sb.append('"').append(id).append("\":{\"description\":null,\"id\":").append(id).append(",\"logo\":");
+            if (random.nextBoolean())
+                sb.append("null");
+            else
+                sb.append("\"/images/UE0AAAAACEKo6QAAAAVDSVRN\"");
+            sb.append(",\"name\":");
+            Quote(sb, Words(random, 3), false);
+            sb.append(",\"subTopicIds\":[337184269,337184283],\"subjectCode\":null,\"subtitle\":null,\"topicIds\":[")
+                    .append(324846099 + random.nextInt(10)).append(",107888604]}");
+        }
+        sb.append("},\"performances\":[");
+        int count = 0;
+        while (sb.length() < SIZE) {
+            if (count++ > 0)
+                sb.append(',');
+            sb.append("{\"eventId\":").append(138586341 + random.nextInt(events))
+                    .append(",\"id\":").append(339887544 + count)
+                    .append(",\"logo\":null,\"name\":null,\"prices\":[");
+            final int prices = 1 + random.nextInt(3);
+            for (int i = 0; i < prices; i++) {
+                if (i > 0)
+                    sb.append(',');
+                sb.append("{\"amount\":").append(10000 + random.nextInt(100000))
+                        .append(",\"audienceSubCategoryId\":337100890,\"seatCategoryId\":")
+                        .append(338937295 + i).append('}');
+            }
+            sb.append("],\"seatCategories\":[");
+            for (int i = 0; i < prices; i++) {
+                if (i > 0)
+                    sb.append(',');
+                sb.append("{\"areas\":[{\"areaId\":").append(205705993 + random.nextInt(areas)).append(",\"blockIds\":[");
+                final int blocks = 1 + random.nextInt(4);
+                for (int b = 0; b < blocks; b++)
+                    sb.append(b > 0 ? "," : "").append(339600000 + random.nextInt(10000));
+                sb.append("]}],\"seatCategoryId\":").append(338937295 + i).append('}');
+            }
+            sb.append("],\"seatMapImage\":null,\"start\":").append(1372701600000L + random.nextInt(1 << 30))
+                    .append(",\"venueCode\":\"PLEYEL_PLEYEL\"}");
+        }
+        sb.append("],\"venueNames\":{\"PLEYEL_PLEYEL\":\"Salle Pleyel\"}}");
+    }
+
+    // Coordinates are printed with 15 decimals, like the original, so most of
+    // them are not the shortest representation of their double.
+    private static void Canada(StringBuilder sb, Random random) {
+        sb.append("{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",\"properties\":{\"name\":\"Canada\"},")
+                .append("\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[");
+        double x = -65.613616999999977;
+        double y = 43.420273000000009;
+        int rings = 0;
+        while (sb.length() < SIZE) {
+            if (rings++ > 0)
+                sb.append(',');
+            sb.append('[');
+            for (int i = 0; i < 1000; i++) {
+                x += random.nextGaussian() * 0.01;
+                y += random.nextGaussian() * 0.01;
+                if (i > 0)
+                    sb.append(',');
+                sb.append('[').append(String.format(Locale.ROOT, "%.15f", x))
+                        .append(',').append(String.format(Locale.ROOT, "%.15f", y)).append(']');
+            }
+            sb.append(']');
+        }
+        sb.append("]}}]}");
+    }
+
+    private static void Deep(StringBuilder sb, Random random) {
+        final int depth = 200;
+        sb.append('[');
+        int count = 0;
+        while (sb.length() < SIZE) {
+            if (count++ > 0)
+                sb.append(',');
+            for (int i = 0; i < depth; i++)
+                sb.append("{\"level\":").append(i).append(",\"next\":[");
+            sb.append(random.nextInt());
+            for (int i = 0; i < depth; i++)
+                sb.append("]}");
+        }
+        sb.append(']');
+    }
+
+    private static void Escapes(StringBuilder sb, Random random) {
+        sb.append('[');
+        int count = 0;
+        while (sb.length() < SIZE) {
+            if (count++ > 0)
+                sb.append(',');
+            StringBuilder body = new StringBuilder();
+            while (body.length() < 4096) {
+                body.append(Words(random, 1 + random.nextInt(6)));
+                switch (random.nextInt(6)) {
+                    case 0:
+                        body.append('\n');
+                        break;
+                    case 1:
+                        body.append("\t\"quoted\" ");
+                        break;
+                    case 2:
+                        body.append(" C:\\path\\to\\file ");
+                        break;
+                    case 3:
+                        body.append(" </script> ");
+                        break;
+                    default:
+                        body.append(' ');
+                        break;
+                }
+            }
+            sb.append("{\"id\":").append(count).append(",\"body\":");
+            Quote(sb, body.toString(), random.nextBoolean());
+            sb.append('}');
+        }
+        sb.append(']');
+    }
+
+    private static final String[] LEVELS = { "DEBUG", "INFO", "INFO", "INFO", "WARN", "ERROR" };
+
+    private static void Ndjson(StringBuilder sb, Random random) {
+        long ts = 1700000000000L;
+        while (sb.length() < SIZE) {
+            ts += random.nextInt(1000);
+            sb.append("{\"ts\":").append(ts).append(",\"level\":\"").append(LEVELS[random.nextInt(LEVELS.length)])
+                    .append("\",\"msg\":");
+            Quote(sb, Words(random, 3 + random.nextInt(10)), false);
+            sb.append(",\"user\":{\"id\":").append(random.nextInt(1 << 20)).append(",\"session\":\"")
+                    .append(Long.toHexString(random.nextLong())).append("\"},\"latency\":")
+                    .append(random.nextInt(100000) / 100.0).append(",\"tags\":[\"api\",\"")
+                    .append(WORDS[random.nextInt(10)]).append("\"]}\n");
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package src.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import src.dom.parser.JsonArray;
+import src.dom.parser.JsonNumber;
+import src.dom.parser.JsonObj;
+import src.dom.parser.JsonParser;
+import src.dom.parser.JsonString;
+import src.dom.parser.JsonTape;
+import src.dom.parser.JsonType;
+import src.dom.parser.KeyCache;
+import src.dom.parser.ParseException;
+import src.dom.parser.TapeCursor;
+import src.dom.parser.TapeParser;
+
+// Reads a few fields of every status of an already parsed TWITTER document,
+// through JsonObj lookups in each object layout and through a tape cursor,
+// and walks the whole tree once. Parsing is not measured.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DomAccessBench {
+    @State(Scope.Benchmark)
+    public static class Dom {
+        @Param({ "HASH_MAP", "ORDERED", "SHAPED" })
+        public JsonParser.ObjectLayout layout;
+
+        JsonObj document;
+
+        @Setup
+        public void Setup() throws ParseException {
+            JsonParser parser = new JsonParser(Corpus.TWITTER.Bytes());
+            parser.SetKeyCache(new KeyCache());
+            parser.SetObjectLayout(this.layout);
+            this.document = parser.ParseObj();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Tape {
+        JsonTape tape;
+
+        @Setup
+        public void Setup() throws ParseException {
+            this.tape = new TapeParser(Corpus.TWITTER.Bytes()).Parse();
+        }
+    }
+
+    @Benchmark
+    public long Lookup(Dom dom) {
+        final JsonArray statuses = (JsonArray) dom.document.Get("statuses");
+        long sum = 0;
+        for (int i = 0; i < statuses.Size(); i++) {
+            final JsonObj status = (JsonObj) statuses.Get(i);
+            final JsonObj user = (JsonObj) status.Get("user");
+            sum += ((JsonNumber) user.Get("followers_count")).AsLong();
+            sum += ((JsonString) status.Get("text")).GetValue().length();
+            sum += ((JsonNumber) status.Get("retweet_count")).AsLong();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long LookupTape(Tape tape) {
+        final TapeCursor cursor = tape.tape.Cursor();
+        long sum = 0;
+        cursor.Find("statuses");
+        if (!cursor.Down())
+            return sum;
+        do {
+            cursor.Find("user");
+            cursor.Find("followers_count");
+            sum += cursor.GetLong();
+            cursor.Up();
+            cursor.Up();
+            cursor.Find("text");
+            sum += cursor.GetString().length();
+            cursor.Up();
+            cursor.Find("retweet_count");
+            sum += cursor.GetLong();
+            cursor.Up();
+        } while (cursor.Next());
+        return sum;
+    }
+
+    @Benchmark
+    public long Walk(Dom dom) {
+        return Walk(dom.document);
+    }
+
+    private static long Walk(JsonType value) {
+        if (value instanceof JsonObj) {
+            long[] count = { 1 };
+            ((JsonObj) value).ForEach((key, child) -> count[0] += Walk(child));
+            return count[0];
+        }
+        if (value instanceof JsonArray) {
+            final JsonArray array = (JsonArray) value;
+            long count = 1;
+            for (int i = 0; i < array.Size(); i++)
+                count += Walk(array.Get(i));
+            return count;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,76 @@
+package src.bench;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import src.dom.parser.JsonLinesParser;
+import src.dom.parser.JsonParser;
+import src.dom.parser.JsonType;
+import src.dom.parser.ParseException;
+
+// Newline-delimited records: JsonLinesParser on one thread and on the common
+// pool, against parsing the lines one after the other.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NdjsonBench {
+    @Param({ "NDJSON" })
+    public Corpus corpus;
+
+    private byte[] source;
+    private ForkJoinPool single;
+
+    @Setup
+    public void Setup() {
+        this.source = this.corpus.Bytes();
+        this.single = new ForkJoinPool(1);
+    }
+
+    @TearDown
+    public void TearDown() {
+        this.single.shutdown();
+    }
+
+    @Benchmark
+    public ArrayList<JsonType> ParseLines() throws ParseException {
+        ArrayList<JsonType> res = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < this.source.length; i++) {
+            if (this.source[i] == '\n') {
+                if (i > start)
+                    res.add(new JsonParser(this.source, start, i - start).Parse());
+                start = i + 1;
+            }
+        }
+        if (start < this.source.length)
+            res.add(new JsonParser(this.source, start, this.source.length - start).Parse());
+        return res;
+    }
+
+    @Benchmark
+    public ArrayList<JsonType> ParseAll() throws ParseException {
+        return new JsonLinesParser(this.source).ParseAll(this.single);
+    }
+
+    @Benchmark
+    public ArrayList<JsonType> ParseAllParallel() throws ParseException {
+        return new JsonLinesParser(this.source).ParseAll();
+    }
+}
@@ -0,0 +1,92 @@
+package src.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import src.dom.parser.JsonParser;
+import src.dom.parser.JsonReader;
+import src.dom.parser.JsonTape;
+import src.dom.parser.JsonType;
+import src.dom.parser.JsonValidator;
+import src.dom.parser.KeyCache;
+import src.dom.parser.LazyParser;
+import src.dom.parser.ParseException;
+import src.dom.parser.TapeParser;
+
+// Whole documents through each parsing mode: the DOM in its layouts, the
+// event reader, the lazy DOM and the tape, against validating without
+// building anything.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBench {
+    @Param({ "TWITTER", "CITM", "CANADA", "DEEP", "ESCAPES" })
+    public Corpus corpus;
+
+    private byte[] source;
+    private KeyCache keys;
+
+    @Setup
+    public void Setup() {
+        this.source = this.corpus.Bytes();
+        this.keys = new KeyCache();
+    }
+
+    @Benchmark
+    public JsonType Parse() throws ParseException {
+        return new JsonParser(this.source).Parse();
+    }
+
+    @Benchmark
+    public JsonType ParseViews() throws ParseException {
+        JsonParser parser = new JsonParser(this.source);
+        parser.SetStringViews(true);
+        return parser.Parse();
+    }
+
+    @Benchmark
+    public JsonType ParseShaped() throws ParseException {
+        JsonParser parser = new JsonParser(this.source);
+        parser.SetKeyCache(this.keys);
+        parser.SetObjectLayout(JsonParser.ObjectLayout.SHAPED);
+        return parser.Parse();
+    }
+
+    @Benchmark
+    public long ReadEvents() throws ParseException {
+        JsonReader reader = new JsonReader(this.source);
+        long events = 0;
+        while (reader.NextToken() != JsonReader.Event.END_DOCUMENT)
+            events++;
+        return events;
+    }
+
+    @Benchmark
+    public JsonType ParseLazy() throws ParseException {
+        return new LazyParser(this.source).Parse();
+    }
+
+    @Benchmark
+    public JsonTape ParseTape() throws ParseException {
+        return new TapeParser(this.source).Parse();
+    }
+
+    @Benchmark
+    public boolean Validate() {
+        return JsonValidator.Validate(this.source);
+    }
+}
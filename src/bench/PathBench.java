@@ -0,0 +1,61 @@
+package src.bench;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import src.dom.parser.JsonParser;
+import src.dom.parser.JsonPath;
+import src.dom.parser.JsonType;
+import src.dom.parser.ParseException;
+
+// Selective extraction from the TWITTER corpus: JsonPath over the token
+// stream, for many matches and for a single pointer, against building the
+// DOM and querying that.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathBench {
+    @Param({ "TWITTER" })
+    public Corpus corpus;
+
+    private byte[] source;
+    private JsonPath names;
+    private JsonPath count;
+
+    @Setup
+    public void Setup() throws ParseException {
+        this.source = this.corpus.Bytes();
+        this.names = JsonPath.Compile("$.statuses[*].user.screen_name");
+        this.count = JsonPath.Compile("/search_metadata/count");
+    }
+
+    @Benchmark
+    public ArrayList<JsonType> SelectStream() throws ParseException {
+        return this.names.Select(this.source);
+    }
+
+    @Benchmark
+    public ArrayList<JsonType> SelectDom() throws ParseException {
+        return this.names.Select(new JsonParser(this.source).Parse());
+    }
+
+    @Benchmark
+    public JsonType PointerStream() throws ParseException {
+        return this.count.SelectFirst(this.source);
+    }
+}
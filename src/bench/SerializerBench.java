@@ -0,0 +1,163 @@
+package src.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import json.JsonDeserializer;
+import json.JsonSerializable;
+import json.JsonSerializer;
+import src.dom.parser.JsonParser;
+import src.dom.parser.JsonType;
+import src.dom.parser.JsonWriter;
+
+// Binds the TWITTER corpus to classes and writes it back, through reflection,
+// through generated codecs and by hand, and writes the same document from a
+// DOM.
+// Throughput is relative to the size of the corpus, which the output matches
+// closely.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBench {
+    @Param({ "TWITTER" })
+    public Corpus corpus;
+
+    // Flat records of numbers, where reading the fields is a large share of
+    // the work, unlike the string-heavy corpus.
+    public record Sample(long id, int count, short kind, double x, double y, float ratio, boolean flag, char grade)
+            implements JsonSerializable {
+    }
+
+    public record Samples(Sample[] samples) implements JsonSerializable {
+    }
+
+    private static final JsonWriter.EncodedString SAMPLES = JsonWriter.EncodeString("samples");
+    private static final JsonWriter.EncodedString ID = JsonWriter.EncodeString("id");
+    private static final JsonWriter.EncodedString COUNT = JsonWriter.EncodeString("count");
+    private static final JsonWriter.EncodedString KIND = JsonWriter.EncodeString("kind");
+    private static final JsonWriter.EncodedString X = JsonWriter.EncodeString("x");
+    private static final JsonWriter.EncodedString Y = JsonWriter.EncodeString("y");
+    private static final JsonWriter.EncodedString RATIO = JsonWriter.EncodeString("ratio");
+    private static final JsonWriter.EncodedString FLAG = JsonWriter.EncodeString("flag");
+    private static final JsonWriter.EncodedString GRADE = JsonWriter.EncodeString("grade");
+
+    private byte[] source;
+    private Samples samples;
+    private TwitterModel.Bound.SearchResult bound;
+    private TwitterModel.Generated.SearchResult generated;
+    private JsonType dom;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void Setup() throws Exception {
+        this.source = this.corpus.Bytes();
+        this.bound = JsonDeserializer.FromJson(this.source, TwitterModel.Bound.SearchResult.class);
+        this.generated = JsonDeserializer.FromJson(this.source, TwitterModel.Generated.SearchResult.class);
+        this.dom = new JsonParser(this.source).Parse();
+        final Random random = new Random(1);
+        final Sample[] samples = new Sample[10000];
+        for (int i = 0; i < samples.length; i++)
+            samples[i] = new Sample(i, random.nextInt(1000), (short) random.nextInt(8), random.nextInt(1 << 20) / 64.0,
+                    random.nextInt(100), random.nextInt(16) / 4f, random.nextBoolean(), (char) ('A' + i % 5));
+        this.samples = new Samples(samples);
+        this.out = new ByteArrayOutputStream(this.source.length * 2);
+        this.SerializeNumbers();
+        final String numbers = this.out.toString(StandardCharsets.UTF_8);
+        this.SerializeNumbersHandWritten();
+        if (!numbers.equals(this.out.toString(StandardCharsets.UTF_8)))
+            throw new IllegalStateException("The hand-written writer does not match the bound one");
+        this.Serialize();
+        final String bound = this.out.toString(StandardCharsets.UTF_8);
+        this.SerializeHandWritten();
+        if (!bound.equals(this.out.toString(StandardCharsets.UTF_8)))
+            throw new IllegalStateException("The hand-written writer does not match the bound one");
+    }
+
+    @Benchmark
+    public int Serialize() throws Exception {
+        this.out.reset();
+        JsonSerializer.ToJson(this.bound, this.out);
+        return this.out.size();
+    }
+
+    @Benchmark
+    public int SerializeGenerated() throws Exception {
+        this.out.reset();
+        JsonSerializer.ToJson(this.generated, this.out);
+        return this.out.size();
+    }
+
+    @Benchmark
+    public int SerializeHandWritten() throws Exception {
+        this.out.reset();
+        JsonWriter writer = new JsonWriter(this.out);
+        TwitterWriter.Write(writer, this.bound);
+        writer.Flush();
+        return this.out.size();
+    }
+
+    @Benchmark
+    public int SerializeNumbers() throws Exception {
+        this.out.reset();
+        JsonSerializer.ToJson(this.samples, this.out);
+        return this.out.size();
+    }
+
+    @Benchmark
+    public int SerializeNumbersHandWritten() throws Exception {
+        this.out.reset();
+        JsonWriter writer = new JsonWriter(this.out);
+        writer.BeginObject().Name(SAMPLES).BeginArray();
+        for (Sample sample : this.samples.samples()) {
+            writer.BeginObject();
+            writer.Name(ID).Value(sample.id());
+            writer.Name(COUNT).Value(sample.count());
+            writer.Name(KIND).Value(sample.kind());
+            writer.Name(X).Value(sample.x());
+            writer.Name(Y).Value(sample.y());
+            writer.Name(RATIO).Value(sample.ratio());
+            writer.Name(FLAG).Value(sample.flag());
+            writer.Name(GRADE).Value(String.valueOf(sample.grade()));
+            writer.EndObject();
+        }
+        writer.EndArray().EndObject();
+        writer.Flush();
+        return this.out.size();
+    }
+
+    @Benchmark
+    public int WriteDom() throws Exception {
+        this.out.reset();
+        JsonWriter writer = new JsonWriter(this.out);
+        writer.Value(this.dom);
+        writer.Flush();
+        return this.out.size();
+    }
+
+    @Benchmark
+    public Object Deserialize() throws Exception {
+        return JsonDeserializer.FromJson(this.source, TwitterModel.Bound.SearchResult.class);
+    }
+
+    @Benchmark
+    public Object DeserializeGenerated() throws Exception {
+        return JsonDeserializer.FromJson(this.source, TwitterModel.Generated.SearchResult.class);
+    }
+}
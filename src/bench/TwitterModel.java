@@ -0,0 +1,87 @@
+package src.bench;
+
+import java.util.List;
+
+import json.GenerateCodec;
+import json.JsonSerializable;
+
+// The TWITTER corpus as classes, twice: bound through reflection, and with
+// codecs generated by json.CodecProcessor.
+public final class TwitterModel {
+    private TwitterModel() {
+    }
+
+    public static final class Bound {
+        private Bound() {
+        }
+
+        public record SearchResult(List<Status> statuses, SearchMetadata search_metadata) implements JsonSerializable {
+        }
+
+        public record Status(Metadata metadata, String created_at, long id, String id_str, String text, String source,
+                boolean truncated, Long in_reply_to_status_id, User user, String geo, int retweet_count,
+                int favorite_count, Entities entities, boolean favorited, String lang) implements JsonSerializable {
+        }
+
+        public record Metadata(String result_type, String iso_language_code) implements JsonSerializable {
+        }
+
+        public record User(long id, String name, String screen_name, String location, String description,
+                int followers_count, int friends_count, boolean verified, String profile_image_url)
+                implements JsonSerializable {
+        }
+
+        public record Entities(List<Hashtag> hashtags, List<Url> urls) implements JsonSerializable {
+        }
+
+        public record Hashtag(String text, int[] indices) implements JsonSerializable {
+        }
+
+        public record Url(String url, int[] indices) implements JsonSerializable {
+        }
+
+        public record SearchMetadata(double completed_in, long max_id, String query, int count)
+                implements JsonSerializable {
+        }
+    }
+
+    public static final class Generated {
+        private Generated() {
+        }
+
+        @GenerateCodec
+        public record SearchResult(List<Status> statuses, SearchMetadata search_metadata) {
+        }
+
+        @GenerateCodec
+        public record Status(Metadata metadata, String created_at, long id, String id_str, String text, String source,
+                boolean truncated, Long in_reply_to_status_id, User user, String geo, int retweet_count,
+                int favorite_count, Entities entities, boolean favorited, String lang) {
+        }
+
+        @GenerateCodec
+        public record Metadata(String result_type, String iso_language_code) {
+        }
+
+        @GenerateCodec
+        public record User(long id, String name, String screen_name, String location, String description,
+                int followers_count, int friends_count, boolean verified, String profile_image_url) {
+        }
+
+        @GenerateCodec
+        public record Entities(List<Hashtag> hashtags, List<Url> urls) {
+        }
+
+        @GenerateCodec
+        public record Hashtag(String text, int[] indices) {
+        }
+
+        @GenerateCodec
+        public record Url(String url, int[] indices) {
+        }
+
+        @GenerateCodec
+        public record SearchMetadata(double completed_in, long max_id, String query, int count) {
+        }
+    }
+}
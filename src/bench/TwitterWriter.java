@@ -0,0 +1,184 @@
+package src.bench;
+
+import java.io.IOException;
+
+import src.dom.parser.JsonWriter;
+
+// TwitterModel.Bound written by hand, field by field, as one would without a
+// serializer: the floor for what json.ClassBinding can reach.
+final class TwitterWriter {
+    // Names are encoded once, as a careful hand-written writer would.
+    private static final JsonWriter.EncodedString STATUSES = JsonWriter.EncodeString("statuses");
+    private static final JsonWriter.EncodedString SEARCH_METADATA = JsonWriter.EncodeString("search_metadata");
+    private static final JsonWriter.EncodedString COMPLETED_IN = JsonWriter.EncodeString("completed_in");
+    private static final JsonWriter.EncodedString MAX_ID = JsonWriter.EncodeString("max_id");
+    private static final JsonWriter.EncodedString QUERY = JsonWriter.EncodeString("query");
+    private static final JsonWriter.EncodedString COUNT = JsonWriter.EncodeString("count");
+    private static final JsonWriter.EncodedString METADATA = JsonWriter.EncodeString("metadata");
+    private static final JsonWriter.EncodedString RESULT_TYPE = JsonWriter.EncodeString("result_type");
+    private static final JsonWriter.EncodedString ISO_LANGUAGE_CODE = JsonWriter.EncodeString("iso_language_code");
+    private static final JsonWriter.EncodedString CREATED_AT = JsonWriter.EncodeString("created_at");
+    private static final JsonWriter.EncodedString ID = JsonWriter.EncodeString("id");
+    private static final JsonWriter.EncodedString ID_STR = JsonWriter.EncodeString("id_str");
+    private static final JsonWriter.EncodedString TEXT = JsonWriter.EncodeString("text");
+    private static final JsonWriter.EncodedString SOURCE = JsonWriter.EncodeString("source");
+    private static final JsonWriter.EncodedString TRUNCATED = JsonWriter.EncodeString("truncated");
+    private static final JsonWriter.EncodedString IN_REPLY_TO_STATUS_ID =
+            JsonWriter.EncodeString("in_reply_to_status_id");
+    private static final JsonWriter.EncodedString USER = JsonWriter.EncodeString("user");
+    private static final JsonWriter.EncodedString GEO = JsonWriter.EncodeString("geo");
+    private static final JsonWriter.EncodedString RETWEET_COUNT = JsonWriter.EncodeString("retweet_count");
+    private static final JsonWriter.EncodedString FAVORITE_COUNT = JsonWriter.EncodeString("favorite_count");
+    private static final JsonWriter.EncodedString ENTITIES = JsonWriter.EncodeString("entities");
+    private static final JsonWriter.EncodedString FAVORITED = JsonWriter.EncodeString("favorited");
+    private static final JsonWriter.EncodedString LANG = JsonWriter.EncodeString("lang");
+    private static final JsonWriter.EncodedString NAME = JsonWriter.EncodeString("name");
+    private static final JsonWriter.EncodedString SCREEN_NAME = JsonWriter.EncodeString("screen_name");
+    private static final JsonWriter.EncodedString LOCATION = JsonWriter.EncodeString("location");
+    private static final JsonWriter.EncodedString DESCRIPTION = JsonWriter.EncodeString("description");
+    private static final JsonWriter.EncodedString FOLLOWERS_COUNT = JsonWriter.EncodeString("followers_count");
+    private static final JsonWriter.EncodedString FRIENDS_COUNT = JsonWriter.EncodeString("friends_count");
+    private static final JsonWriter.EncodedString VERIFIED = JsonWriter.EncodeString("verified");
+    private static final JsonWriter.EncodedString PROFILE_IMAGE_URL = JsonWriter.EncodeString("profile_image_url");
+    private static final JsonWriter.EncodedString HASHTAGS = JsonWriter.EncodeString("hashtags");
+    private static final JsonWriter.EncodedString URLS = JsonWriter.EncodeString("urls");
+    private static final JsonWriter.EncodedString INDICES = JsonWriter.EncodeString("indices");
+    private static final JsonWriter.EncodedString URL = JsonWriter.EncodeString("url");
+
+    private TwitterWriter() {
+    }
+
+    static void Write(JsonWriter w, TwitterModel.Bound.SearchResult value) throws IOException {
+        w.BeginObject();
+        w.Name(STATUSES);
+        if (value.statuses() == null) {
+            w.NullValue();
+        } else {
+            w.BeginArray();
+            for (TwitterModel.Bound.Status status : value.statuses())
+                Write(w, status);
+            w.EndArray();
+        }
+        w.Name(SEARCH_METADATA);
+        final TwitterModel.Bound.SearchMetadata metadata = value.search_metadata();
+        if (metadata == null) {
+            w.NullValue();
+        } else {
+            w.BeginObject();
+            w.Name(COMPLETED_IN).Value(metadata.completed_in());
+            w.Name(MAX_ID).Value(metadata.max_id());
+            w.Name(QUERY).Value(metadata.query());
+            w.Name(COUNT).Value(metadata.count());
+            w.EndObject();
+        }
+        w.EndObject();
+    }
+
+    private static void Write(JsonWriter w, TwitterModel.Bound.Status value) throws IOException {
+        if (value == null) {
+            w.NullValue();
+            return;
+        }
+        w.BeginObject();
+        w.Name(METADATA);
+        if (value.metadata() == null) {
+            w.NullValue();
+        } else {
+            w.BeginObject();
+            w.Name(RESULT_TYPE).Value(value.metadata().result_type());
+            w.Name(ISO_LANGUAGE_CODE).Value(value.metadata().iso_language_code());
+            w.EndObject();
+        }
+        w.Name(CREATED_AT).Value(value.created_at());
+        w.Name(ID).Value(value.id());
+        w.Name(ID_STR).Value(value.id_str());
+        w.Name(TEXT).Value(value.text());
+        w.Name(SOURCE).Value(value.source());
+        w.Name(TRUNCATED).Value(value.truncated());
+        w.Name(IN_REPLY_TO_STATUS_ID);
+        if (value.in_reply_to_status_id() == null)
+            w.NullValue();
+        else
+            w.Value((long) value.in_reply_to_status_id());
+        w.Name(USER);
+        Write(w, value.user());
+        w.Name(GEO).Value(value.geo());
+        w.Name(RETWEET_COUNT).Value(value.retweet_count());
+        w.Name(FAVORITE_COUNT).Value(value.favorite_count());
+        w.Name(ENTITIES);
+        Write(w, value.entities());
+        w.Name(FAVORITED).Value(value.favorited());
+        w.Name(LANG).Value(value.lang());
+        w.EndObject();
+    }
+
+    private static void Write(JsonWriter w, TwitterModel.Bound.User value) throws IOException {
+        if (value == null) {
+            w.NullValue();
+            return;
+        }
+        w.BeginObject();
+        w.Name(ID).Value(value.id());
+        w.Name(NAME).Value(value.name());
+        w.Name(SCREEN_NAME).Value(value.screen_name());
+        w.Name(LOCATION).Value(value.location());
+        w.Name(DESCRIPTION).Value(value.description());
+        w.Name(FOLLOWERS_COUNT).Value(value.followers_count());
+        w.Name(FRIENDS_COUNT).Value(value.friends_count());
+        w.Name(VERIFIED).Value(value.verified());
+        w.Name(PROFILE_IMAGE_URL).Value(value.profile_image_url());
+        w.EndObject();
+    }
+
+    private static void Write(JsonWriter w, TwitterModel.Bound.Entities value) throws IOException {
+        if (value == null) {
+            w.NullValue();
+            return;
+        }
+        w.BeginObject();
+        w.Name(HASHTAGS);
+        if (value.hashtags() == null) {
+            w.NullValue();
+        } else {
+            w.BeginArray();
+            for (TwitterModel.Bound.Hashtag hashtag : value.hashtags()) {
+                if (hashtag == null)
+                    w.NullValue();
+                else
+                    WriteSpan(w, TEXT, hashtag.text(), hashtag.indices());
+            }
+            w.EndArray();
+        }
+        w.Name(URLS);
+        if (value.urls() == null) {
+            w.NullValue();
+        } else {
+            w.BeginArray();
+            for (TwitterModel.Bound.Url url : value.urls()) {
+                if (url == null)
+                    w.NullValue();
+                else
+                    WriteSpan(w, URL, url.url(), url.indices());
+            }
+            w.EndArray();
+        }
+        w.EndObject();
+    }
+
+    // A hashtag or a url: one string and its indices.
+    private static void WriteSpan(JsonWriter w, JsonWriter.EncodedString name, String text, int[] indices)
+            throws IOException {
+        w.BeginObject();
+        w.Name(name).Value(text);
+        w.Name(INDICES);
+        if (indices == null) {
+            w.NullValue();
+        } else {
+            w.BeginArray();
+            for (int index : indices)
+                w.Value(index);
+            w.EndArray();
+        }
+        w.EndObject();
+    }
+}
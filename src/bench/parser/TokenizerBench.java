@@ -0,0 +1,57 @@
+package src.dom.parser;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import src.bench.Corpus;
+
+// The tokenizer on its own, the floor for every parser built on it. Lives in
+// the parser's package, as the tokenizer is not public.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenizerBench {
+    @Param({ "TWITTER", "CITM", "CANADA", "DEEP", "ESCAPES" })
+    public Corpus corpus;
+
+    private byte[] source;
+
+    @Setup
+    public void Setup() {
+        this.source = this.corpus.Bytes();
+    }
+
+    @Benchmark
+    public long Tokenize() throws ParseException {
+        return Count(new Tokenizer(ByteBuffer.wrap(this.source)));
+    }
+
+    @Benchmark
+    public long TokenizeIndexed() throws ParseException {
+        return Count(new Tokenizer(ByteBuffer.wrap(this.source), true));
+    }
+
+    private static long Count(Tokenizer tokenizer) throws ParseException {
+        long tokens = 0;
+        while (tokenizer.HasToken()) {
+            tokenizer.Tokenize();
+            tokens++;
+        }
+        return tokens;
+    }
+}
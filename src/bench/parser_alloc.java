@@ -0,0 +1,80 @@
+package src.bench;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import src.dom.parser.JsonParser;
+import src.dom.parser.JsonReader;
+import src.dom.parser.JsonType;
+import src.dom.parser.ParseException;
+
+// Reports heap allocated per input byte for the reader and DOM paths.
+// Run with: java -cp <classes> src.bench.ParserAllocBench [records] [string]
+// With "string" the input is handed over as a String, the one input every
+// revision of the parser takes, so the same run can be repeated against the
+// Token-object tokenizer of older trees.
+class ParserAllocBench {
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory
+            .getThreadMXBean();
+
+    private static String BuildDocument(int records) {
+        StringBuilder sb = new StringBuilder();
+        sb.append('[');
+        for (int i = 0; i < records; i++) {
+            if (i > 0)
+                sb.append(',');
+            sb.append("{\"id\": ").append(i + 1)
+                    .append(", \"name\": \"user").append(i).append('"')
+                    .append(", \"score\": ").append(i % 100 + 1).append('.').append(i % 7 + 1)
+                    .append(", \"active\": ").append(i % 2 == 0)
+                    .append(", \"tags\": [\"a\", \"b\", \"c\"]")
+                    .append(", \"parent\": null}");
+        }
+        sb.append(']');
+        return sb.toString();
+    }
+
+    private static long ReadAll(Object doc) throws ParseException {
+        JsonReader reader = doc instanceof String ? new JsonReader((String) doc) : new JsonReader((byte[]) doc);
+        long events = 0;
+        while (reader.NextToken() != JsonReader.Event.END_DOCUMENT)
+            events++;
+        return events;
+    }
+
+    private static JsonType Parse(Object doc) throws ParseException {
+        return doc instanceof String ? new JsonParser((String) doc).Parse() : new JsonParser((byte[]) doc).Parse();
+    }
+
+    private static long Measure(String label, Object doc, int length, int iterations, boolean dom)
+            throws ParseException {
+        long sink = 0;
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            if (dom)
+                sink += Parse(doc).hashCode();
+            else
+                sink += ReadAll(doc);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - before;
+        double bytes = (double) length * iterations;
+        System.out.printf("%-8s %8.3f alloc bytes/input byte %10.1f MB/s%n",
+                label, allocated / bytes, bytes / (elapsed / 1e9) / (1 << 20));
+        return sink;
+    }
+
+    public static void main(String[] args) throws ParseException {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        final String text = BuildDocument(records);
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        final Object doc = args.length > 1 && args[1].equals("string") ? text : bytes;
+        for (int i = 0; i < 5; i++) {
+            ReadAll(doc);
+            Parse(doc);
+        }
+        Measure("reader", doc, bytes.length, 10, false);
+        Measure("dom", doc, bytes.length, 10, true);
+    }
+}
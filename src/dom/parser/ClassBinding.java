@@ -0,0 +1,178 @@
+package json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+
+import src.dom.parser.JsonWriter;
+
+// How one class is serialized, worked out once per class and cached in a
+// ClassValue. Every field becomes a handle that writes its name, encoded as
+// JSON once, and its value through a getter from a private lookup and a writer
+// for its declared type, so primitives are never boxed. The field handles are
+// joined into one handle for the whole object, which a hidden class copied
+// from FieldsWriter holds in a static final field: there the JIT sees it as a
+// constant and inlines it, which it does not do for a handle in an instance
+// field.
+final class ClassBinding {
+    interface Writer {
+        void Write(JsonWriter writer, Object obj) throws Throwable;
+    }
+
+    private static final ClassValue<ClassBinding> BINDINGS = new ClassValue<ClassBinding>() {
+        @Override
+        protected ClassBinding computeValue(Class<?> cls) {
+            return new ClassBinding(cls);
+        }
+    };
+
+    // (JsonWriter, Object)void, the shape of every step.
+    private static final MethodType STEP = MethodType.methodType(void.class, JsonWriter.class, Object.class);
+
+    private static final MethodHandle BEGIN_OBJECT;
+    private static final MethodHandle END_OBJECT;
+    private static final MethodHandle NAME;
+    private static final MethodHandle LONG_VALUE;
+    private static final MethodHandle DOUBLE_VALUE;
+    private static final MethodHandle FLOAT_VALUE;
+    private static final MethodHandle BOOLEAN_VALUE;
+    private static final MethodHandle CHAR_VALUE;
+    private static final MethodHandle WRITE_NULLABLE;
+    // FieldsWriter's class file, or null when it cannot be read and the joined
+    // handle is called from an instance field instead.
+    private static final byte[] TEMPLATE;
+
+    static {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            BEGIN_OBJECT = lookup.findVirtual(JsonWriter.class, "BeginObject", MethodType.methodType(JsonWriter.class));
+            END_OBJECT = lookup.findVirtual(JsonWriter.class, "EndObject", MethodType.methodType(JsonWriter.class));
+            NAME = lookup.findVirtual(JsonWriter.class, "Name",
+                    MethodType.methodType(JsonWriter.class, JsonWriter.EncodedString.class));
+            LONG_VALUE = lookup.findVirtual(JsonWriter.class, "Value",
+                    MethodType.methodType(JsonWriter.class, long.class));
+            DOUBLE_VALUE = lookup.findVirtual(JsonWriter.class, "Value",
+                    MethodType.methodType(JsonWriter.class, double.class));
+            FLOAT_VALUE = lookup.findVirtual(JsonWriter.class, "Value",
+                    MethodType.methodType(JsonWriter.class, float.class));
+            BOOLEAN_VALUE = lookup.findVirtual(JsonWriter.class, "Value",
+                    MethodType.methodType(JsonWriter.class, boolean.class));
+            CHAR_VALUE = MethodHandles.filterArguments(lookup.findVirtual(JsonWriter.class, "Value",
+                    MethodType.methodType(JsonWriter.class, String.class)), 1,
+                    lookup.findStatic(String.class, "valueOf", MethodType.methodType(String.class, char.class)));
+            WRITE_NULLABLE = lookup.findStatic(ValueWriter.class, "WriteNullable",
+                    MethodType.methodType(void.class, ValueWriter.class, JsonWriter.class, Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        byte[] template = null;
+        try (InputStream input = ClassBinding.class.getResourceAsStream("FieldsWriter.class")) {
+            if (input != null)
+                template = input.readAllBytes();
+        } catch (IOException e) {
+            // Falls back to the instance field.
+        }
+        TEMPLATE = template;
+    }
+
+    private final Writer writer;
+
+    private ClassBinding(Class<?> cls) {
+        final MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(cls, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access the fields of " + cls.getName(), e);
+        }
+        ArrayList<MethodHandle> steps = new ArrayList<>();
+        steps.add(Step(BEGIN_OBJECT));
+        for (Field field : cls.getDeclaredFields()) {
+            // Static fields and the compiler's outer-instance references are not state.
+            if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic())
+                continue;
+            final MethodHandle getter;
+            try {
+                getter = lookup.unreflectGetter(field);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Cannot access " + field, e);
+            }
+            final MethodHandle name = MethodHandles.insertArguments(NAME, 1,
+                    JsonWriter.EncodeString(field.getName()));
+            steps.add(Step(name));
+            steps.add(Bind(getter, field.getType()));
+        }
+        steps.add(Step(END_OBJECT));
+        this.writer = Define(Join(steps, 0, steps.size()));
+    }
+
+    // (JsonWriter)JsonWriter as a step that ignores the object.
+    private static MethodHandle Step(MethodHandle write) {
+        return MethodHandles.dropArguments(write.asType(MethodType.methodType(void.class, JsonWriter.class)), 1,
+                Object.class);
+    }
+
+    // Writes the value of one field; int, short and byte are read as long.
+    private static MethodHandle Bind(MethodHandle getter, Class<?> type) {
+        MethodHandle write;
+        Class<?> read = type;
+        if (type == long.class || type == int.class || type == short.class || type == byte.class) {
+            write = LONG_VALUE;
+            read = long.class;
+        } else if (type == double.class) {
+            write = DOUBLE_VALUE;
+        } else if (type == float.class) {
+            write = FLOAT_VALUE;
+        } else if (type == boolean.class) {
+            write = BOOLEAN_VALUE;
+        } else if (type == char.class) {
+            write = CHAR_VALUE;
+        } else {
+            write = WRITE_NULLABLE.bindTo(ValueWriter.ForType(type));
+            read = Object.class;
+        }
+        write = MethodHandles.filterArguments(write, 1, getter.asType(MethodType.methodType(read, Object.class)));
+        return write.asType(STEP);
+    }
+
+    // Runs steps[from, to) in order, as a balanced tree so the handle stays
+    // shallow enough for the JIT to inline for classes with many fields.
+    private static MethodHandle Join(ArrayList<MethodHandle> steps, int from, int to) {
+        if (to - from == 1)
+            return steps.get(from);
+        final int mid = (from + to) >>> 1;
+        return MethodHandles.foldArguments(Join(steps, mid, to), Join(steps, from, mid));
+    }
+
+    private static Writer Define(MethodHandle write) {
+        if (TEMPLATE != null) {
+            try {
+                final MethodHandles.Lookup hidden = MethodHandles.lookup().defineHiddenClassWithClassData(TEMPLATE,
+                        write, true);
+                return (Writer) hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class))
+                        .invoke();
+            } catch (Throwable e) {
+                // Falls back to the instance field.
+            }
+        }
+        return (writer, obj) -> write.invokeExact(writer, obj);
+    }
+
+    static ClassBinding Of(Class<?> cls) {
+        return BINDINGS.get(cls);
+    }
+
+    void Write(JsonWriter writer, Object obj) throws Exception {
+        try {
+            this.writer.Write(writer, obj);
+        } catch (Error | Exception e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package json;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import src.dom.parser.JsonReader;
+import src.dom.parser.KeyCache;
+import src.dom.parser.ParseException;
+
+// How one class is read back, worked out once per class and cached in a
+// ClassValue, the counterpart of ClassBinding. Fields are found through an
+// open-addressed table keyed by the hash of their names, which is computed
+// once here. The names also seed a KeyCache of the class's own, which the
+// reader uses for the keys of its objects, so a name read from the input is
+// usually the very same String and the lookup ends in a reference comparison.
+// Plain classes are built with their no-argument constructor and filled
+// through setter handles; records collect their components and call the
+// canonical constructor. A generic class bound with type arguments, Page<User>
+// say, gets a decoder of its own per type.
+final class ClassDecoder {
+    private static final ClassValue<ClassDecoder> DECODERS = new ClassValue<ClassDecoder>() {
+        @Override
+        protected ClassDecoder computeValue(Class<?> cls) {
+            return new ClassDecoder(cls, Map.of());
+        }
+    };
+    // Generic classes bound with type arguments, such as Page<User>.
+    private static final ConcurrentHashMap<ParameterizedType, ClassDecoder> GENERIC =
+            new ConcurrentHashMap<>();
+
+    // Stores one field, or one record component into the argument array; the
+    // subclass is picked from the declared type, so primitives are not boxed.
+    private abstract static class FieldDecoder {
+        final String name;
+
+        FieldDecoder(String name) {
+            this.name = name;
+        }
+
+        abstract void Read(JsonReader reader, Object target) throws Throwable;
+    }
+
+    private static final class LongField extends FieldDecoder {
+        private final MethodHandle setter;
+
+        LongField(String name, MethodHandle setter) {
+            super(name);
+            this.setter = setter
+                    .asType(MethodType.methodType(void.class, Object.class, long.class));
+        }
+
+        @Override
+        void Read(JsonReader reader, Object target) throws Throwable {
+            if (reader.CurrentToken() != JsonReader.Event.NULL)
+                this.setter.invokeExact(target, reader.GetLong());
+        }
+    }
+
+    private static final class IntField extends FieldDecoder {
+        private final MethodHandle setter;
+
+        IntField(String name, MethodHandle setter) {
+            super(name);
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, int.class));
+        }
+
+        @Override
+        void Read(JsonReader reader, Object target) throws Throwable {
+            if (reader.CurrentToken() == JsonReader.Event.NULL)
+                return;
+            this.setter.invokeExact(target, Codecs.ReadInt(reader));
+        }
+    }
+
+    private static final class DoubleField extends FieldDecoder {
+        private final MethodHandle setter;
+
+        DoubleField(String name, MethodHandle setter) {
+            super(name);
+            this.setter = setter
+                    .asType(MethodType.methodType(void.class, Object.class, double.class));
+        }
+
+        @Override
+        void Read(JsonReader reader, Object target) throws Throwable {
+            if (reader.CurrentToken() != JsonReader.Event.NULL)
+                this.setter.invokeExact(target, reader.GetDouble());
+        }
+    }
+
+    private static final class BooleanField extends FieldDecoder {
+        private final MethodHandle setter;
+
+        BooleanField(String name, MethodHandle setter) {
+            super(name);
+            this.setter = setter
+                    .asType(MethodType.methodType(void.class, Object.class, boolean.class));
+        }
+
+        @Override
+        void Read(JsonReader reader, Object target) throws Throwable {
+            if (reader.CurrentToken() != JsonReader.Event.NULL)
+                this.setter.invokeExact(target, reader.GetBoolean());
+        }
+    }
+
+    // Any other type, primitives that are rarely used included (the value is
+    // unboxed by the handle). Nulls leave primitives at their default.
+    private static final class ObjectField extends FieldDecoder {
+        private final MethodHandle setter;
+        private final ValueReader valueReader;
+        private final boolean primitive;
+
+        ObjectField(String name, MethodHandle setter, Class<?> type, ValueReader valueReader) {
+            super(name);
+            this.setter = setter
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            this.valueReader = valueReader;
+            this.primitive = type.isPrimitive();
+        }
+
+        @Override
+        void Read(JsonReader reader, Object target) throws Throwable {
+            final Object value = ValueReader.ReadNullable(this.valueReader, reader);
+            if (value != null || !this.primitive)
+                this.setter.invokeExact(target, value);
+        }
+    }
+
+    private static final class ComponentDecoder extends FieldDecoder {
+        private final int index;
+        private final ValueReader valueReader;
+
+        ComponentDecoder(String name, int index, ValueReader valueReader) {
+            super(name);
+            this.index = index;
+            this.valueReader = valueReader;
+        }
+
+        @Override
+        void Read(JsonReader reader, Object target) throws Throwable {
+            final Object value = ValueReader.ReadNullable(this.valueReader, reader);
+            if (value != null)
+                ((Object[]) target)[this.index] = value;
+        }
+    }
+
+    private final Class<?> cls;
+    // () -> Object for classes, (Object[]) -> Object for records.
+    private final MethodHandle constructor;
+    private final Object[] defaults;
+    private final String[] names;
+    private final int[] hashes;
+    private final FieldDecoder[] table;
+    private final int mask;
+    private final KeyCache keys;
+
+    private ClassDecoder(Class<?> cls, Map<TypeVariable<?>, Type> arguments) {
+        this.cls = cls;
+        final MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(cls, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access the fields of " + cls.getName(), e);
+        }
+        ArrayList<FieldDecoder> fields = new ArrayList<>();
+        try {
+            if (cls.isRecord()) {
+                final RecordComponent[] components = cls.getRecordComponents();
+                final Class<?>[] types = new Class<?>[components.length];
+                this.defaults = new Object[components.length];
+                for (int i = 0; i < components.length; i++) {
+                    types[i] = components[i].getType();
+                    if (types[i].isPrimitive())
+                        this.defaults[i] = DefaultValue(types[i]);
+                    final Type type = components[i].getGenericType();
+                    final ValueReader value =
+                            ValueReader.ForType(ValueReader.Resolve(type, arguments));
+                    fields.add(new ComponentDecoder(components[i].getName(), i, value));
+                }
+                this.constructor = lookup
+                        .findConstructor(cls, MethodType.methodType(void.class, types))
+                        .asSpreader(Object[].class, components.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+            } else {
+                this.defaults = null;
+                this.constructor = lookup.findConstructor(cls, MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(Object.class));
+                for (Field field : cls.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic())
+                        continue;
+                    // Final fields can only be set once made accessible.
+                    if (Modifier.isFinal(field.getModifiers()))
+                        field.setAccessible(true);
+                    fields.add(Bind(field, lookup.unreflectSetter(field), arguments));
+                }
+            }
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(
+                    cls.getName() + " has no no-argument constructor", e);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException("Cannot bind " + cls.getName(), e);
+        }
+
+        final int size = Math.max(4, Integer.highestOneBit(fields.size()) << 2);
+        this.names = new String[size];
+        this.hashes = new int[size];
+        this.table = new FieldDecoder[size];
+        this.mask = size - 1;
+        // Room for unknown names read from the input as well.
+        this.keys = new KeyCache(size * 4);
+        for (FieldDecoder field : fields) {
+            this.keys.Add(field.name);
+            final int hash = Hash(field.name);
+            int slot = hash & this.mask;
+            while (this.table[slot] != null)
+                slot = (slot + 1) & this.mask;
+            this.names[slot] = field.name;
+            this.hashes[slot] = hash;
+            this.table[slot] = field;
+        }
+    }
+
+    private static FieldDecoder Bind(Field field, MethodHandle setter,
+            Map<TypeVariable<?>, Type> arguments) {
+        final Class<?> type = field.getType();
+        final String name = field.getName();
+        if (type == long.class)
+            return new LongField(name, setter);
+        if (type == int.class)
+            return new IntField(name, setter);
+        if (type == double.class)
+            return new DoubleField(name, setter);
+        if (type == boolean.class)
+            return new BooleanField(name, setter);
+        final Type generic = ValueReader.Resolve(field.getGenericType(), arguments);
+        return new ObjectField(name, setter, type, ValueReader.ForType(generic));
+    }
+
+    private static Object DefaultValue(Class<?> type) {
+        if (type == boolean.class)
+            return false;
+        if (type == char.class)
+            return (char) 0;
+        if (type == float.class)
+            return 0f;
+        if (type == double.class)
+            return 0d;
+        if (type == long.class)
+            return 0L;
+        if (type == int.class)
+            return 0;
+        if (type == short.class)
+            return (short) 0;
+        return (byte) 0;
+    }
+
+    static ClassDecoder Of(Type type) {
+        if (type instanceof Class)
+            return DECODERS.get((Class<?>) type);
+        final ParameterizedType parameterized = (ParameterizedType) type;
+        ClassDecoder decoder = GENERIC.get(parameterized);
+        if (decoder == null) {
+            final Class<?> cls = (Class<?>) parameterized.getRawType();
+            final TypeVariable<?>[] variables = cls.getTypeParameters();
+            final Type[] values = parameterized.getActualTypeArguments();
+            HashMap<TypeVariable<?>, Type> arguments = new HashMap<>();
+            for (int i = 0; i < variables.length; i++)
+                arguments.put(variables[i], values[i]);
+            decoder = new ClassDecoder(cls, arguments);
+            final ClassDecoder raced = GENERIC.putIfAbsent(parameterized, decoder);
+            if (raced != null)
+                decoder = raced;
+        }
+        return decoder;
+    }
+
+    // Reads an object, leaving the reader on its END_OBJECT. Unknown names are
+    // skipped.
+    Object Read(JsonReader reader) throws ParseException {
+        if (reader.CurrentToken() != JsonReader.Event.START_OBJECT)
+            throw new ParseException(String.format("Expected %s, got %s",
+                    JsonReader.Event.START_OBJECT, reader.CurrentToken()));
+        final KeyCache outer = reader.GetKeyCache();
+        reader.SetKeyCache(this.keys);
+        try {
+            final Object target = this.defaults != null
+                    ? this.defaults.clone()
+                    : (Object) this.constructor.invokeExact();
+            while (reader.NextToken() == JsonReader.Event.FIELD_NAME) {
+                final FieldDecoder field = this.Find(reader.GetString());
+                reader.NextToken();
+                if (field == null)
+                    reader.SkipChildren();
+                else
+                    field.Read(reader, target);
+            }
+            if (this.defaults != null)
+                return (Object) this.constructor.invokeExact((Object[]) target);
+            return target;
+        } catch (ParseException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot create " + this.cls.getName(), e);
+        } finally {
+            reader.SetKeyCache(outer);
+        }
+    }
+
+    private FieldDecoder Find(String name) {
+        final int hash = Hash(name);
+        for (int slot = hash & this.mask;; slot = (slot + 1) & this.mask) {
+            final String candidate = this.names[slot];
+            if (candidate == null)
+                return null;
+            if (candidate == name || (this.hashes[slot] == hash && candidate.equals(name)))
+                return this.table[slot];
+        }
+    }
+
+    private static int Hash(String name) {
+        final int h = name.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,19 @@
+package json;
+
+import java.io.IOException;
+
+import src.dom.parser.JsonReader;
+import src.dom.parser.JsonWriter;
+import src.dom.parser.ParseException;
+
+// Writes and reads one type without reflection. Implementations are generated
+// by CodecProcessor and found through ServiceLoader, see Codecs.For().
+public interface Codec<T> {
+    Class<T> Type();
+
+    void Write(JsonWriter writer, T value) throws IOException;
+
+    // Called with the reader on the first event of the value, which it leaves
+    // on the last one.
+    T Read(JsonReader reader) throws ParseException;
+}
@@ -0,0 +1,560 @@
+package json;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+// Generates a <Name>JsonCodec for every class or record annotated with
+// @GenerateCodec: straight-line code that writes each field through
+// JsonWriter and reads it back from a JsonReader, with no reflection at run
+// time. The codecs are listed in META-INF/services/json.Codec, which is how
+// Codecs.For() finds them. Run javac with -processor json.CodecProcessor and
+// this package on the processor path.
+//
+// Fields are written under their own names, like ClassBinding does. Private
+// fields need a getX()/isX() and a setX() that are not private, and classes
+// need a no-argument constructor that is not private; records use their
+// accessors and canonical constructor. Field types are limited to what the
+// generated code can handle without reflection: primitives and their boxes,
+// String, BigDecimal, BigInteger, enums, other @GenerateCodec types, arrays,
+// and lists, sets and String-keyed maps of these. Anything else is a
+// compilation error.
+@SupportedAnnotationTypes("json.GenerateCodec")
+public class CodecProcessor extends AbstractProcessor {
+    private static final String SERVICES = "META-INF/services/json.Codec";
+    // Spelled out in the generated code, which imports nothing.
+    private static final String WRITER = "src.dom.parser.JsonWriter";
+    private static final String READER = "src.dom.parser.JsonReader";
+    private static final String PARSE_EXCEPTION = "src.dom.parser.ParseException";
+
+    private final TreeSet<String> codecs = new TreeSet<>();
+
+    private static final class Unsupported extends Exception {
+        Unsupported(String message) {
+            super(message);
+        }
+    }
+
+    // A field or record component and how the generated code gets at it.
+    private static final class Property {
+        String name;
+        TypeMirror type;
+        String getter;
+        String setter;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                try {
+                    this.Generate((TypeElement) element);
+                } catch (Unsupported e) {
+                    this.processingEnv.getMessager()
+                            .printMessage(Diagnostic.Kind.ERROR, e.getMessage(), element);
+                } catch (IOException e) {
+                    this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                            "Cannot write the codec: " + e.getMessage(), element);
+                }
+            }
+        }
+        if (round.processingOver() && !this.codecs.isEmpty())
+            this.WriteServices();
+        return true;
+    }
+
+    private void WriteServices() {
+        final Filer filer = this.processingEnv.getFiler();
+        // Keep the codecs of classes not compiled this time.
+        try {
+            FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICES);
+            try (BufferedReader in = new BufferedReader(existing.openReader(true))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (!line.isBlank())
+                        this.codecs.add(line.trim());
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // Nothing listed yet.
+        }
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICES);
+            try (Writer out = file.openWriter()) {
+                for (String codec : this.codecs)
+                    out.write(codec + "\n");
+            }
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Cannot write " + SERVICES + ": " + e.getMessage());
+        }
+    }
+
+    private void Generate(TypeElement type) throws Unsupported, IOException {
+        final boolean record = type.getKind() == ElementKind.RECORD;
+        if (type.getKind() != ElementKind.CLASS && !record)
+            throw new Unsupported("@GenerateCodec needs a class or a record");
+        if (type.getModifiers().contains(Modifier.ABSTRACT))
+            throw new Unsupported("@GenerateCodec needs a concrete class");
+        if (!type.getTypeParameters().isEmpty())
+            throw new Unsupported("@GenerateCodec does not support generic classes");
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            final TypeElement t = (TypeElement) e;
+            if (t.getModifiers().contains(Modifier.PRIVATE))
+                throw new Unsupported(t.getSimpleName() + " must not be private");
+            if (t.getNestingKind() == NestingKind.MEMBER && t.getKind() == ElementKind.CLASS
+                    && !t.getModifiers().contains(Modifier.STATIC))
+                throw new Unsupported(t.getSimpleName() + " must be static");
+            final NestingKind nesting = t.getNestingKind();
+            if (nesting == NestingKind.LOCAL || nesting == NestingKind.ANONYMOUS)
+                throw new Unsupported("@GenerateCodec does not support local classes");
+        }
+
+        final List<Property> properties =
+                record ? this.RecordProperties(type) : this.ClassProperties(type);
+        final String pkg = this.PackageOf(type);
+        final String simpleName = CodecName(type);
+        final String qualifiedName = pkg.isEmpty() ? simpleName : pkg + "." + simpleName;
+        final String typeName = type.getQualifiedName().toString();
+
+        StringBuilder out = new StringBuilder();
+        if (!pkg.isEmpty())
+            out.append("package ").append(pkg).append(";\n\n");
+        out.append("// Generated by json.CodecProcessor from ").append(typeName)
+                .append("; do not edit.\n");
+        out.append("public final class ").append(simpleName)
+                .append(" implements json.Codec<").append(typeName).append("> {\n");
+        for (int i = 0; i < properties.size(); i++) {
+            out.append("    private static final ").append(WRITER).append(".EncodedString NAME")
+                    .append(i).append(" = ").append(WRITER).append(".EncodeString(\"")
+                    .append(properties.get(i).name).append("\");\n");
+        }
+        out.append("\n");
+        out.append("    @Override\n");
+        out.append("    public Class<").append(typeName).append("> Type() {\n");
+        out.append("        return ").append(typeName).append(".class;\n");
+        out.append("    }\n\n");
+        out.append("    @Override\n");
+        out.append("    public void Write(").append(WRITER).append(" writer, ").append(typeName)
+                .append(" value) throws java.io.IOException {\n");
+        out.append("        WriteValue(writer, value);\n");
+        out.append("    }\n\n");
+        out.append("    @Override\n");
+        out.append("    public ").append(typeName).append(" Read(").append(READER)
+                .append(" reader) throws ").append(PARSE_EXCEPTION).append(" {\n");
+        out.append("        return ReadValue(reader);\n");
+        out.append("    }\n\n");
+
+        out.append("    public static void WriteValue(").append(WRITER).append(" writer, ")
+                .append(typeName).append(" value) throws java.io.IOException {\n");
+        out.append("        if (value == null) {\n");
+        out.append("            writer.NullValue();\n");
+        out.append("            return;\n");
+        out.append("        }\n");
+        out.append("        writer.BeginObject();\n");
+        for (int i = 0; i < properties.size(); i++) {
+            final Property p = properties.get(i);
+            out.append("        writer.Name(NAME").append(i).append(");\n");
+            final String write = this.WriteStatement(p.type, "writer", "value." + p.getter, 0);
+            out.append("        ").append(write).append("\n");
+        }
+        out.append("        writer.EndObject();\n");
+        out.append("    }\n\n");
+
+        out.append("    public static ").append(typeName).append(" ReadValue(").append(READER)
+                .append(" reader) throws ").append(PARSE_EXCEPTION).append(" {\n");
+        out.append("        if (json.Codecs.IsNull(reader))\n");
+        out.append("            return null;\n");
+        out.append("        json.Codecs.ExpectObject(reader);\n");
+        if (record) {
+            for (int i = 0; i < properties.size(); i++) {
+                final TypeMirror t = properties.get(i).type;
+                out.append("        ").append(t).append(" v").append(i).append(" = ")
+                        .append(DefaultValue(t)).append(";\n");
+            }
+        } else {
+            out.append("        final ").append(typeName).append(" res = new ").append(typeName)
+                    .append("();\n");
+        }
+        out.append("        while (reader.NextToken() == ").append(READER)
+                .append(".Event.FIELD_NAME) {\n");
+        out.append("            final String name = reader.GetString();\n");
+        out.append("            reader.NextToken();\n");
+        out.append("            switch (name) {\n");
+        for (int i = 0; i < properties.size(); i++) {
+            final Property p = properties.get(i);
+            final String read = this.ReadExpression(p.type, "reader", 0);
+            final String assign = record ? "v" + i + " = " + read + ";"
+                    : "res." + p.setter.replace("$", read) + ";";
+            out.append("                case \"").append(p.name).append("\":\n");
+            if (p.type.getKind().isPrimitive())
+                out.append("                    if (!json.Codecs.IsNull(reader))\n    ");
+            out.append("                    ").append(assign).append("\n");
+            out.append("                    break;\n");
+        }
+        out.append("                default:\n");
+        out.append("                    reader.SkipChildren();\n");
+        out.append("                    break;\n");
+        out.append("            }\n");
+        out.append("        }\n");
+        if (record) {
+            out.append("        return new ").append(typeName).append("(");
+            for (int i = 0; i < properties.size(); i++)
+                out.append(i > 0 ? ", " : "").append("v").append(i);
+            out.append(");\n");
+        } else {
+            out.append("        return res;\n");
+        }
+        out.append("    }\n");
+        out.append("}\n");
+
+        try (Writer writer =
+                this.processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(out.toString());
+        }
+        this.codecs.add(qualifiedName);
+    }
+
+    private String PackageOf(TypeElement type) {
+        return this.processingEnv.getElementUtils().getPackageOf(type).getQualifiedName()
+                .toString();
+    }
+
+    // Outer.Inner gets Outer_InnerJsonCodec, next to Outer.
+    private static String CodecName(TypeElement type) {
+        String name = type.getSimpleName().toString();
+        for (Element e = type.getEnclosingElement(); e instanceof TypeElement;
+                e = e.getEnclosingElement())
+            name = e.getSimpleName() + "_" + name;
+        return name + "JsonCodec";
+    }
+
+    private List<Property> RecordProperties(TypeElement type) {
+        ArrayList<Property> res = new ArrayList<>();
+        for (RecordComponentElement component : type.getRecordComponents()) {
+            Property p = new Property();
+            p.name = component.getSimpleName().toString();
+            p.type = component.asType();
+            p.getter = p.name + "()";
+            res.add(p);
+        }
+        return res;
+    }
+
+    private List<Property> ClassProperties(TypeElement type) throws Unsupported {
+        boolean constructor = false;
+        for (ExecutableElement c : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE))
+                constructor = true;
+        }
+        if (!constructor)
+            throw new Unsupported(
+                    type.getSimpleName() + " needs a no-argument constructor that is not private");
+
+        final List<ExecutableElement> methods = ElementFilter.methodsIn(type.getEnclosedElements());
+        ArrayList<Property> res = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC))
+                continue;
+            Property p = new Property();
+            p.name = field.getSimpleName().toString();
+            p.type = field.asType();
+            final boolean hidden = field.getModifiers().contains(Modifier.PRIVATE);
+            final String suffix = Character.toUpperCase(p.name.charAt(0)) + p.name.substring(1);
+            if (!hidden) {
+                p.getter = p.name;
+            } else if (FindMethod(methods, "get" + suffix, 0) != null) {
+                p.getter = "get" + suffix + "()";
+            } else if (p.type.getKind() == TypeKind.BOOLEAN
+                    && FindMethod(methods, "is" + suffix, 0) != null) {
+                p.getter = "is" + suffix + "()";
+            } else {
+                throw new Unsupported("Private field " + p.name + " needs a getter");
+            }
+            if (!hidden && !field.getModifiers().contains(Modifier.FINAL)) {
+                p.setter = p.name + " = $";
+            } else if (FindMethod(methods, "set" + suffix, 1) != null) {
+                p.setter = "set" + suffix + "($)";
+            } else {
+                throw new Unsupported("Field " + p.name + " needs a setter");
+            }
+            res.add(p);
+        }
+        return res;
+    }
+
+    private static ExecutableElement FindMethod(List<ExecutableElement> methods, String name,
+            int parameters) {
+        for (ExecutableElement m : methods) {
+            if (m.getSimpleName().contentEquals(name) && m.getParameters().size() == parameters
+                    && !m.getModifiers().contains(Modifier.PRIVATE)
+                    && !m.getModifiers().contains(Modifier.STATIC))
+                return m;
+        }
+        return null;
+    }
+
+    private static String DefaultValue(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "false";
+            case CHAR:
+                return "(char) 0";
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                return "0";
+            default:
+                return "null";
+        }
+    }
+
+    private TypeMirror Erasure(TypeMirror type) {
+        return this.processingEnv.getTypeUtils().erasure(type);
+    }
+
+    private TypeMirror Erasure(String className) {
+        final TypeElement element = this.processingEnv.getElementUtils().getTypeElement(className);
+        return this.Erasure(element.asType());
+    }
+
+    private boolean IsA(TypeMirror type, String className) {
+        final Types types = this.processingEnv.getTypeUtils();
+        return types.isSameType(this.Erasure(type), this.Erasure(className));
+    }
+
+    private boolean IsSubtype(TypeMirror type, String className) {
+        final Types types = this.processingEnv.getTypeUtils();
+        return types.isAssignable(this.Erasure(type), this.Erasure(className));
+    }
+
+    // Whether a value created as 'className' can be stored in 'type'.
+    private boolean Accepts(TypeMirror type, String className) {
+        final Types types = this.processingEnv.getTypeUtils();
+        return types.isAssignable(this.Erasure(className), this.Erasure(type));
+    }
+
+    private static boolean IsSimple(String name) {
+        switch (name) {
+            case "java.lang.String":
+            case "java.lang.Long":
+            case "java.lang.Integer":
+            case "java.lang.Short":
+            case "java.lang.Byte":
+            case "java.lang.Double":
+            case "java.lang.Float":
+            case "java.lang.Boolean":
+            case "java.lang.Character":
+            case "java.math.BigDecimal":
+            case "java.math.BigInteger":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private String GeneratedCodec(TypeElement element) {
+        if (element.getAnnotation(GenerateCodec.class) == null)
+            return null;
+        final String pkg = this.PackageOf(element);
+        return pkg.isEmpty() ? CodecName(element) : pkg + "." + CodecName(element);
+    }
+
+    private static String Boxed(TypeKind kind) {
+        switch (kind) {
+            case BOOLEAN:
+                return "Boolean";
+            case BYTE:
+                return "Byte";
+            case SHORT:
+                return "Short";
+            case INT:
+                return "Int";
+            case LONG:
+                return "Long";
+            case CHAR:
+                return "Char";
+            case FLOAT:
+                return "Float";
+            default:
+                return "Double";
+        }
+    }
+
+    // The single type argument of a collection, or the value type of a map.
+    private static TypeMirror Argument(TypeMirror type, int index) throws Unsupported {
+        final List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+        if (arguments.size() <= index || arguments.get(index).getKind() != TypeKind.DECLARED
+                && arguments.get(index).getKind() != TypeKind.ARRAY)
+            throw new Unsupported(
+                    "Cannot generate code for " + type + "; declare its type arguments");
+        return arguments.get(index);
+    }
+
+    // A statement writing 'expr' of type 'type'. Nested lambdas are numbered
+    // by depth so their parameters do not clash.
+    private String WriteStatement(TypeMirror type, String writer, String expr, int depth)
+            throws Unsupported {
+        switch (type.getKind()) {
+            case BOOLEAN:
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                return writer + ".Value(" + expr + ");";
+            case CHAR:
+                return writer + ".Value(String.valueOf(" + expr + "));";
+            case ARRAY: {
+                final TypeMirror component = ((ArrayType) type).getComponentType();
+                if (component.getKind().isPrimitive())
+                    return "json.Codecs.Write(" + writer + ", " + expr + ");";
+                final String w = "w" + depth;
+                final String e = "e" + depth;
+                return "json.Codecs.WriteArray(" + writer + ", " + expr
+                        + ", (" + w + ", " + e + ") -> { "
+                        + this.WriteStatement(component, w, e, depth + 1) + " });";
+            }
+            case DECLARED: {
+                final TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+                final String name = element.getQualifiedName().toString();
+                if (IsSimple(name) || element.getKind() == ElementKind.ENUM)
+                    return "json.Codecs.Write(" + writer + ", " + expr + ");";
+                final String codec = this.GeneratedCodec(element);
+                if (codec != null)
+                    return codec + ".WriteValue(" + writer + ", " + expr + ");";
+                final String w = "w" + depth;
+                final String e = "e" + depth;
+                if (this.IsSubtype(type, "java.util.Map")) {
+                    if (!this.IsA(Argument(type, 0), "java.lang.String"))
+                        throw new Unsupported("Map keys must be strings: " + type);
+                    return "json.Codecs.WriteMap(" + writer + ", " + expr
+                            + ", (" + w + ", " + e + ") -> { "
+                            + this.WriteStatement(Argument(type, 1), w, e, depth + 1) + " });";
+                }
+                if (this.IsSubtype(type, "java.lang.Iterable")) {
+                    return "json.Codecs.WriteIterable(" + writer + ", " + expr
+                            + ", (" + w + ", " + e + ") -> { "
+                            + this.WriteStatement(Argument(type, 0), w, e, depth + 1) + " });";
+                }
+                break;
+            }
+            default:
+                break;
+        }
+        throw new Unsupported("Cannot generate code for " + type);
+    }
+
+    // An expression reading a value of type 'type'.
+    private String ReadExpression(TypeMirror type, String reader, int depth) throws Unsupported {
+        if (type.getKind().isPrimitive())
+            return "json.Codecs.Read" + Boxed(type.getKind()) + "(" + reader + ")";
+        switch (type.getKind()) {
+            case ARRAY: {
+                final TypeMirror component = ((ArrayType) type).getComponentType();
+                if (component.getKind().isPrimitive())
+                    return "json.Codecs.Read" + Boxed(component.getKind()) + "Array(" + reader
+                            + ")";
+                if (!this.Erasure(component).toString().equals(component.toString()))
+                    throw new Unsupported(
+                            "Cannot generate code for arrays of generic types: " + type);
+                final String r = "r" + depth;
+                return "json.Codecs.ReadArray(" + reader + ", " + r + " -> "
+                        + this.ReadExpression(component, r, depth + 1) + ", " + component
+                        + "[]::new)";
+            }
+            case DECLARED: {
+                final TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+                final String name = element.getQualifiedName().toString();
+                switch (name) {
+                    case "java.lang.String":
+                        return "json.Codecs.ReadString(" + reader + ")";
+                    case "java.math.BigDecimal":
+                        return "json.Codecs.ReadBigDecimal(" + reader + ")";
+                    case "java.math.BigInteger":
+                        return "json.Codecs.ReadBigInteger(" + reader + ")";
+                    case "java.lang.Long":
+                    case "java.lang.Short":
+                    case "java.lang.Byte":
+                    case "java.lang.Double":
+                    case "java.lang.Float":
+                    case "java.lang.Boolean":
+                        return "(json.Codecs.IsNull(" + reader + ") ? null : (" + name
+                                + ") json.Codecs.Read" + element.getSimpleName() + "(" + reader
+                                + "))";
+                    case "java.lang.Integer":
+                        return "(json.Codecs.IsNull(" + reader + ") ? null : (" + name
+                                + ") json.Codecs.ReadInt(" + reader + "))";
+                    case "java.lang.Character":
+                        return "(json.Codecs.IsNull(" + reader + ") ? null : (" + name
+                                + ") json.Codecs.ReadChar(" + reader + "))";
+                    default:
+                        break;
+                }
+                if (element.getKind() == ElementKind.ENUM)
+                    return "json.Codecs.ReadEnum(" + reader + ", " + name + "::valueOf)";
+                final String codec = this.GeneratedCodec(element);
+                if (codec != null)
+                    return codec + ".ReadValue(" + reader + ")";
+                final String r = "r" + depth;
+                if (this.IsSubtype(type, "java.util.Map")
+                        && this.Accepts(type, "java.util.LinkedHashMap")) {
+                    if (!this.IsA(Argument(type, 0), "java.lang.String"))
+                        throw new Unsupported("Map keys must be strings: " + type);
+                    return "json.Codecs.ReadMap(" + reader + ", " + r + " -> "
+                            + this.ReadExpression(Argument(type, 1), r, depth + 1) + ")";
+                }
+                if (this.IsSubtype(type, "java.lang.Iterable")
+                        && this.Accepts(type, "java.util.ArrayList")) {
+                    return "json.Codecs.ReadList(" + reader + ", " + r + " -> "
+                            + this.ReadExpression(Argument(type, 0), r, depth + 1) + ")";
+                }
+                if (this.IsSubtype(type, "java.util.Set")
+                        && this.Accepts(type, "java.util.LinkedHashSet")) {
+                    return "json.Codecs.ReadSet(" + reader + ", " + r + " -> "
+                            + this.ReadExpression(Argument(type, 0), r, depth + 1) + ")";
+                }
+                break;
+            }
+            default:
+                break;
+        }
+        throw new Unsupported("Cannot generate code for " + type);
+    }
+}
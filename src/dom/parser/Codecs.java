@@ -0,0 +1,477 @@
+package json;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import src.dom.parser.JsonReader;
+import src.dom.parser.JsonWriter;
+import src.dom.parser.ParseException;
+
+// The registry of generated codecs, and the helpers their code is made of.
+// Codecs are listed in META-INF/services/json.Codec by CodecProcessor and
+// loaded once, on the first lookup. The helpers take null wherever a
+// reference type is written, and the readers of reference types return null
+// on a null event.
+public final class Codecs {
+    private static Map<Class<?>, Codec<?>> loaded;
+
+    private static final ClassValue<Codec<?>> CODECS = new ClassValue<Codec<?>>() {
+        @Override
+        protected Codec<?> computeValue(Class<?> cls) {
+            return Loaded().get(cls);
+        }
+    };
+
+    private Codecs() {
+    }
+
+    private static synchronized Map<Class<?>, Codec<?>> Loaded() {
+        if (loaded == null) {
+            HashMap<Class<?>, Codec<?>> codecs = new HashMap<>();
+            for (Codec<?> codec : ServiceLoader.load(Codec.class))
+                codecs.put(codec.Type(), codec);
+            loaded = codecs;
+        }
+        return loaded;
+    }
+
+    // The generated codec for the class, or null.
+    @SuppressWarnings("unchecked")
+    public static <T> Codec<T> For(Class<T> cls) {
+        return (Codec<T>) CODECS.get(cls);
+    }
+
+    public interface ElementWriter<T> {
+        void Write(JsonWriter writer, T value) throws IOException;
+    }
+
+    public interface ElementReader<T> {
+        T Read(JsonReader reader) throws ParseException;
+    }
+
+    public static void Write(JsonWriter writer, String value) throws IOException {
+        writer.Value(value);
+    }
+
+    public static void Write(JsonWriter writer, Long value) throws IOException {
+        if (value == null)
+            writer.NullValue();
+        else
+            writer.Value((long) value);
+    }
+
+    public static void Write(JsonWriter writer, Integer value) throws IOException {
+        if (value == null)
+            writer.NullValue();
+        else
+            writer.Value((long) value);
+    }
+
+    public static void Write(JsonWriter writer, Short value) throws IOException {
+        if (value == null)
+            writer.NullValue();
+        else
+            writer.Value((long) value);
+    }
+
+    public static void Write(JsonWriter writer, Byte value) throws IOException {
+        if (value == null)
+            writer.NullValue();
+        else
+            writer.Value((long) value);
+    }
+
+    public static void Write(JsonWriter writer, Double value) throws IOException {
+        if (value == null)
+            writer.NullValue();
+        else
+            writer.Value((double) value);
+    }
+
+    public static void Write(JsonWriter writer, Float value) throws IOException {
+        if (value == null)
+            writer.NullValue();
+        else
+            writer.Value((float) value);
+    }
+
+    public static void Write(JsonWriter writer, Boolean value) throws IOException {
+        if (value == null)
+            writer.NullValue();
+        else
+            writer.Value((boolean) value);
+    }
+
+    public static void Write(JsonWriter writer, Character value) throws IOException {
+        if (value == null)
+            writer.NullValue();
+        else
+            writer.Value(String.valueOf((char) value));
+    }
+
+    public static void Write(JsonWriter writer, BigDecimal value) throws IOException {
+        writer.Value(value);
+    }
+
+    public static void Write(JsonWriter writer, BigInteger value) throws IOException {
+        if (value == null)
+            writer.NullValue();
+        else
+            writer.Value(new BigDecimal(value));
+    }
+
+    public static void Write(JsonWriter writer, Enum<?> value) throws IOException {
+        if (value == null)
+            writer.NullValue();
+        else
+            writer.Value(value.name());
+    }
+
+    public static void Write(JsonWriter writer, int[] value) throws IOException {
+        if (value == null) {
+            writer.NullValue();
+            return;
+        }
+        writer.BeginArray();
+        for (int x : value)
+            writer.Value(x);
+        writer.EndArray();
+    }
+
+    public static void Write(JsonWriter writer, long[] value) throws IOException {
+        if (value == null) {
+            writer.NullValue();
+            return;
+        }
+        writer.BeginArray();
+        for (long x : value)
+            writer.Value(x);
+        writer.EndArray();
+    }
+
+    public static void Write(JsonWriter writer, double[] value) throws IOException {
+        if (value == null) {
+            writer.NullValue();
+            return;
+        }
+        writer.BeginArray();
+        for (double x : value)
+            writer.Value(x);
+        writer.EndArray();
+    }
+
+    public static void Write(JsonWriter writer, float[] value) throws IOException {
+        if (value == null) {
+            writer.NullValue();
+            return;
+        }
+        writer.BeginArray();
+        for (float x : value)
+            writer.Value(x);
+        writer.EndArray();
+    }
+
+    public static void Write(JsonWriter writer, short[] value) throws IOException {
+        if (value == null) {
+            writer.NullValue();
+            return;
+        }
+        writer.BeginArray();
+        for (short x : value)
+            writer.Value(x);
+        writer.EndArray();
+    }
+
+    public static void Write(JsonWriter writer, byte[] value) throws IOException {
+        if (value == null) {
+            writer.NullValue();
+            return;
+        }
+        writer.BeginArray();
+        for (byte x : value)
+            writer.Value(x);
+        writer.EndArray();
+    }
+
+    public static void Write(JsonWriter writer, boolean[] value) throws IOException {
+        if (value == null) {
+            writer.NullValue();
+            return;
+        }
+        writer.BeginArray();
+        for (boolean x : value)
+            writer.Value(x);
+        writer.EndArray();
+    }
+
+    // Text, as ValueWriter writes it.
+    public static void Write(JsonWriter writer, char[] value) throws IOException {
+        writer.Value(value == null ? null : new String(value));
+    }
+
+    public static <T> void WriteArray(JsonWriter writer, T[] value, ElementWriter<? super T> element)
+            throws IOException {
+        if (value == null) {
+            writer.NullValue();
+            return;
+        }
+        writer.BeginArray();
+        for (T x : value)
+            element.Write(writer, x);
+        writer.EndArray();
+    }
+
+    public static <T> void WriteIterable(JsonWriter writer, Iterable<T> value, ElementWriter<? super T> element)
+            throws IOException {
+        if (value == null) {
+            writer.NullValue();
+            return;
+        }
+        writer.BeginArray();
+        for (T x : value)
+            element.Write(writer, x);
+        writer.EndArray();
+    }
+
+    public static <T> void WriteMap(JsonWriter writer, Map<String, T> value, ElementWriter<? super T> element)
+            throws IOException {
+        if (value == null) {
+            writer.NullValue();
+            return;
+        }
+        writer.BeginObject();
+        for (Map.Entry<String, T> entry : value.entrySet()) {
+            writer.Name(entry.getKey());
+            element.Write(writer, entry.getValue());
+        }
+        writer.EndObject();
+    }
+
+    public static boolean IsNull(JsonReader reader) {
+        return reader.CurrentToken() == JsonReader.Event.NULL;
+    }
+
+    public static void ExpectObject(JsonReader reader) throws ParseException {
+        Expect(reader, JsonReader.Event.START_OBJECT);
+    }
+
+    private static void Expect(JsonReader reader, JsonReader.Event event) throws ParseException {
+        if (reader.CurrentToken() != event)
+            throw new ParseException(String.format("Expected %s, got %s", event, reader.CurrentToken()));
+    }
+
+    private static ParseException OutOfRange(long value, String type) {
+        return new ParseException(String.format("%d is out of range for %s", value, type));
+    }
+
+    public static long ReadLong(JsonReader reader) throws ParseException {
+        return reader.GetLong();
+    }
+
+    public static int ReadInt(JsonReader reader) throws ParseException {
+        final long value = reader.GetLong();
+        if ((int) value != value)
+            throw OutOfRange(value, "int");
+        return (int) value;
+    }
+
+    public static short ReadShort(JsonReader reader) throws ParseException {
+        final long value = reader.GetLong();
+        if ((short) value != value)
+            throw OutOfRange(value, "short");
+        return (short) value;
+    }
+
+    public static byte ReadByte(JsonReader reader) throws ParseException {
+        final long value = reader.GetLong();
+        if ((byte) value != value)
+            throw OutOfRange(value, "byte");
+        return (byte) value;
+    }
+
+    public static double ReadDouble(JsonReader reader) throws ParseException {
+        return reader.GetDouble();
+    }
+
+    public static float ReadFloat(JsonReader reader) throws ParseException {
+        return (float) reader.GetDouble();
+    }
+
+    public static boolean ReadBoolean(JsonReader reader) throws ParseException {
+        return reader.GetBoolean();
+    }
+
+    public static char ReadChar(JsonReader reader) throws ParseException {
+        final String s = reader.GetString();
+        if (s.length() != 1)
+            throw new ParseException("Expected a single character, got \"" + s + "\"");
+        return s.charAt(0);
+    }
+
+    public static String ReadString(JsonReader reader) throws ParseException {
+        return IsNull(reader) ? null : reader.GetString();
+    }
+
+    public static BigDecimal ReadBigDecimal(JsonReader reader) throws ParseException {
+        return IsNull(reader) ? null : reader.GetNumber().AsBigDecimal();
+    }
+
+    public static BigInteger ReadBigInteger(JsonReader reader) throws ParseException {
+        return IsNull(reader) ? null : reader.GetBigInteger();
+    }
+
+    // 'valueOf' is the enum's own valueOf.
+    public static <E> E ReadEnum(JsonReader reader, Function<String, E> valueOf) throws ParseException {
+        if (IsNull(reader))
+            return null;
+        final String name = reader.GetString();
+        try {
+            return valueOf.apply(name);
+        } catch (IllegalArgumentException e) {
+            throw new ParseException("Unknown constant \"" + name + "\"");
+        }
+    }
+
+    public static int[] ReadIntArray(JsonReader reader) throws ParseException {
+        if (IsNull(reader))
+            return null;
+        Expect(reader, JsonReader.Event.START_ARRAY);
+        int[] res = new int[8];
+        int count = 0;
+        while (reader.NextToken() != JsonReader.Event.END_ARRAY) {
+            if (count == res.length)
+                res = Arrays.copyOf(res, count * 2);
+            res[count++] = ReadInt(reader);
+        }
+        return Arrays.copyOf(res, count);
+    }
+
+    public static long[] ReadLongArray(JsonReader reader) throws ParseException {
+        if (IsNull(reader))
+            return null;
+        Expect(reader, JsonReader.Event.START_ARRAY);
+        long[] res = new long[8];
+        int count = 0;
+        while (reader.NextToken() != JsonReader.Event.END_ARRAY) {
+            if (count == res.length)
+                res = Arrays.copyOf(res, count * 2);
+            res[count++] = reader.GetLong();
+        }
+        return Arrays.copyOf(res, count);
+    }
+
+    public static double[] ReadDoubleArray(JsonReader reader) throws ParseException {
+        if (IsNull(reader))
+            return null;
+        Expect(reader, JsonReader.Event.START_ARRAY);
+        double[] res = new double[8];
+        int count = 0;
+        while (reader.NextToken() != JsonReader.Event.END_ARRAY) {
+            if (count == res.length)
+                res = Arrays.copyOf(res, count * 2);
+            res[count++] = reader.GetDouble();
+        }
+        return Arrays.copyOf(res, count);
+    }
+
+    public static float[] ReadFloatArray(JsonReader reader) throws ParseException {
+        final double[] values = ReadDoubleArray(reader);
+        if (values == null)
+            return null;
+        float[] res = new float[values.length];
+        for (int i = 0; i < values.length; i++)
+            res[i] = (float) values[i];
+        return res;
+    }
+
+    public static short[] ReadShortArray(JsonReader reader) throws ParseException {
+        if (IsNull(reader))
+            return null;
+        Expect(reader, JsonReader.Event.START_ARRAY);
+        short[] res = new short[8];
+        int count = 0;
+        while (reader.NextToken() != JsonReader.Event.END_ARRAY) {
+            if (count == res.length)
+                res = Arrays.copyOf(res, count * 2);
+            res[count++] = ReadShort(reader);
+        }
+        return Arrays.copyOf(res, count);
+    }
+
+    public static byte[] ReadByteArray(JsonReader reader) throws ParseException {
+        if (IsNull(reader))
+            return null;
+        Expect(reader, JsonReader.Event.START_ARRAY);
+        byte[] res = new byte[8];
+        int count = 0;
+        while (reader.NextToken() != JsonReader.Event.END_ARRAY) {
+            if (count == res.length)
+                res = Arrays.copyOf(res, count * 2);
+            res[count++] = ReadByte(reader);
+        }
+        return Arrays.copyOf(res, count);
+    }
+
+    public static boolean[] ReadBooleanArray(JsonReader reader) throws ParseException {
+        if (IsNull(reader))
+            return null;
+        Expect(reader, JsonReader.Event.START_ARRAY);
+        boolean[] res = new boolean[8];
+        int count = 0;
+        while (reader.NextToken() != JsonReader.Event.END_ARRAY) {
+            if (count == res.length)
+                res = Arrays.copyOf(res, count * 2);
+            res[count++] = reader.GetBoolean();
+        }
+        return Arrays.copyOf(res, count);
+    }
+
+    public static char[] ReadCharArray(JsonReader reader) throws ParseException {
+        return IsNull(reader) ? null : reader.GetString().toCharArray();
+    }
+
+    public static <T> ArrayList<T> ReadList(JsonReader reader, ElementReader<T> element) throws ParseException {
+        if (IsNull(reader))
+            return null;
+        Expect(reader, JsonReader.Event.START_ARRAY);
+        ArrayList<T> res = new ArrayList<>();
+        while (reader.NextToken() != JsonReader.Event.END_ARRAY)
+            res.add(element.Read(reader));
+        return res;
+    }
+
+    public static <T> T[] ReadArray(JsonReader reader, ElementReader<T> element, IntFunction<T[]> create)
+            throws ParseException {
+        final ArrayList<T> list = ReadList(reader, element);
+        return list == null ? null : list.toArray(create.apply(list.size()));
+    }
+
+    public static <T> LinkedHashSet<T> ReadSet(JsonReader reader, ElementReader<T> element) throws ParseException {
+        final ArrayList<T> list = ReadList(reader, element);
+        return list == null ? null : new LinkedHashSet<>(list);
+    }
+
+    public static <T> LinkedHashMap<String, T> ReadMap(JsonReader reader, ElementReader<T> element)
+            throws ParseException {
+        if (IsNull(reader))
+            return null;
+        Expect(reader, JsonReader.Event.START_OBJECT);
+        LinkedHashMap<String, T> res = new LinkedHashMap<>();
+        while (reader.NextToken() == JsonReader.Event.FIELD_NAME) {
+            final String name = reader.GetString();
+            reader.NextToken();
+            res.put(name, element.Read(reader));
+        }
+        return res;
+    }
+}
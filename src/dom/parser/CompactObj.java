@@ -0,0 +1,113 @@
+package src.dom.parser;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.function.BiConsumer;
+
+// A JsonObj kept as parallel key and value arrays in source order. Small
+// objects are searched linearly; past INDEX_THRESHOLD keys an open-addressed
+// table of positions is added on top, the arrays staying the ordered storage.
+// GetValue() builds a LinkedHashMap in the same order, which then takes over.
+final class CompactObj extends JsonObj {
+    static final int INDEX_THRESHOLD = 8;
+
+    private String[] keys;
+    private JsonType[] values;
+    private int count;
+    // Position + 1 of the key hashed to each slot, 0 for an empty slot.
+    private int[] index;
+    private LinkedHashMap<String, JsonType> value;
+
+    CompactObj() {
+        super(null);
+        this.keys = new String[4];
+        this.values = new JsonType[4];
+    }
+
+    // Later duplicates replace the value but keep the first position.
+    void Put(String key, JsonType value) {
+        final int i = this.IndexOf(key);
+        if (i >= 0) {
+            this.values[i] = value;
+            return;
+        }
+        if (this.count == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, this.count * 2);
+            this.values = Arrays.copyOf(this.values, this.count * 2);
+        }
+        this.keys[this.count] = key;
+        this.values[this.count] = value;
+        this.count++;
+        if (this.index != null && 2 * this.count <= this.index.length)
+            this.Insert(this.count - 1);
+        else if (this.count > INDEX_THRESHOLD)
+            this.Rehash();
+    }
+
+    @Override
+    public HashMap<String, JsonType> GetValue() {
+        if (this.value == null) {
+            LinkedHashMap<String, JsonType> value = new LinkedHashMap<>();
+            for (int i = 0; i < this.count; i++)
+                value.put(this.keys[i], this.values[i]);
+            this.value = value;
+        }
+        return this.value;
+    }
+
+    @Override
+    public JsonType Get(String key) {
+        if (this.value != null)
+            return this.value.get(key);
+        final int i = this.IndexOf(key);
+        return i < 0 ? null : this.values[i];
+    }
+
+    @Override
+    public void ForEach(BiConsumer<String, JsonType> action) {
+        if (this.value != null) {
+            this.value.forEach(action);
+            return;
+        }
+        for (int i = 0; i < this.count; i++)
+            action.accept(this.keys[i], this.values[i]);
+    }
+
+    private int IndexOf(String key) {
+        if (this.index == null) {
+            for (int i = 0; i < this.count; i++) {
+                if (this.keys[i].equals(key))
+                    return i;
+            }
+            return -1;
+        }
+        final int mask = this.index.length - 1;
+        for (int slot = Hash(key) & mask;; slot = (slot + 1) & mask) {
+            final int position = this.index[slot];
+            if (position == 0)
+                return -1;
+            if (this.keys[position - 1].equals(key))
+                return position - 1;
+        }
+    }
+
+    private void Insert(int position) {
+        final int mask = this.index.length - 1;
+        int slot = Hash(this.keys[position]) & mask;
+        while (this.index[slot] != 0)
+            slot = (slot + 1) & mask;
+        this.index[slot] = position + 1;
+    }
+
+    private void Rehash() {
+        this.index = new int[Integer.highestOneBit(this.count) << 2];
+        for (int i = 0; i < this.count; i++)
+            this.Insert(i);
+    }
+
+    private static int Hash(String key) {
+        final int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
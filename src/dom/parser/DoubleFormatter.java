@@ -0,0 +1,157 @@
+package src.dom.parser;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+// Shortest round-trip formatting of doubles with Raffaello Giulietti's
+// Schubfach algorithm, the one behind Double.toString since JDK 19. It picks
+// the decimal with the fewest digits that still reads back as the same double
+// (the closest one if there are several) using a single 126-bit multiplication
+// per bound. The table of powers of ten is computed with BigInteger on load.
+final class DoubleFormatter {
+    private static final int P = 53;
+    private static final int Q_MIN = -1074;
+    private static final long C_MIN = 1L << (P - 1);
+    private static final long C_TINY = 3;
+    private static final long T_MASK = (1L << (P - 1)) - 1;
+    private static final int BQ_MASK = 0x7FF;
+    private static final long MASK_63 = (1L << 63) - 1;
+
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+
+    // g(k) = floor(10^-k / 2^r) + 1 for the r putting it in [2^125, 2^126), as
+    // g1 * 2^63 + g0.
+    private static final long[] G = new long[2 * (K_MAX - K_MIN + 1)];
+
+    static {
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            final int e = -k;
+            BigInteger beta;
+            if (e >= 0) {
+                final BigInteger p = BigInteger.TEN.pow(e);
+                final int r = p.bitLength() - 126;
+                beta = r >= 0 ? p.shiftRight(r) : p.shiftLeft(-r);
+            } else {
+                final BigInteger p = BigInteger.TEN.pow(-e);
+                int s = 125 + p.bitLength();
+                beta = BigInteger.ONE.shiftLeft(s).divide(p);
+                while (beta.bitLength() > 126)
+                    beta = BigInteger.ONE.shiftLeft(--s).divide(p);
+                while (beta.bitLength() < 126)
+                    beta = BigInteger.ONE.shiftLeft(++s).divide(p);
+            }
+            final BigInteger g = beta.add(BigInteger.ONE);
+            G[2 * (k - K_MIN)] = g.shiftRight(63).longValue();
+            G[2 * (k - K_MIN) + 1] = g.longValue() & MASK_63;
+        }
+    }
+
+    private DoubleFormatter() {
+    }
+
+    // Writes a finite double as its shortest decimal.
+    static void Write(JsonWriter writer, double v) throws IOException {
+        final long bits = Double.doubleToRawLongBits(v);
+        final boolean negative = bits < 0;
+        final long t = bits & T_MASK;
+        final int bq = (int) (bits >>> (P - 1)) & BQ_MASK;
+        if (bq != 0) {
+            final int mq = -Q_MIN + 1 - bq;
+            final long c = C_MIN | t;
+            // Integers below 2^53 need no search.
+            if (0 < mq && mq < P) {
+                final long f = c >> mq;
+                if (f << mq == c) {
+                    Emit(writer, f, 0, negative);
+                    return;
+                }
+            }
+            ToDecimal(writer, -mq, c, 0, negative);
+        } else if (t != 0) {
+            if (t < C_TINY)
+                ToDecimal(writer, Q_MIN, 10 * t, -1, negative);
+            else
+                ToDecimal(writer, Q_MIN, t, 0, negative);
+        } else {
+            Emit(writer, 0, 0, negative);
+        }
+    }
+
+    private static void ToDecimal(JsonWriter writer, int q, long c, int dk, boolean negative)
+            throws IOException {
+        final int out = (int) c & 0x1;
+        final long cb = c << 2;
+        final long cbr = cb + 2;
+        final long cbl;
+        final int k;
+        if (c != C_MIN || q == Q_MIN) {
+            cbl = cb - 2;
+            k = FloorLog10Pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = FloorLog10ThreeQuartersPow2(q);
+        }
+        final int h = q + FloorLog2Pow10(-k) + 2;
+
+        final long g1 = G[2 * (k - K_MIN)];
+        final long g0 = G[2 * (k - K_MIN) + 1];
+
+        final long vb = RoundOdd(g1, g0, cb << h);
+        final long vbl = RoundOdd(g1, g0, cbl << h);
+        final long vbr = RoundOdd(g1, g0, cbr << h);
+
+        final long s = vb >> 2;
+        if (s >= 100) {
+            // s / 10 * 10 without a division.
+            final long sp10 = 10 * Math.multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            final long tp10 = sp10 + 10;
+            final boolean upin = vbl + out <= sp10 << 2;
+            final boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                Emit(writer, upin ? sp10 : tp10, k, negative);
+                return;
+            }
+        }
+
+        final long t = s + 1;
+        final boolean uin = vbl + out <= s << 2;
+        final boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            Emit(writer, uin ? s : t, k + dk, negative);
+            return;
+        }
+        final long cmp = vb - ((s + t) << 1);
+        Emit(writer, cmp < 0 || (cmp == 0 && (s & 0x1) == 0) ? s : t, k + dk, negative);
+    }
+
+    private static void Emit(JsonWriter writer, long f, int e, boolean negative) throws IOException {
+        while (f >= 10 && f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        writer.WriteDecimal(f, e, negative);
+    }
+
+    // Round-to-odd of (g1 * 2^63 + g0) * cp / 2^127.
+    private static long RoundOdd(long g1, long g0, long cp) {
+        final long x1 = Math.multiplyHigh(g0, cp);
+        final long y0 = g1 * cp;
+        final long y1 = Math.multiplyHigh(g1, cp);
+        final long z = (y0 >>> 1) + x1;
+        final long vbp = y1 + (z >>> 63);
+        return vbp | (((z & MASK_63) + MASK_63) >>> 63);
+    }
+
+    private static int FloorLog10Pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    private static int FloorLog10ThreeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L - 274_743_187_321L >> 41);
+    }
+
+    private static int FloorLog2Pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+}
@@ -0,0 +1,114 @@
+package src.dom.parser;
+
+import java.math.BigInteger;
+
+// Converts a decimal w * 10^q (w up to 19 digits, read as unsigned) into the
+// nearest double. Small cases take Clinger's fast path, the rest the
+// Eisel-Lemire algorithm (as used by fast_float and simdjson) on a table of
+// 128-bit truncated powers of five. Both are exact; in the rare cases
+// Eisel-Lemire cannot decide, NaN is returned and the caller falls back to
+// Double.parseDouble.
+final class DoubleParser {
+    private static final int MIN_POWER = -325;
+    private static final int MAX_POWER = 308;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+    };
+
+    // High and low halves of 5^q normalized to 128 bits, for q in [MIN_POWER, MAX_POWER].
+    private static final long[] MANTISSA_HIGH = new long[MAX_POWER - MIN_POWER + 1];
+    private static final long[] MANTISSA_LOW = new long[MAX_POWER - MIN_POWER + 1];
+
+    static {
+        final BigInteger five = BigInteger.valueOf(5);
+        for (int q = MIN_POWER; q <= MAX_POWER; q++) {
+            BigInteger v;
+            if (q >= 0) {
+                v = five.pow(q);
+                final int bits = v.bitLength();
+                v = bits > 128 ? v.shiftRight(bits - 128) : v.shiftLeft(128 - bits);
+            } else {
+                final BigInteger p = five.pow(-q);
+                v = BigInteger.ONE.shiftLeft(p.bitLength() + 127).divide(p);
+                final int bits = v.bitLength();
+                v = bits > 128 ? v.shiftRight(bits - 128) : v.shiftLeft(128 - bits);
+            }
+            MANTISSA_HIGH[q - MIN_POWER] = v.shiftRight(64).longValue();
+            MANTISSA_LOW[q - MIN_POWER] = v.longValue();
+        }
+    }
+
+    private DoubleParser() {
+    }
+
+    static double ToDouble(long w, int q, boolean negative) {
+        if (q >= -22 && q <= 22 && Long.compareUnsigned(w, 1L << 53) <= 0) {
+            double d = (double) w;
+            d = q < 0 ? d / POWERS_OF_TEN[-q] : d * POWERS_OF_TEN[q];
+            return negative ? -d : d;
+        }
+        // Below 10^-342 even a 19-digit w rounds to zero.
+        if (w == 0 || q < -342)
+            return negative ? -0.0 : 0.0;
+        if (q < MIN_POWER)
+            return Double.NaN;
+        if (q > MAX_POWER)
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        return EiselLemire(w, q, negative);
+    }
+
+    private static double EiselLemire(long w, int q, boolean negative) {
+        // floor(log2(5^q)) + q, valid for q in (-400, 350).
+        final long exponent = (((152170L + 65536L) * q) >> 16) + 1023 + 64;
+        int lz = Long.numberOfLeadingZeros(w);
+        final long i = w << lz;
+
+        final int index = q - MIN_POWER;
+        long lower = i * MANTISSA_HIGH[index];
+        long upper = UnsignedMultiplyHigh(i, MANTISSA_HIGH[index]);
+
+        // The low bits may be off by the truncated part of the power; widen to
+        // 192 bits when that could change the result.
+        if ((upper & 0x1FF) == 0x1FF && Long.compareUnsigned(lower + i, lower) < 0) {
+            final long productLow = i * MANTISSA_LOW[index];
+            final long productMiddle2 = UnsignedMultiplyHigh(i, MANTISSA_LOW[index]);
+            long productHigh = upper;
+            final long productMiddle = lower + productMiddle2;
+            if (Long.compareUnsigned(productMiddle, lower) < 0)
+                productHigh++;
+            if (productMiddle + 1 == 0 && (productHigh & 0x1FF) == 0x1FF
+                    && Long.compareUnsigned(productLow + i, productLow) < 0)
+                return Double.NaN;
+            upper = productHigh;
+            lower = productMiddle;
+        }
+
+        final long upperBit = upper >>> 63;
+        long mantissa = upper >>> (upperBit + 9);
+        lz += (int) (1 ^ upperBit);
+
+        // Too close to halfway between two doubles to round here.
+        if ((upper & 0x1FF) == 0x1FF || ((upper & 0x1FF) == 0 && (mantissa & 3) == 1))
+            return Double.NaN;
+
+        mantissa += 1;
+        mantissa >>>= 1;
+        if (mantissa >= (1L << 53)) {
+            mantissa = 1L << 52;
+            lz--;
+        }
+        mantissa &= ~(1L << 52);
+
+        final long realExponent = exponent - lz;
+        if (realExponent < 1 || realExponent > 2046)
+            return Double.NaN;
+        final long bits = mantissa | (realExponent << 52) | (negative ? 1L << 63 : 0);
+        return Double.longBitsToDouble(bits);
+    }
+
+    private static long UnsignedMultiplyHigh(long x, long y) {
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+}
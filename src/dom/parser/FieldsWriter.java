@@ -0,0 +1,29 @@
+package json;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+
+import src.dom.parser.JsonWriter;
+
+// The template of the writer ClassBinding defines for every class, as a hidden
+// class whose class data is one handle writing the whole object. Held in a
+// static final field, the handle is a constant to the JIT, which then inlines
+// the getters and writes behind it as if they were written out by hand. Never
+// loaded as is.
+final class FieldsWriter implements ClassBinding.Writer {
+    private static final MethodHandle WRITE;
+
+    static {
+        try {
+            WRITE = MethodHandles.classData(MethodHandles.lookup(), ConstantDescs.DEFAULT_NAME, MethodHandle.class);
+        } catch (IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Override
+    public void Write(JsonWriter writer, Object obj) throws Throwable {
+        WRITE.invokeExact(writer, obj);
+    }
+}
@@ -0,0 +1,14 @@
+package json;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Asks CodecProcessor to generate a <Name>JsonCodec for the annotated class
+// or record at compile time, which JsonSerializer and JsonDeserializer then
+// use instead of reflection.
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenerateCodec {
+}
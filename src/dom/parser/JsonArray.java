@@ -14,15 +14,16 @@ public class JsonArray extends JsonType {
         return this.value;
     }
 
+    public JsonType Get(int index) {
+        return this.GetValue().get(index);
+    }
+
+    public int Size() {
+        return this.GetValue().size();
+    }
+
     @Override
     public String toString() {
-        StringBuilder res = new StringBuilder();
-        res.append('[');
-        for (JsonType x : this.value) {
-            res.append(x.toString());
-            res.append(',');
-        }
-        res.append(']');
-        return res.toString();
+        return JsonWriter.ToString(this);
     }
 }
@@ -0,0 +1,38 @@
+package json;
+
+import java.io.InputStream;
+
+import src.dom.parser.JsonReader;
+import src.dom.parser.ParseException;
+
+// Binds JSON straight into objects, the counterpart of JsonSerializer: values
+// are read from the token stream into fields, with no JsonObj in between.
+// Classes need a no-argument constructor, of any visibility; records are built
+// through their canonical constructor. Unknown names are skipped and missing
+// ones keep their default. Collections and maps are built as their declared
+// class, or as the usual implementation of a declared interface.
+public class JsonDeserializer {
+    public static <T> T FromJson(byte[] json, Class<T> cls) throws ParseException {
+        return FromJson(new JsonReader(json), cls);
+    }
+
+    public static <T> T FromJson(String json, Class<T> cls) throws ParseException {
+        return FromJson(new JsonReader(json), cls);
+    }
+
+    public static <T> T FromJson(InputStream input, Class<T> cls) throws ParseException {
+        return FromJson(new JsonReader(input), cls);
+    }
+
+    // Reads one top-level value; the reader must be at the start of the document.
+    public static <T> T FromJson(JsonReader reader, Class<T> cls) throws ParseException {
+        reader.NextToken();
+        final Object value = ValueReader.ReadNullable(ValueReader.ForType(cls), reader);
+        if (value == null && cls.isPrimitive())
+            throw new ParseException("Cannot read null as " + cls.getName());
+        reader.NextToken();
+        @SuppressWarnings("unchecked")
+        final T res = cls.isPrimitive() ? (T) value : cls.cast(value);
+        return res;
+    }
+}
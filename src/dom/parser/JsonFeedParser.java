@@ -0,0 +1,128 @@
+package src.dom.parser;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+// Push-based parser for event-loop threads. Bytes are handed over with Feed()
+// as they arrive, and instead of blocking the call returns NEED_MORE_INPUT.
+// Partially received tokens stay buffered and the containers under
+// construction stay on the stack until the next chunk comes in.
+public class JsonFeedParser {
+    public enum Status {
+        NEED_MORE_INPUT,
+        COMPLETE,
+    }
+
+    private Tokenizer tokenizer;
+    private JsonReader reader;
+    private ArrayList<Object> containers;
+    private ArrayList<String> keys;
+    private JsonType result;
+
+    public JsonFeedParser() {
+        this(Tokenizer.DEFAULT_BUFFER_SIZE);
+    }
+
+    public JsonFeedParser(int bufferSize) {
+        this.tokenizer = new Tokenizer(bufferSize);
+        this.reader = new JsonReader(this.tokenizer);
+        this.containers = new ArrayList<>();
+        this.keys = new ArrayList<>();
+    }
+
+    // Consumes the whole chunk; the caller may reuse it once this returns.
+    public Status Feed(ByteBuffer chunk) throws ParseException {
+        this.tokenizer.Append(chunk);
+        return this.Advance();
+    }
+
+    public Status Feed(byte[] chunk, int offset, int length) throws ParseException {
+        return this.Feed(ByteBuffer.wrap(chunk, offset, length));
+    }
+
+    // Signals that no more bytes will come. Completes a trailing top-level
+    // number and rejects truncated documents or data after the value.
+    public Status EndOfInput() throws ParseException {
+        this.tokenizer.Finish();
+        this.Advance();
+        this.reader.NextToken();
+        return Status.COMPLETE;
+    }
+
+    public boolean IsComplete() {
+        return this.result != null;
+    }
+
+    // The parsed document, or null while it is still incomplete.
+    public JsonType GetResult() {
+        return this.result;
+    }
+
+    private Status Advance() throws ParseException {
+        while (this.result == null) {
+            JsonReader.Event event;
+            this.tokenizer.Checkpoint();
+            try {
+                event = this.reader.NextToken();
+            } catch (Tokenizer.NeedMoreInput e) {
+                this.tokenizer.Rollback();
+                return Status.NEED_MORE_INPUT;
+            }
+            this.Handle(event);
+        }
+        return Status.COMPLETE;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void Handle(JsonReader.Event event) throws ParseException {
+        final int top = this.containers.size() - 1;
+        switch (event) {
+            case START_OBJECT:
+                this.containers.add(new HashMap<String, JsonType>());
+                this.keys.add(null);
+                break;
+            case START_ARRAY:
+                this.containers.add(new ArrayList<JsonType>());
+                this.keys.add(null);
+                break;
+            case FIELD_NAME:
+                this.keys.set(top, this.reader.GetString());
+                break;
+            case END_OBJECT:
+                this.keys.remove(top);
+                this.Add(new JsonObj((HashMap<String, JsonType>) this.containers.remove(top)));
+                break;
+            case END_ARRAY:
+                this.keys.remove(top);
+                this.Add(new JsonArray((ArrayList<JsonType>) this.containers.remove(top)));
+                break;
+            case STRING:
+                this.Add(new JsonString(this.reader.GetString()));
+                break;
+            case NUMBER:
+                this.Add(this.reader.GetNumber());
+                break;
+            case BOOL:
+                this.Add(new JsonBool(this.reader.GetBoolean()));
+                break;
+            case NULL:
+                this.Add(new JsonNull());
+                break;
+            default:
+                throw new ParseException("Unexpected " + event);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void Add(JsonType value) {
+        final int top = this.containers.size() - 1;
+        if (top < 0) {
+            this.result = value;
+        } else if (this.keys.get(top) != null) {
+            ((HashMap<String, JsonType>) this.containers.get(top)).put(this.keys.get(top), value);
+        } else {
+            ((ArrayList<JsonType>) this.containers.get(top)).add(value);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package src.dom.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Parses newline-delimited JSON (JSON Lines), one value per line, decoding the
+// records in parallel. A raw '\n' can only appear between values, so the input
+// is split into byte ranges and every range resynchronises on the next newline
+// on its own; results are joined back in input order. Lines may end in "\r\n",
+// and blank lines are skipped.
+public class JsonLinesParser {
+    static final int SPLIT_THRESHOLD = 1 << 20;
+
+    private ByteBuffer source;
+
+    public JsonLinesParser(byte[] source) {
+        this(source, 0, source.length);
+    }
+
+    public JsonLinesParser(byte[] source, int offset, int length) {
+        this(ByteBuffer.wrap(source, offset, length));
+    }
+
+    public JsonLinesParser(ByteBuffer source) {
+        this.source = source;
+    }
+
+    public JsonLinesParser(Path path) throws IOException {
+        this(JsonParser.MapFile(path));
+    }
+
+    public ArrayList<JsonType> ParseAll() throws ParseException {
+        return this.ParseAll(ForkJoinPool.commonPool());
+    }
+
+    public ArrayList<JsonType> ParseAll(ForkJoinPool pool) throws ParseException {
+        try {
+            return pool.invoke(new Segment(this.Ordered(), this.source.position(), this.source.limit()));
+        } catch (UncheckedParseException e) {
+            throw e.getCause();
+        }
+    }
+
+    // The records, parsed one at a time as the stream is pulled, so only the
+    // records in flight are held in memory. A parallel stream splits the
+    // input the way ParseAll() does. A malformed record ends the stream with
+    // an UncheckedParseException.
+    public Stream<JsonType> Records() {
+        return StreamSupport.stream(new Records(this.Ordered(), this.source.position(), this.source.limit()), false);
+    }
+
+    private ByteBuffer Ordered() {
+        return this.source.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static final class Segment extends RecursiveTask<ArrayList<JsonType>> {
+        private final ByteBuffer source;
+        private final int from;
+        private final int to;
+
+        Segment(ByteBuffer source, int from, int to) {
+            this.source = source;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ArrayList<JsonType> compute() {
+            if (this.to - this.from <= SPLIT_THRESHOLD) {
+                ArrayList<JsonType> res = new ArrayList<>();
+                new Records(this.source, this.from, this.to).forEachRemaining(res::add);
+                return res;
+            }
+
+            final int mid = this.from + (this.to - this.from) / 2;
+            Segment left = new Segment(this.source, this.from, mid);
+            left.fork();
+            ArrayList<JsonType> right = new Segment(this.source, mid, this.to).compute();
+            ArrayList<JsonType> res = left.join();
+            res.addAll(right);
+            return res;
+        }
+    }
+
+    // Every record that starts inside [from, to); the last one may run past
+    // 'to'. The source is a little-endian view of the whole input.
+    private static final class Records implements Spliterator<JsonType> {
+        private final ByteBuffer source;
+        private int pos;
+        private final int to;
+
+        Records(ByteBuffer source, int from, int to) {
+            this.source = source;
+            this.pos = this.LineStart(from);
+            this.to = to;
+        }
+
+        // 'from' if a record may start there, otherwise the start of the next line.
+        private int LineStart(int from) {
+            if (from > this.source.position() && this.source.get(from - 1) != '\n')
+                return StringScanner.NextNewline(this.source, from, this.source.limit()) + 1;
+            return from;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super JsonType> action) {
+            while (this.pos < this.to) {
+                final int start = this.pos;
+                final int eol = StringScanner.NextNewline(this.source, start, this.source.limit());
+                this.pos = eol + 1;
+                if (this.IsBlank(start, eol))
+                    continue;
+                ByteBuffer line = this.source.duplicate();
+                line.limit(eol).position(start);
+                try {
+                    action.accept(new JsonParser(line).Parse());
+                } catch (ParseException e) {
+                    throw new UncheckedParseException(
+                            new ParseException(String.format("Record at byte %d: %s", start, e.getMessage())));
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<JsonType> trySplit() {
+            if (this.to - this.pos <= SPLIT_THRESHOLD)
+                return null;
+            final int mid = this.pos + (this.to - this.pos) / 2;
+            Records prefix = new Records(this.source, this.pos, mid);
+            this.pos = this.LineStart(mid);
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Math.max(0, this.to - this.pos);
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+
+        private boolean IsBlank(int pos, int end) {
+            for (; pos < end; pos++) {
+                if ((this.source.get(pos) & 0xff) > ' ')
+                    return false;
+            }
+            return true;
+        }
+    }
+}
@@ -1,18 +1,168 @@
 package src.dom.parser;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+// A number is kept in the form the tokenizer produced it and only converted
+// when read: a plain long for integers that fit, otherwise the decimal
+// mantissa and exponent, or the source text when the mantissa did not fit in
+// 19 digits. A number built from a double keeps the double.
 public class JsonNumber extends JsonType {
-    double value;
+    private static final int LONG = 0;
+    private static final int DECIMAL = 1;
+    private static final int TEXT = 2;
+    private static final int DOUBLE = 3;
 
-    public JsonNumber(double value) {
+    // Integer parts longer than this are rejected instead of being built;
+    // 1e999999999 would otherwise take a billion-digit BigInteger.
+    private static final int MAX_INTEGER_DIGITS = 1000;
+
+    private final int kind;
+    private final long value;
+    private final int exponent;
+    private final boolean negative;
+    private final String text;
+
+    public JsonNumber(long value) {
+        this.kind = LONG;
         this.value = value;
+        this.exponent = 0;
+        this.negative = value < 0;
+        this.text = null;
+    }
+
+    public JsonNumber(double value) {
+        this.kind = DOUBLE;
+        this.value = Double.doubleToRawLongBits(value);
+        this.exponent = 0;
+        this.negative = this.value < 0;
+        this.text = null;
+    }
+
+    // Exact text of a JSON number, converted lazily.
+    public JsonNumber(String text) {
+        this.kind = TEXT;
+        this.value = 0;
+        this.exponent = 0;
+        this.negative = text.startsWith("-");
+        this.text = text;
+    }
+
+    // mantissa * 10^exponent, with the mantissa read as unsigned.
+    JsonNumber(long mantissa, int exponent, boolean negative) {
+        this.kind = DECIMAL;
+        this.value = mantissa;
+        this.exponent = exponent;
+        this.negative = negative;
+        this.text = null;
+    }
+
+    public boolean IsIntegral() {
+        return this.kind == LONG;
+    }
+
+    // Fractions are truncated like Number.longValue(), but a number whose
+    // integer part does not fit throws ArithmeticException instead of wrapping.
+    public long AsLong() {
+        if (this.kind == LONG)
+            return this.value;
+        return this.AsBigInteger().longValueExact();
+    }
+
+    public int AsInt() {
+        if (this.kind == LONG)
+            return Math.toIntExact(this.value);
+        return this.AsBigInteger().intValueExact();
+    }
+
+    // The integer part, fractions truncated. Throws ArithmeticException when
+    // it has more than MAX_INTEGER_DIGITS digits.
+    public BigInteger AsBigInteger() {
+        if (this.kind == LONG)
+            return BigInteger.valueOf(this.value);
+        final BigDecimal decimal = this.AsBigDecimal();
+        // Digits before the point; checked before toBigInteger() scales by 10^-scale.
+        final long digits = (long) decimal.precision() - decimal.scale();
+        if (digits <= 0 || decimal.signum() == 0)
+            return BigInteger.ZERO;
+        if (digits > MAX_INTEGER_DIGITS)
+            throw new ArithmeticException("Integer part of " + this + " has more than " + MAX_INTEGER_DIGITS + " digits");
+        return decimal.toBigInteger();
+    }
+
+    public double AsDouble() {
+        switch (this.kind) {
+            case LONG:
+                return this.value;
+            case DECIMAL: {
+                final double d = DoubleParser.ToDouble(this.value, this.exponent, this.negative);
+                if (!Double.isNaN(d))
+                    return d;
+                return this.AsBigDecimal().doubleValue();
+            }
+            case DOUBLE:
+                return Double.longBitsToDouble(this.value);
+            default:
+                return Double.parseDouble(this.text);
+        }
+    }
+
+    public BigDecimal AsBigDecimal() {
+        switch (this.kind) {
+            case LONG:
+                return BigDecimal.valueOf(this.value);
+            case DECIMAL: {
+                BigInteger unscaled = new BigInteger(Long.toUnsignedString(this.value));
+                if (this.negative)
+                    unscaled = unscaled.negate();
+                return new BigDecimal(unscaled, -this.exponent);
+            }
+            case DOUBLE:
+                return BigDecimal.valueOf(Double.longBitsToDouble(this.value));
+            default:
+                try {
+                    return new BigDecimal(this.text);
+                } catch (NumberFormatException e) {
+                    // The text is valid JSON, so only the exponent can be out of range.
+                    throw new ArithmeticException("Exponent of " + this.text + " is out of range");
+                }
+        }
+    }
+
+    // Writes the number in its stored form, so it is never rounded on output;
+    // a double is written as the shortest decimal that reads back the same.
+    void Write(JsonWriter writer) throws IOException {
+        switch (this.kind) {
+            case LONG:
+                writer.WriteLong(this.value);
+                break;
+            case DECIMAL:
+                writer.WriteDecimal(this.value, this.exponent, this.negative);
+                break;
+            case DOUBLE: {
+                final double d = Double.longBitsToDouble(this.value);
+                if (Double.isNaN(d) || Double.isInfinite(d))
+                    throw new IllegalArgumentException("Numeric values must be finite, got " + d);
+                DoubleFormatter.Write(writer, d);
+                break;
+            }
+            default:
+                writer.WriteAscii(this.text);
+                break;
+        }
     }
 
     @Override
     public Number GetValue() {
-        return this.value;
+        if (this.kind == LONG)
+            return this.value;
+        return this.AsDouble();
     }
 
     public String toString() {
-        return String.format("%.2f", this.value);
+        if (this.kind == LONG)
+            return Long.toString(this.value);
+        return JsonWriter.ToString(this);
     }
 }
@@ -1,6 +1,7 @@
 package src.dom.parser;
 
 import java.util.HashMap;
+import java.util.function.BiConsumer;
 
 public class JsonObj extends JsonType {
     private HashMap<String, JsonType> value;
@@ -14,13 +15,16 @@ public class JsonObj extends JsonType {
         return this.value;
     }
 
+    public JsonType Get(String key) {
+        return this.GetValue().get(key);
+    }
+
+    public void ForEach(BiConsumer<String, JsonType> action) {
+        this.GetValue().forEach(action);
+    }
+
     @Override
     public String toString() {
-        StringBuilder res = new StringBuilder();
-        res.append('{');
-        this.value.forEach(
-                (k, v) -> res.append(String.format("%s : %s, ", k, v.toString())));
-        res.append('}');
-        return res.toString();
+        return JsonWriter.ToString(this);
     }
 }
@@ -1,163 +1,280 @@
 package src.dom.parser;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 
-class Pair<T1, T2> {
-    public final T1 first;
-    public final T2 second;
-
-    public Pair(T1 first, T2 second) {
-        this.first = first;
-        this.second = second;
-    }
+enum TokenType {
+    NUMBER,
+    STRING,
+    BOOL,
+    NULL,
+    LEFT_PAREN,
+    RIGHT_PAREN,
+    LEFT_CURLY,
+    RIGHT_CURLY,
+    COMMA,
+    COLON,
 }
 
-abstract class Token {
-    public enum Type {
-        NUMBER,
-        STRING,
-        BOOL,
-        NULL,
-        LEFT_PAREN,
-        RIGHT_PAREN,
-        LEFT_CURLY,
-        RIGHT_CURLY,
-        COMMA,
-        COLON,
+// The tokenizer keeps only the last token, described by primitive fields, so
+// producing a token never allocates. It reads UTF-8 bytes directly and strings
+// are only decoded when materialised through StringValue(), or, with views
+// turned on, later still through a JsonString view from StringNode().
+//
+// When reading from a stream the bytes live in a refillable buffer. Refilling
+// keeps everything from the start of the token being scanned, so tokens may
+// straddle reads; the buffer only grows when a single token outgrows it.
+//
+// In feed mode the bytes are pushed through Append() instead. Running out of
+// them mid-token throws NEED_MORE_INPUT, after which the caller rolls back to
+// its last checkpoint and rescans once more bytes have been appended. A string
+// or number cut short keeps how far its scan got, so the rescan continues it
+// rather than starting over; long tokens arriving in many small chunks are
+// still scanned once.
+class Tokenizer {
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    static final class NeedMoreInput extends RuntimeException {
+        private NeedMoreInput() {
+            super(null, null, false, false);
+        }
     }
 
-    public Type type;
+    static final NeedMoreInput NEED_MORE_INPUT = new NeedMoreInput();
 
-    public Token(Type type) {
-        this.type = type;
-    }
+    // Stages of a number token, so that one cut short can be resumed.
+    private static final int NUMBER_SIGN = 0;
+    private static final int NUMBER_FIRST_DIGIT = 1;
+    private static final int NUMBER_INTEGER = 2;
+    private static final int NUMBER_FRACTION_FIRST = 3;
+    private static final int NUMBER_FRACTION = 4;
+    private static final int NUMBER_EXPONENT_MARK = 5;
+    private static final int NUMBER_EXPONENT_SIGN = 6;
+    private static final int NUMBER_EXPONENT_FIRST = 7;
+    private static final int NUMBER_EXPONENT = 8;
 
-    abstract public String toString();
+    private ByteBuffer source;
+    private byte[] array;
+    private int arrayOffset;
+    private int idx;
+    private int limit;
 
-    abstract public Object GetValue();
-}
+    private InputStream input;
+    private ReadableByteChannel channel;
+    private ByteBuffer channelBuffer;
+    private int mark = -1;
+    private boolean feeding;
+    private int checkpoint;
+    // The array is a buffer that gets refilled or compacted, so nothing may
+    // keep pointing into it.
+    private boolean buffered;
+    // Lets StringNode() return views of the source array, see JsonString.
+    boolean views;
 
-class TokenBool extends Token {
-    public boolean value;
+    // Feed mode: the string or number token at resumeStart ran out of input at
+    // resumeIdx. Its mantissa and exponent so far stay in the number fields.
+    private int resumeStart = -1;
+    private int resumeIdx;
+    private int resumeStage;
+    private boolean resumeFlag;
+    private int resumeExponent;
+    private boolean resumeNegativeExponent;
 
-    public TokenBool(boolean value) {
-        super(Type.BOOL);
-        this.value = value;
-    }
+    private StructuralIndexer index;
+    private int cursor;
+    private byte[] keyBytes;
+
+    TokenType type;
+    int start;
+    int end;
+    boolean hasEscapes;
+    long longValue;
+    boolean isInteger;
+    boolean boolValue;
 
-    @Override
-    public String toString() {
-        return String.format("BOOL(%s)", this.value);
+    long numberMantissa;
+    private int numberDigits;
+    int numberExponent;
+    boolean numberTruncated;
+    boolean numberNegative;
+
+    public Tokenizer(String source) {
+        this(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8)));
     }
 
-    @Override
-    public Boolean GetValue() {
-        return this.value;
+    // Tokenizes source.position() to source.limit(), without copying the buffer.
+    public Tokenizer(ByteBuffer source) {
+        this(source, false);
     }
-}
 
-class TokenNumber extends Token {
-    public double value;
-
-    public TokenNumber(long value, boolean isNegative) {
-        super(Type.NUMBER);
-        this.value = (double) value;
-        if (isNegative)
-            this.value = -this.value;
-    }
-
-    public TokenNumber(long value, long mantissa, int mantissaLeadingZeroes, boolean isNegative) {
-        super(Type.NUMBER);
-        if (mantissa == 0)
-            this.value = (double) value;
-        else {
-            double mant = mantissa * Math.pow(10, -(Math.floor(Math.log10(mantissa)) + 1 + mantissaLeadingZeroes));
-            this.value = value + mant;
-            if (isNegative)
-                this.value = -this.value;
+    // With 'indexed' set, tokens are found through a StructuralIndexer pass
+    // instead of by walking every byte, see TokenizeIndexed().
+    public Tokenizer(ByteBuffer source, boolean indexed) {
+        this.source = source;
+        if (source.hasArray()) {
+            this.array = source.array();
+            this.arrayOffset = source.arrayOffset();
         }
+        this.idx = source.position();
+        this.limit = source.limit();
+        if (indexed)
+            this.index = new StructuralIndexer(source, this.idx, this.limit);
     }
 
-    @Override
-    public String toString() {
-        return String.format("NUMBER(%.2f)", this.value);
+    public Tokenizer(InputStream input, int bufferSize) {
+        this(ByteBuffer.wrap(new byte[bufferSize], 0, 0), false);
+        this.input = input;
+        this.buffered = true;
     }
 
-    @Override
-    public Number GetValue() {
-        return this.value;
+    public Tokenizer(ReadableByteChannel channel, int bufferSize) {
+        this(ByteBuffer.wrap(new byte[bufferSize], 0, 0), false);
+        this.channel = channel;
+        this.channelBuffer = ByteBuffer.wrap(this.array);
+        this.buffered = true;
     }
-}
-
-class TokenString extends Token {
-    public String value;
 
-    public TokenString(String value) {
-        super(Type.STRING);
-        this.value = value;
+    // Creates a tokenizer in feed mode, see Append().
+    public Tokenizer(int bufferSize) {
+        this(ByteBuffer.wrap(new byte[bufferSize], 0, 0), false);
+        this.feeding = true;
+        this.buffered = true;
     }
 
-    @Override
-    public String toString() {
-        return String.format("STRING(%s)", this.value);
+    // Copies the chunk behind the unconsumed bytes. The chunk is fully consumed.
+    public void Append(ByteBuffer chunk) {
+        final int length = chunk.remaining();
+        this.mark = -1;
+        if (this.limit + length > this.array.length) {
+            // Drops what has already been tokenized. The buffer grows once the
+            // unconsumed bytes would fill more than half of it, so a token
+            // straddling many chunks is not moved again on every one.
+            final int keep = this.idx;
+            final int needed = this.limit - keep + length;
+            byte[] target = this.array;
+            if (needed > this.array.length / 2) {
+                target = new byte[Math.max(needed, this.array.length * 2)];
+                this.source = ByteBuffer.wrap(target);
+            }
+            System.arraycopy(this.array, keep, target, 0, this.limit - keep);
+            this.array = target;
+            this.limit -= keep;
+            this.idx = 0;
+            this.checkpoint -= keep;
+            if (this.resumeStart >= 0) {
+                this.resumeStart -= keep;
+                this.resumeIdx -= keep;
+            }
+        }
+        chunk.get(this.array, this.limit, length);
+        this.limit += length;
     }
 
-    @Override
-    public String GetValue() {
-        return new String(this.value);
+    // Marks the end of the fed input; pending tokens are completed from here on.
+    public void Finish() {
+        this.feeding = false;
     }
-}
-
-class TokenNull extends Token {
-    public String value;
 
-    public TokenNull() {
-        super(Type.NULL);
+    public void Checkpoint() {
+        this.checkpoint = this.idx;
     }
 
-    @Override
-    public String toString() {
-        return "NULL";
+    public void Rollback() {
+        this.idx = this.checkpoint;
+        this.mark = -1;
     }
 
-    @Override
-    public Object GetValue() {
-        return null;
+    public boolean IsEnd() {
+        return this.idx >= this.limit && !this.Fill();
     }
-}
 
-class TokenSymbol extends Token {
-    public TokenSymbol(Type type) {
-        super(type);
+    // Skips whitespace and reports whether another token follows.
+    public boolean HasToken() {
+        this.mark = -1;
+        if (this.index != null)
+            return this.HasIndexedToken();
+        this.SkipWhitespace();
+        return !this.IsEnd();
     }
 
-    @Override
-    public String toString() {
-        return String.format("SYMBOL(%s)", this.type);
-    }
+    // Reads more input behind the current data. Read errors surface as
+    // UncheckedIOException so the parse methods keep their signatures.
+    private boolean Fill() {
+        if (this.feeding)
+            throw NEED_MORE_INPUT;
+        if (this.input == null && this.channel == null)
+            return false;
+
+        final int keep = this.mark >= 0 ? this.mark : this.idx;
+        if (keep > 0) {
+            System.arraycopy(this.array, keep, this.array, 0, this.limit - keep);
+            this.limit -= keep;
+            this.idx -= keep;
+            this.start -= keep;
+            this.end -= keep;
+            if (this.mark >= 0)
+                this.mark -= keep;
+        }
+        if (this.limit == this.array.length) {
+            byte[] grown = new byte[this.array.length * 2];
+            System.arraycopy(this.array, 0, grown, 0, this.limit);
+            this.array = grown;
+            this.source = ByteBuffer.wrap(grown);
+            if (this.channel != null)
+                this.channelBuffer = ByteBuffer.wrap(grown);
+        }
 
-    @Override
-    public String GetValue() {
-        return new String("" + this.type);
+        try {
+            int n;
+            do {
+                if (this.input != null) {
+                    n = this.input.read(this.array, this.limit, this.array.length - this.limit);
+                } else {
+                    this.channelBuffer.limit(this.array.length).position(this.limit);
+                    n = this.channel.read(this.channelBuffer);
+                }
+            } while (n == 0);
+            if (n < 0) {
+                this.input = null;
+                this.channel = null;
+                return false;
+            }
+            this.limit += n;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
-}
 
-class Tokenizer {
-    private String source;
-    private Integer idx;
+    // Reads past the end yield '\0', which no token accepts.
+    private char GetCurrentChar() {
+        if (this.idx >= this.limit && !this.Fill())
+            return 0;
+        if (this.array != null)
+            return (char) (this.array[this.arrayOffset + this.idx] & 0xff);
+        return (char) (this.source.get(this.idx) & 0xff);
+    }
 
-    public Tokenizer(String source) {
-        this.source = source.trim();
-        this.idx = 0;
+    private byte ByteAt(int i) {
+        return this.array != null ? this.array[this.arrayOffset + i] : this.source.get(i);
     }
 
-    public boolean IsEnd() {
-        return this.idx == this.source.length();
+    private static boolean IsLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
     }
 
-    private char GetCurrentChar() {
-        return this.source.charAt(this.idx);
+    private static boolean IsDigit(char c) {
+        return c >= '0' && c <= '9';
     }
 
     private void Next() {
@@ -181,122 +298,424 @@ class Tokenizer {
         }
     }
 
-    public ArrayList<Token> GetTokens() throws ParseException {
-        ArrayList<Token> ret = new ArrayList<>();
-        while (!this.IsEnd()) {
-            ret.add(this.Tokenize());
+    public String StringValue() {
+        final int length = this.end - this.start;
+        if (this.array != null)
+            return JsonString.Decode(this.array, this.arrayOffset + this.start, length, this.hasEscapes);
+        byte[] bytes = new byte[length];
+        this.source.get(this.start, bytes);
+        return JsonString.Decode(bytes, 0, length, this.hasEscapes);
+    }
+
+    // The current string token as a JsonString: a view of the source bytes
+    // when views are on and the bytes stay where they are, decoded right away
+    // otherwise.
+    JsonString StringNode() {
+        if (!this.views || this.array == null || this.buffered)
+            return new JsonString(this.StringValue());
+        return new JsonString(this.array, this.arrayOffset + this.start, this.end - this.start, this.hasEscapes);
+    }
+
+    // Same as StringValue(), but looks the bytes up in the cache first. Only
+    // keys short enough to be worth caching go through it.
+    String StringValue(KeyCache cache) {
+        final int length = this.end - this.start;
+        if (cache == null || length > KeyCache.MAX_KEY_LENGTH)
+            return this.StringValue();
+        byte[] bytes = this.array;
+        int offset = this.arrayOffset + this.start;
+        if (bytes == null) {
+            if (this.keyBytes == null)
+                this.keyBytes = new byte[KeyCache.MAX_KEY_LENGTH];
+            bytes = this.keyBytes;
+            offset = 0;
+            this.source.get(this.start, bytes, 0, length);
         }
-        return ret;
+        String key = cache.Get(bytes, offset, length);
+        if (key == null) {
+            key = this.StringValue();
+            cache.Put(bytes, offset, length, key);
+        }
+        return key;
+    }
+
+    // The candidate equal to the current string token, or null.
+    String KnownString(String[] candidates) {
+        for (String candidate : candidates) {
+            if (this.StringEquals(candidate))
+                return candidate;
+        }
+        return null;
+    }
+
+    // Compares the current string token with s without decoding it when both
+    // are plain ASCII.
+    boolean StringEquals(String s) {
+        final int length = this.end - this.start;
+        // Escapes and multi-byte characters only ever make the source longer.
+        if (length == s.length()) {
+            for (int i = 0; i < length; i++) {
+                final byte b = this.ByteAt(this.start + i);
+                if (b == '\\' || b != s.charAt(i))
+                    return false;
+            }
+            return true;
+        }
+        if (length < s.length())
+            return false;
+        for (int i = 0; i < length; i++) {
+            final byte b = this.ByteAt(this.start + i);
+            if (b < 0 || b == '\\')
+                return this.StringValue().equals(s);
+        }
+        return false;
+    }
+
+    int TokenLength() {
+        return this.end - this.start;
+    }
+
+    // Copies the raw UTF-8 bytes of the current string or number token.
+    void CopyToken(byte[] destination, int offset) {
+        if (this.array != null)
+            System.arraycopy(this.array, this.arrayOffset + this.start, destination, offset, this.end - this.start);
+        else
+            this.source.get(this.start, destination, offset, this.end - this.start);
     }
 
-    public Token Tokenize() throws ParseException {
+    // Moves to an earlier position of an in-memory source, e.g. one recorded
+    // from 'start' by a previous pass.
+    void Seek(int position) {
+        this.idx = position;
+        this.mark = -1;
+    }
+
+    // Moves past the rest of the object or array whose opening bracket was the
+    // last token, checking it with JsonValidator instead of tokenizing it.
+    // Only whole in-memory input can be skipped this way; returns false for
+    // streams, fed and indexed input.
+    boolean SkipContainer(boolean object) throws ParseException {
+        if (this.array == null || this.input != null || this.channel != null || this.feeding || this.index != null)
+            return false;
+        final int end = JsonValidator.SkipRest(this.array, this.arrayOffset + this.idx,
+                this.arrayOffset + this.limit, object);
+        if (end < 0)
+            throw new ParseException(String.format("Malformed JSON at byte %d", ~end - this.arrayOffset));
+        this.idx = end - this.arrayOffset;
+        return true;
+    }
+
+    public TokenType Tokenize() throws ParseException {
+        this.mark = -1;
+        if (this.index != null)
+            return this.TokenizeIndexed();
         this.SkipWhitespace();
+        return this.TokenizeAt();
+    }
+
+    private boolean HasIndexedToken() {
+        while (this.cursor == this.index.count) {
+            if (!this.index.IndexNext())
+                return false;
+            this.cursor = 0;
+        }
+        return true;
+    }
+
+    // Jumps to the next token start found by the structural indexer instead of
+    // walking whitespace. Strings without escapes end at the indexed closing
+    // quote, so their contents are never looked at here.
+    private TokenType TokenizeIndexed() throws ParseException {
+        this.idx = this.HasIndexedToken() ? this.index.positions[this.cursor++] : this.limit;
+        if (this.GetCurrentChar() == '"' && this.HasIndexedToken()) {
+            final int close = this.index.positions[this.cursor++];
+            if (close >= 0) {
+                this.mark = this.idx;
+                this.start = this.idx + 1;
+                this.end = close;
+                this.idx = close + 1;
+                this.hasEscapes = false;
+                return this.type = TokenType.STRING;
+            }
+        }
+
+        final TokenType type = this.TokenizeAt();
+        if (type == TokenType.NUMBER || type == TokenType.BOOL || type == TokenType.NULL) {
+            final char next = this.GetCurrentChar();
+            if (!IsDelimiter(next))
+                throw new ParseException("Unexpected character after literal: " + next);
+        }
+        return type;
+    }
+
+    private static boolean IsDelimiter(char c) {
+        switch (c) {
+            case 0:
+            case ' ':
+            case '\r':
+            case '\n':
+            case '\t':
+            case '"':
+            case '[':
+            case ']':
+            case '{':
+            case '}':
+            case ',':
+            case ':':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private TokenType TokenizeAt() throws ParseException {
+        this.mark = this.idx;
         final char cur = this.GetCurrentChar();
+        this.start = this.idx;
 
-        if (Character.isLetter(this.source.charAt(this.idx))) {
-            int oldIdx = this.idx;
+        if (IsLetter(cur)) {
             int cnt = 0;
             do {
                 cnt++;
                 this.Next();
                 if (cnt > 5)
                     throw new ParseException("Unknown symbol");
-            } while (!this.IsEnd() && Character.isLetter(this.GetCurrentChar()));
-
-            String idenStr = this.source.substring(oldIdx, this.idx);
-            if (idenStr.equals("true")) {
-                return new TokenBool(true);
-            } else if (idenStr.equals("false")) {
-                return new TokenBool(false);
-            } else if (idenStr.equals("null")) {
-                return new TokenNull();
+            } while (!this.IsEnd() && IsLetter(this.GetCurrentChar()));
+            this.end = this.idx;
+
+            if (this.IsKeyword("true")) {
+                this.boolValue = true;
+                return this.type = TokenType.BOOL;
+            } else if (this.IsKeyword("false")) {
+                this.boolValue = false;
+                return this.type = TokenType.BOOL;
+            } else if (this.IsKeyword("null")) {
+                return this.type = TokenType.NULL;
             } else {
                 throw new ParseException("Unknown symbol");
             }
-        } else if (Character.isDigit(cur) || cur == '-') {
+        } else if (IsDigit(cur) || cur == '-') {
             return this.TokenizeNumber();
-        } else if (this.GetCurrentChar() == '"') {
+        } else if (cur == '"') {
             return this.TokenizeString();
         } else {
-            Token.Type sym;
-            switch (this.GetCurrentChar()) {
+            TokenType sym;
+            switch (cur) {
                 case '[':
-                    sym = Token.Type.LEFT_PAREN;
+                    sym = TokenType.LEFT_PAREN;
                     break;
                 case ']':
-                    sym = Token.Type.RIGHT_PAREN;
+                    sym = TokenType.RIGHT_PAREN;
                     break;
                 case '{':
-                    sym = Token.Type.LEFT_CURLY;
+                    sym = TokenType.LEFT_CURLY;
                     break;
                 case '}':
-                    sym = Token.Type.RIGHT_CURLY;
+                    sym = TokenType.RIGHT_CURLY;
                     break;
                 case ',':
-                    sym = Token.Type.COMMA;
+                    sym = TokenType.COMMA;
                     break;
                 case ':':
-                    sym = Token.Type.COLON;
+                    sym = TokenType.COLON;
                     break;
 
                 default:
-                    throw new ParseException("Unknown symbol present." + this.GetCurrentChar());
+                    throw new ParseException("Unknown symbol present." + cur);
             }
             this.Next();
-            return new TokenSymbol(sym);
+            this.end = this.idx;
+            return this.type = sym;
         }
     }
 
-    private Pair<Long, Integer> TokenizeNumberBase(int maxdigits) throws ParseException {
-        long ret = 0;
-        int leadingZeros = 0;
-        int digits = 0;
-
-        do {
-            char c = this.GetCurrentChar();
-            if (c == '.')
-                break;
+    private boolean IsKeyword(String keyword) {
+        if (this.end - this.start != keyword.length())
+            return false;
+        for (int i = 0; i < keyword.length(); i++) {
+            if (this.ByteAt(this.start + i) != keyword.charAt(i))
+                return false;
+        }
+        return true;
+    }
 
-            int digit = -1;
-            if (c >= '0' && c <= '9')
-                digit = (int) c - (int) '0';
-            else
-                break;
-            ret = (ret * 10) + digit;
-            if (ret == 0)
-                leadingZeros += 1;
-            if (++digits - leadingZeros > maxdigits) {
-                throw new ParseException("Literal too big");
+    // Reads a run of digits into numberMantissa. Only the first 19 significant
+    // digits are kept; the decimal exponent is adjusted for the rest, which are
+    // dropped (numberTruncated) or, after the point, simply ignored.
+    private int TokenizeDigits(boolean fraction) {
+        int count = 0;
+        char c;
+        while (IsDigit(c = this.GetCurrentChar())) {
+            final int digit = c - '0';
+            if (this.numberDigits < 19) {
+                this.numberMantissa = this.numberMantissa * 10 + digit;
+                if (this.numberMantissa != 0)
+                    this.numberDigits++;
+                if (fraction)
+                    this.numberExponent--;
+            } else {
+                this.numberTruncated |= digit != 0;
+                if (!fraction)
+                    this.numberExponent++;
             }
+            count++;
             this.Next();
-        } while (!this.IsEnd());
-        return new Pair<Long, Integer>(ret, leadingZeros);
+        }
+        return count;
     }
 
-    private Token TokenizeNumber() throws ParseException {
-        char cur = this.GetCurrentChar();
-        boolean isNegative = false;
-
-        if (cur == '-') {
-            isNegative = true;
-            this.Next();
-            if (!Character.isDigit(this.GetCurrentChar()))
-                throw new ParseException("Expected a digit after minus sign");
+    private TokenType TokenizeNumber() throws ParseException {
+        int stage = NUMBER_SIGN;
+        boolean isInteger = true;
+        int exponent = 0;
+        boolean negativeExponent = false;
+        if (this.resumeStart == this.start) {
+            stage = this.resumeStage;
+            isInteger = this.resumeFlag;
+            exponent = this.resumeExponent;
+            negativeExponent = this.resumeNegativeExponent;
+            this.idx = this.resumeIdx;
+            this.resumeStart = -1;
+        } else {
+            this.numberMantissa = 0;
+            this.numberDigits = 0;
+            this.numberExponent = 0;
+            this.numberTruncated = false;
+            this.numberNegative = false;
         }
 
-        Pair<Long, Integer> x = TokenizeNumberBase(15);
-        if (x.second > 0) {
-            throw new ParseException("Unexpected leading zeros.");
-        }
-        if (this.GetCurrentChar() == '.') {
-            this.Next();
-            Pair<Long, Integer> mantissa = TokenizeNumberBase(15);
-            if (this.GetCurrentChar() == '.') {
-                throw new ParseException("Unexpected period at the end of number");
+        char cur;
+        try {
+            scan: while (true) {
+                switch (stage) {
+                    case NUMBER_SIGN:
+                        if (this.GetCurrentChar() == '-') {
+                            this.numberNegative = true;
+                            this.Next();
+                        }
+                        stage = NUMBER_FIRST_DIGIT;
+                        break;
+                    case NUMBER_FIRST_DIGIT:
+                        cur = this.GetCurrentChar();
+                        if (!IsDigit(cur))
+                            throw new ParseException("Expected a digit after minus sign");
+                        this.Next();
+                        if (cur != '0') {
+                            this.numberMantissa = cur - '0';
+                            this.numberDigits = 1;
+                        }
+                        stage = NUMBER_INTEGER;
+                        break;
+                    case NUMBER_INTEGER:
+                        // No significant digit yet means the integer part is a single 0.
+                        if (this.numberDigits == 0) {
+                            if (IsDigit(this.GetCurrentChar()))
+                                throw new ParseException("Unexpected leading zeros.");
+                        } else {
+                            this.TokenizeDigits(false);
+                        }
+                        if (this.GetCurrentChar() == '.') {
+                            this.Next();
+                            isInteger = false;
+                            stage = NUMBER_FRACTION_FIRST;
+                        } else {
+                            stage = NUMBER_EXPONENT_MARK;
+                        }
+                        break;
+                    case NUMBER_FRACTION_FIRST:
+                        if (!IsDigit(this.GetCurrentChar()))
+                            throw new ParseException("Expected a digit after the decimal point");
+                        stage = NUMBER_FRACTION;
+                        break;
+                    case NUMBER_FRACTION:
+                        this.TokenizeDigits(true);
+                        if (this.GetCurrentChar() == '.') {
+                            throw new ParseException("Unexpected period at the end of number");
+                        }
+                        stage = NUMBER_EXPONENT_MARK;
+                        break;
+                    case NUMBER_EXPONENT_MARK:
+                        cur = this.GetCurrentChar();
+                        if (cur != 'e' && cur != 'E')
+                            break scan;
+                        this.Next();
+                        isInteger = false;
+                        stage = NUMBER_EXPONENT_SIGN;
+                        break;
+                    case NUMBER_EXPONENT_SIGN:
+                        cur = this.GetCurrentChar();
+                        if (cur == '-' || cur == '+') {
+                            negativeExponent = cur == '-';
+                            this.Next();
+                        }
+                        stage = NUMBER_EXPONENT_FIRST;
+                        break;
+                    case NUMBER_EXPONENT_FIRST:
+                        if (!IsDigit(this.GetCurrentChar()))
+                            throw new ParseException("Expected a digit in the exponent");
+                        stage = NUMBER_EXPONENT;
+                        break;
+                    default:
+                        while (IsDigit(cur = this.GetCurrentChar())) {
+                            if (exponent < 100000)
+                                exponent = exponent * 10 + (cur - '0');
+                            else
+                                this.numberTruncated = true;
+                            this.Next();
+                        }
+                        this.numberExponent += negativeExponent ? -exponent : exponent;
+                        break scan;
+                }
             }
-            return new TokenNumber(x.first, mantissa.first, mantissa.second, isNegative);
+        } catch (NeedMoreInput e) {
+            this.resumeStart = this.start;
+            this.resumeIdx = this.idx;
+            this.resumeStage = stage;
+            this.resumeFlag = isInteger;
+            this.resumeExponent = exponent;
+            this.resumeNegativeExponent = negativeExponent;
+            throw e;
         }
-        return new TokenNumber(x.first, isNegative);
+        this.end = this.idx;
+
+        // Integers that fit in a long (but not -0) stay on a pure long path; all
+        // other numbers are only converted when asked for.
+        final boolean isNegative = this.numberNegative;
+        this.isInteger = isInteger && this.numberExponent == 0 && !this.numberTruncated
+                && (this.numberMantissa > 0 || (!isNegative && this.numberMantissa == 0)
+                        || (isNegative && this.numberMantissa == Long.MIN_VALUE));
+        if (this.isInteger)
+            this.longValue = isNegative ? -this.numberMantissa : this.numberMantissa;
+        return this.type = TokenType.NUMBER;
+    }
+
+    double DoubleValue() {
+        if (this.isInteger)
+            return this.longValue;
+        double value = Double.NaN;
+        if (!this.numberTruncated)
+            value = DoubleParser.ToDouble(this.numberMantissa, this.numberExponent, this.numberNegative);
+        if (Double.isNaN(value))
+            value = Double.parseDouble(this.NumberText());
+        return value;
+    }
+
+    JsonNumber NumberValue() {
+        if (this.isInteger)
+            return new JsonNumber(this.longValue);
+        if (this.numberTruncated)
+            return new JsonNumber(this.NumberText());
+        return new JsonNumber(this.numberMantissa, this.numberExponent, this.numberNegative);
+    }
+
+    // The source text of the current number token, which is plain ASCII.
+    String NumberText() {
+        final int length = this.end - this.start;
+        if (this.array != null)
+            return new String(this.array, this.arrayOffset + this.start, length, StandardCharsets.ISO_8859_1);
+        byte[] bytes = new byte[length];
+        this.source.get(this.start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
     }
 
     private boolean SkipEscapeChars() {
@@ -316,7 +735,7 @@ class Tokenizer {
                 int cnt = 0;
                 while (!this.IsEnd()) {
                     char ch = this.GetCurrentChar();
-                    if (!((ch >= '0' && ch <= '9') || (ch >= 'a' && ch <= 'f')))
+                    if (!((ch >= '0' && ch <= '9') || (ch >= 'a' && ch <= 'f') || (ch >= 'A' && ch <= 'F')))
                         break;
                     cnt++;
                     if (cnt == 4)
@@ -330,127 +749,308 @@ class Tokenizer {
         }
     }
 
-    private Token TokenizeString() throws ParseException {
+    private TokenType TokenizeString() throws ParseException {
         boolean isComplete = false;
+        final int quote = this.idx;
         this.Next();
-        int oldIdx = this.idx;
-        while (!this.IsEnd()) {
-            char ch = this.GetCurrentChar();
-            if (ch == '"') {
-                this.Next(); // Eat ending quotes
-                isComplete = true;
-                break;
-            } else if (ch == '\\') {
-                if (!this.SkipEscapeChars()) {
-                    throw new ParseException("Expected a valid escape sequence");
+        this.start = this.idx;
+        this.hasEscapes = false;
+        if (this.resumeStart == quote) {
+            this.idx = this.resumeIdx;
+            this.hasEscapes = this.resumeFlag;
+            this.resumeStart = -1;
+        }
+        // Where a resumed scan has to restart: before an escape, never inside it.
+        int safe = this.idx;
+        try {
+            while (!this.IsEnd()) {
+                this.idx = StringScanner.SkipStringBody(this.array, this.arrayOffset, this.idx, this.limit);
+                safe = this.idx;
+                char ch = this.GetCurrentChar();
+                if (ch == '"') {
+                    this.Next(); // Eat ending quotes
+                    isComplete = true;
+                    break;
+                } else if (ch == '\\') {
+                    this.hasEscapes = true;
+                    if (!this.SkipEscapeChars()) {
+                        throw new ParseException("Expected a valid escape sequence");
+                    }
                 }
+                this.Next();
+                safe = this.idx;
             }
-            this.Next();
+        } catch (NeedMoreInput e) {
+            this.resumeStart = quote;
+            this.resumeIdx = safe;
+            this.resumeFlag = this.hasEscapes;
+            throw e;
         }
         if (!isComplete) {
-            new ParseException("Encountered a incomplete string");
+            throw new ParseException("Encountered a incomplete string");
         }
-        return new TokenString(this.source.substring(oldIdx, this.idx - 1));
+        this.end = this.idx - 1;
+        return this.type = TokenType.STRING;
     }
 
 }
 
 public class JsonParser {
-    ArrayList<Token> tokens;
-    Integer idx;
+    public enum ObjectLayout {
+        HASH_MAP,
+        ORDERED,
+        SHAPED,
+    }
+
+    Tokenizer tokenizer;
+    TokenType current;
+    private KeyCache keyCache;
+    private ObjectLayout layout = ObjectLayout.HASH_MAP;
+    private ObjectShape shapes;
 
     public JsonParser(String source) throws ParseException {
-        Tokenizer tokenizer = new Tokenizer(source);
-        this.tokens = tokenizer.GetTokens();
-        this.idx = 0;
+        this(new Tokenizer(source));
     }
 
-    private boolean IsEnd() {
-        return this.idx == this.tokens.size();
+    public JsonParser(byte[] source) throws ParseException {
+        this(source, 0, source.length);
     }
 
-    private Token GetCurrentToken() {
-        return this.tokens.get(this.idx);
+    public JsonParser(byte[] source, int offset, int length) throws ParseException {
+        this(ByteBuffer.wrap(source, offset, length));
     }
 
-    private Token.Type GetCurrentTokenType() {
-        return this.GetCurrentToken().type;
+    // Parses the remaining bytes of the buffer as UTF-8; the buffer is not copied.
+    public JsonParser(ByteBuffer source) throws ParseException {
+        this(new Tokenizer(source));
     }
 
-    private void Next() {
-        this.idx += 1;
+    // Same as above, optionally locating tokens with a structural index pass.
+    public JsonParser(ByteBuffer source, boolean indexed) throws ParseException {
+        this(new Tokenizer(source, indexed));
+    }
+
+    // Streams the document through a fixed-size buffer, so parsing starts with
+    // the first bytes and memory does not grow with the input. Read failures
+    // are thrown as UncheckedIOException.
+    public JsonParser(InputStream input) throws ParseException {
+        this(input, Tokenizer.DEFAULT_BUFFER_SIZE);
+    }
+
+    public JsonParser(InputStream input, int bufferSize) throws ParseException {
+        this(new Tokenizer(input, bufferSize));
+    }
+
+    public JsonParser(ReadableByteChannel channel) throws ParseException {
+        this(channel, Tokenizer.DEFAULT_BUFFER_SIZE);
+    }
+
+    public JsonParser(ReadableByteChannel channel, int bufferSize) throws ParseException {
+        this(new Tokenizer(channel, bufferSize));
+    }
+
+    // Memory-maps the file, so the document is never copied onto the heap.
+    public JsonParser(Path path) throws IOException, ParseException {
+        this(MapFile(path));
+    }
+
+    JsonParser(Tokenizer tokenizer) throws ParseException {
+        this.tokenizer = tokenizer;
+        this.Next();
+    }
+
+    // Interns object keys through the cache, which may be shared with other parsers.
+    public void SetKeyCache(KeyCache cache) {
+        this.keyCache = cache;
+        this.shapes = null;
+    }
+
+    // Selects how objects are stored:
+    //   HASH_MAP  a JsonObj over a HashMap, the default
+    //   ORDERED   flat key and value arrays in source order, indexed once large
+    //   SHAPED    only the values, the keys shared with every earlier object of
+    //             the same keys; shapes are shared along with the key cache
+    // ORDERED and SHAPED objects iterate and print in source order.
+    public void SetObjectLayout(ObjectLayout layout) {
+        this.layout = layout;
+    }
+
+    // Off by default. When on, strings parsed from a byte[] or heap ByteBuffer
+    // are views of it, decoded on first read; the document then keeps the
+    // array alive and sees later changes to it. Ignored for streamed input.
+    public void SetStringViews(boolean views) {
+        this.tokenizer.views = views;
+    }
+
+    private ObjectShape Shapes() {
+        if (this.shapes == null)
+            this.shapes = this.keyCache != null ? this.keyCache.shapes : ObjectShape.Root();
+        return this.shapes;
+    }
+
+    static ByteBuffer MapFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException(String.format("%s is too large to map (%d bytes)", path, size));
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    boolean IsEnd() {
+        return this.current == null;
+    }
+
+    private TokenType GetCurrentTokenType() throws ParseException {
+        if (this.IsEnd())
+            throw new ParseException("Unexpected end of input");
+        return this.current;
     }
 
-    private void ExpectType(Token.Type expectedType) throws ParseException {
-        Token.Type curType = this.GetCurrentTokenType();
+    // Tokens are pulled from the tokenizer on demand, so only the current one is
+    // ever alive instead of a list spanning the whole document.
+    private void Next() throws ParseException {
+        this.current = this.tokenizer.HasToken() ? this.tokenizer.Tokenize() : null;
+    }
+
+    private void ExpectType(TokenType expectedType) throws ParseException {
+        TokenType curType = this.GetCurrentTokenType();
         if (curType != expectedType)
             throw new ParseException(String.format("Expected %s, got %s", expectedType, curType));
         this.Next();
     }
 
+    // The public entry points parse one value and require nothing but
+    // whitespace after it.
     public JsonType Parse() throws ParseException {
-        final Token tok = this.GetCurrentToken();
-        switch (tok.type) {
+        return this.End(this.ParseValue());
+    }
+
+    public JsonArray ParseArray() throws ParseException {
+        return this.End(this.ReadArray());
+    }
+
+    public JsonObj ParseObj() throws ParseException {
+        return this.End(this.ReadObj());
+    }
+
+    private <T extends JsonType> T End(T value) throws ParseException {
+        if (!this.IsEnd())
+            throw new ParseException("Unexpected data after the top-level value");
+        return value;
+    }
+
+    private JsonType ParseValue() throws ParseException {
+        final TokenType type = this.GetCurrentTokenType();
+        switch (type) {
             case NUMBER: {
+                JsonNumber ret = this.tokenizer.NumberValue();
                 this.Next();
-                return new JsonNumber((double) (tok.GetValue()));
+                return ret;
             }
             case STRING: {
+                JsonString ret = this.tokenizer.StringNode();
                 this.Next();
-                return new JsonString((String) tok.GetValue());
+                return ret;
             }
             case BOOL: {
+                JsonBool ret = new JsonBool(this.tokenizer.boolValue);
                 this.Next();
-                return new JsonBool((Boolean) tok.GetValue());
+                return ret;
             }
             case NULL: {
                 this.Next();
                 return new JsonNull();
             }
             case LEFT_PAREN:
-                return this.ParseArray();
+                return this.ReadArray();
             case LEFT_CURLY:
-                return this.ParseObj();
+                return this.ReadObj();
             default:
-                throw new ParseException("Unexpected " + tok.type);
+                throw new ParseException("Unexpected " + type);
         }
     }
 
-    public JsonArray ParseArray() throws ParseException {
+    private JsonArray ReadArray() throws ParseException {
         ArrayList<JsonType> res = new ArrayList<>();
-        this.ExpectType(Token.Type.LEFT_PAREN);
+        this.ExpectType(TokenType.LEFT_PAREN);
 
-        while (!this.IsEnd()) {
-            res.add(this.Parse());
-            if (this.GetCurrentTokenType() == Token.Type.RIGHT_PAREN)
-                break;
-            this.ExpectType(Token.Type.COMMA);
+        boolean more = this.GetCurrentTokenType() != TokenType.RIGHT_PAREN;
+        while (more) {
+            res.add(this.ParseValue());
+            more = this.GetCurrentTokenType() != TokenType.RIGHT_PAREN;
+            if (more)
+                this.ExpectType(TokenType.COMMA);
         }
-        this.ExpectType(Token.Type.RIGHT_PAREN);
+        this.ExpectType(TokenType.RIGHT_PAREN);
         return new JsonArray(res);
     }
 
-    public JsonObj ParseObj() throws ParseException {
-        JsonType key, value;
-        HashMap<String, JsonType> res = new HashMap<>();
-        this.ExpectType(Token.Type.LEFT_CURLY);
+    private JsonObj ReadObj() throws ParseException {
+        String key;
+        JsonType value;
+        HashMap<String, JsonType> res = null;
+        CompactObj compact = null;
+        ObjectShape shape = null;
+        JsonType[] values = null;
+        int count = 0;
+        switch (this.layout) {
+            case ORDERED:
+                compact = new CompactObj();
+                break;
+            case SHAPED:
+                shape = this.Shapes();
+                break;
+            default:
+                res = new HashMap<>();
+                break;
+        }
+        this.ExpectType(TokenType.LEFT_CURLY);
 
-        while (!this.IsEnd()) {
-            key = this.Parse();
-            if (!(key instanceof JsonString)) {
+        boolean more = this.GetCurrentTokenType() != TokenType.RIGHT_CURLY;
+        while (more) {
+            if (this.GetCurrentTokenType() != TokenType.STRING) {
                 throw new ParseException(
-                        String.format("Expected string as key, got %s", key.getClass()));
+                        String.format("Expected string as key, got %s", this.GetCurrentTokenType()));
             }
-            key = (JsonString) key;
-            this.ExpectType(Token.Type.COLON);
-            value = this.Parse();
-            res.put((String) key.GetValue(), value);
-            if (this.GetCurrentTokenType() == Token.Type.RIGHT_CURLY)
-                break;
-            this.ExpectType(Token.Type.COMMA);
+            key = this.tokenizer.StringValue(this.keyCache);
+            this.Next();
+            this.ExpectType(TokenType.COLON);
+            value = this.ParseValue();
+            if (res != null) {
+                res.put(key, value);
+            } else if (compact != null) {
+                compact.Put(key, value);
+            } else {
+                final int i = shape.IndexOf(key);
+                final ObjectShape next = i < 0 ? shape.With(key) : shape;
+                if (i >= 0) {
+                    values[i] = value;
+                } else if (next == null) {
+                    // Too many shapes or keys; carry on with a plain map.
+                    res = shape.ToMap(values, count);
+                    res.put(key, value);
+                } else {
+                    if (values == null)
+                        values = new JsonType[8];
+                    else if (count == values.length)
+                        values = Arrays.copyOf(values, count * 2);
+                    values[count++] = value;
+                    shape = next;
+                }
+            }
+            more = this.GetCurrentTokenType() != TokenType.RIGHT_CURLY;
+            if (more)
+                this.ExpectType(TokenType.COMMA);
         }
 
-        this.ExpectType(Token.Type.RIGHT_CURLY);
-        return new JsonObj(res);
+        this.ExpectType(TokenType.RIGHT_CURLY);
+        if (res != null)
+            return new JsonObj(res);
+        if (compact != null)
+            return compact;
+        if (values == null)
+            values = new JsonType[0];
+        return new ShapedObj(shape, count == values.length ? values : Arrays.copyOf(values, count));
     }
 }
@@ -0,0 +1,514 @@
+package src.dom.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+// A compiled query selecting values out of a document, written either as a
+// JSONPath or as a JSON Pointer:
+//   $.store.book[0].title   $['store']['book'][0]   $.items[*].price
+//   $..price                $.items[0,2]  $.items[1:3]
+//   /user/email             /items/0/price          "" (the whole document)
+// JSONPath filters, scripts and negative indices are not supported. Results
+// come in document order; over a tree, in the order its objects iterate.
+//
+// Over a token stream the path is run as a small automaton: every value is
+// visited with the set of steps that could still match below it, kept as a
+// bit mask. Subtrees no step can match are skipped without building anything,
+// and only the matched values are materialised, so the cost beyond tokenizing
+// grows with the result rather than the document. A path that can match one
+// value at most, such as a pointer, stops reading once it has found it.
+public final class JsonPath {
+    static final int MAX_STEPS = 63;
+
+    // The selectors applied to the children of the values reached so far; a
+    // descendant step applies them to every value below.
+    private static final class Step {
+        boolean descendant;
+        boolean wildcard;
+        String[] names = new String[0];
+        // Array indices as [from, to) pairs.
+        int[] ranges = new int[0];
+
+        boolean MatchesName(String name) {
+            if (this.wildcard)
+                return true;
+            for (String candidate : this.names) {
+                if (candidate.equals(name))
+                    return true;
+            }
+            return false;
+        }
+
+        boolean MatchesIndex(int index) {
+            if (this.wildcard)
+                return true;
+            for (int i = 0; i < this.ranges.length; i += 2) {
+                if (index >= this.ranges[i] && index < this.ranges[i + 1])
+                    return true;
+            }
+            return false;
+        }
+
+        // Whether the step can select one child at most.
+        boolean IsSingle() {
+            return !this.descendant && !this.wildcard && this.names.length <= 1
+                    && (this.ranges.length == 0 || (this.ranges.length == 2 && this.ranges[1] - this.ranges[0] == 1));
+        }
+    }
+
+    private final String expression;
+    private final Step[] steps;
+    // Bit i of a state mask means the first i steps have matched; the bit
+    // past the last step marks a match.
+    private final long accept;
+    private final boolean definite;
+    // Every field name the steps mention. Field names read while matching are
+    // compared against these in place, and the rest are never decoded.
+    private final String[] names;
+
+    private JsonPath(String expression, ArrayList<Step> steps) throws ParseException {
+        if (steps.size() > MAX_STEPS)
+            throw new ParseException(String.format("A path has at most %d steps, got %d", MAX_STEPS, steps.size()));
+        this.expression = expression;
+        this.steps = steps.toArray(new Step[0]);
+        this.accept = 1L << this.steps.length;
+        boolean definite = true;
+        LinkedHashSet<String> names = new LinkedHashSet<>();
+        for (Step step : this.steps) {
+            definite &= step.IsSingle();
+            names.addAll(Arrays.asList(step.names));
+        }
+        this.definite = definite;
+        this.names = names.toArray(new String[0]);
+    }
+
+    public static JsonPath Compile(String expression) throws ParseException {
+        ArrayList<Step> steps = new ArrayList<>();
+        if (expression.isEmpty() || expression.charAt(0) == '/')
+            ParsePointer(expression, steps);
+        else
+            new Expression(expression).Parse(steps);
+        return new JsonPath(expression, steps);
+    }
+
+    // Every value matching the path. Reading stops early when the path can
+    // only match once, in which case the rest of the input is not checked.
+    public ArrayList<JsonType> Select(byte[] json) throws ParseException {
+        return this.Run(new JsonReader(json), this.definite ? 1 : Integer.MAX_VALUE);
+    }
+
+    public ArrayList<JsonType> Select(String json) throws ParseException {
+        return this.Run(new JsonReader(json), this.definite ? 1 : Integer.MAX_VALUE);
+    }
+
+    // The first value matching the path, or null; reading stops there.
+    public JsonType SelectFirst(byte[] json) throws ParseException {
+        return First(this.Run(new JsonReader(json), 1));
+    }
+
+    public JsonType SelectFirst(String json) throws ParseException {
+        return First(this.Run(new JsonReader(json), 1));
+    }
+
+    // Matches the value the reader is on, or the first one if it has not been
+    // started, and leaves the reader on the last event of that value.
+    public ArrayList<JsonType> Select(JsonReader reader) throws ParseException {
+        if (reader.CurrentToken() == null)
+            reader.NextToken();
+        final JsonReader.Event event = reader.CurrentToken();
+        final int depth = reader.CurrentDepth()
+                - (event == JsonReader.Event.START_OBJECT || event == JsonReader.Event.START_ARRAY ? 1 : 0);
+        ArrayList<JsonType> res = new ArrayList<>();
+        if (this.Walk(reader, 1L, res, this.definite ? 1 : Integer.MAX_VALUE)) {
+            while (reader.CurrentDepth() > depth)
+                reader.NextToken();
+        }
+        return res;
+    }
+
+    // Matches against an already built tree; the results are its own nodes.
+    public ArrayList<JsonType> Select(JsonType root) {
+        ArrayList<JsonType> res = new ArrayList<>();
+        this.Evaluate(root, 1L, res, Integer.MAX_VALUE);
+        return res;
+    }
+
+    public JsonType SelectFirst(JsonType root) {
+        ArrayList<JsonType> res = new ArrayList<>(1);
+        this.Evaluate(root, 1L, res, 1);
+        return First(res);
+    }
+
+    @Override
+    public String toString() {
+        return this.expression;
+    }
+
+    private static JsonType First(ArrayList<JsonType> values) {
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    private ArrayList<JsonType> Run(JsonReader reader, int limit) throws ParseException {
+        reader.knownNames = this.names;
+        reader.NextToken();
+        ArrayList<JsonType> res = new ArrayList<>();
+        if (!this.Walk(reader, 1L, res, limit))
+            reader.NextToken();
+        return res;
+    }
+
+    // Visits the value the reader is on in the given states and leaves the
+    // reader on its last event; returns true once 'limit' values were found,
+    // leaving the reader where the last one ended.
+    private boolean Walk(JsonReader reader, long states, ArrayList<JsonType> res, int limit) throws ParseException {
+        if ((states & this.accept) != 0) {
+            // A matched value keeps all of its field names.
+            final String[] known = reader.knownNames;
+            reader.knownNames = null;
+            final JsonType value = reader.GetValue();
+            reader.knownNames = known;
+            res.add(value);
+            if (res.size() >= limit)
+                return true;
+            // Descendant steps may match again inside the match.
+            return this.Evaluate(value, states & ~this.accept, res, limit);
+        }
+        switch (reader.CurrentToken()) {
+            case START_OBJECT:
+                while (reader.NextToken() == JsonReader.Event.FIELD_NAME) {
+                    final long next = this.NameStates(states, reader.GetString());
+                    reader.NextToken();
+                    if (next == 0)
+                        reader.SkipChildren();
+                    else if (this.Walk(reader, next, res, limit))
+                        return true;
+                }
+                return false;
+            case START_ARRAY: {
+                int index = 0;
+                while (reader.NextToken() != JsonReader.Event.END_ARRAY) {
+                    final long next = this.IndexStates(states, index++);
+                    if (next == 0)
+                        reader.SkipChildren();
+                    else if (this.Walk(reader, next, res, limit))
+                        return true;
+                }
+                return false;
+            }
+            case END_DOCUMENT:
+                throw new ParseException("Unexpected " + JsonReader.Event.END_DOCUMENT);
+            default:
+                return false;
+        }
+    }
+
+    private boolean Evaluate(JsonType value, long states, ArrayList<JsonType> res, int limit) {
+        if ((states & this.accept) != 0) {
+            res.add(value);
+            if (res.size() >= limit)
+                return true;
+            states &= ~this.accept;
+        }
+        if (states == 0)
+            return false;
+        if (value instanceof JsonObj) {
+            final JsonObj obj = (JsonObj) value;
+            // A single name is looked up rather than searched for; a union of
+            // names is searched for, so results keep the object's order.
+            if (Long.bitCount(states) == 1) {
+                final Step step = this.steps[Long.numberOfTrailingZeros(states)];
+                if (!step.descendant && !step.wildcard && step.names.length <= 1) {
+                    if (step.names.length == 0)
+                        return false;
+                    final JsonType child = obj.Get(step.names[0]);
+                    return child != null && this.Evaluate(child, states << 1, res, limit);
+                }
+            }
+            final long current = states;
+            final boolean[] done = { false };
+            obj.ForEach((name, child) -> {
+                if (done[0])
+                    return;
+                final long next = this.NameStates(current, name);
+                if (next != 0)
+                    done[0] = this.Evaluate(child, next, res, limit);
+            });
+            return done[0];
+        }
+        if (value instanceof JsonArray) {
+            final JsonArray array = (JsonArray) value;
+            final int end = Math.min(array.Size(), this.IndexBound(states));
+            for (int i = 0; i < end; i++) {
+                final long next = this.IndexStates(states, i);
+                if (next != 0 && this.Evaluate(array.Get(i), next, res, limit))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    // The states of a field named 'name' of an object in 'states'.
+    private long NameStates(long states, String name) {
+        long next = 0;
+        for (long s = states & ~this.accept; s != 0; s &= s - 1) {
+            final int i = Long.numberOfTrailingZeros(s);
+            final Step step = this.steps[i];
+            if (step.descendant)
+                next |= 1L << i;
+            if (step.MatchesName(name))
+                next |= 1L << (i + 1);
+        }
+        return next;
+    }
+
+    private long IndexStates(long states, int index) {
+        long next = 0;
+        for (long s = states & ~this.accept; s != 0; s &= s - 1) {
+            final int i = Long.numberOfTrailingZeros(s);
+            final Step step = this.steps[i];
+            if (step.descendant)
+                next |= 1L << i;
+            if (step.MatchesIndex(index))
+                next |= 1L << (i + 1);
+        }
+        return next;
+    }
+
+    // Elements at or past the bound cannot match in these states.
+    private int IndexBound(long states) {
+        int bound = 0;
+        for (long s = states & ~this.accept; s != 0; s &= s - 1) {
+            final Step step = this.steps[Long.numberOfTrailingZeros(s)];
+            if (step.descendant || step.wildcard)
+                return Integer.MAX_VALUE;
+            for (int i = 1; i < step.ranges.length; i += 2)
+                bound = Math.max(bound, step.ranges[i]);
+        }
+        return bound;
+    }
+
+    // RFC 6901: "/a~1b/0" is the field "a/b", then the field "0" or the first
+    // element, whichever the value has.
+    private static void ParsePointer(String pointer, ArrayList<Step> steps) throws ParseException {
+        int start = 1;
+        while (start <= pointer.length()) {
+            int end = pointer.indexOf('/', start);
+            if (end < 0)
+                end = pointer.length();
+            StringBuilder token = new StringBuilder();
+            for (int i = start; i < end; i++) {
+                final char c = pointer.charAt(i);
+                if (c != '~') {
+                    token.append(c);
+                    continue;
+                }
+                final char escaped = i + 1 < end ? pointer.charAt(++i) : 0;
+                if (escaped == '0')
+                    token.append('~');
+                else if (escaped == '1')
+                    token.append('/');
+                else
+                    throw new ParseException(String.format("Invalid escape in JSON pointer at position %d", i));
+            }
+            Step step = new Step();
+            step.names = new String[] { token.toString() };
+            final int index = ArrayIndex(step.names[0]);
+            if (index >= 0)
+                step.ranges = new int[] { index, index + 1 };
+            steps.add(step);
+            start = end + 1;
+        }
+    }
+
+    // The index a pointer token names, or -1; leading zeros are not allowed.
+    private static int ArrayIndex(String token) {
+        if (token.isEmpty() || token.length() > 9 || (token.charAt(0) == '0' && token.length() > 1))
+            return -1;
+        for (int i = 0; i < token.length(); i++) {
+            if (token.charAt(i) < '0' || token.charAt(i) > '9')
+                return -1;
+        }
+        return Integer.parseInt(token);
+    }
+
+    private static final class Expression {
+        private final String source;
+        private int idx;
+
+        Expression(String source) {
+            this.source = source;
+        }
+
+        void Parse(ArrayList<Step> steps) throws ParseException {
+            this.Expect('$');
+            while (this.idx < this.source.length()) {
+                final char c = this.source.charAt(this.idx);
+                if (c == '[') {
+                    steps.add(this.Brackets());
+                } else if (c == '.') {
+                    this.idx++;
+                    final boolean descendant = this.Peek() == '.';
+                    if (descendant)
+                        this.idx++;
+                    Step step;
+                    if (this.Peek() == '[') {
+                        step = this.Brackets();
+                    } else if (this.Peek() == '*') {
+                        this.idx++;
+                        step = new Step();
+                        step.wildcard = true;
+                    } else {
+                        step = new Step();
+                        step.names = new String[] { this.Name() };
+                    }
+                    step.descendant = descendant;
+                    steps.add(step);
+                } else {
+                    throw this.Error("Unexpected '" + c + "'");
+                }
+            }
+        }
+
+        private char Peek() {
+            return this.idx < this.source.length() ? this.source.charAt(this.idx) : 0;
+        }
+
+        private void Expect(char c) throws ParseException {
+            if (this.Peek() != c)
+                throw this.Error("Expected '" + c + "'");
+            this.idx++;
+        }
+
+        private ParseException Error(String message) {
+            return new ParseException(String.format("%s at position %d of path %s", message, this.idx, this.source));
+        }
+
+        private void SkipSpaces() {
+            while (this.Peek() == ' ')
+                this.idx++;
+        }
+
+        private String Name() throws ParseException {
+            final int start = this.idx;
+            while (this.idx < this.source.length()) {
+                final char c = this.source.charAt(this.idx);
+                if (c == '.' || c == '[' || c == ' ')
+                    break;
+                this.idx++;
+            }
+            if (this.idx == start)
+                throw this.Error("Expected a name");
+            return this.source.substring(start, this.idx);
+        }
+
+        // A bracketed list of selectors: names, indices, slices or '*'.
+        private Step Brackets() throws ParseException {
+            this.Expect('[');
+            ArrayList<String> names = new ArrayList<>();
+            ArrayList<Integer> ranges = new ArrayList<>();
+            Step step = new Step();
+            while (true) {
+                this.SkipSpaces();
+                final char c = this.Peek();
+                if (c == '*') {
+                    this.idx++;
+                    step.wildcard = true;
+                } else if (c == '\'' || c == '"') {
+                    names.add(this.Quoted(c));
+                } else if (c == '?') {
+                    throw this.Error("Filters are not supported");
+                } else if (c == '-') {
+                    throw this.Error("Negative indices are not supported");
+                } else if (c == ':' || (c >= '0' && c <= '9')) {
+                    final int from = c == ':' ? 0 : this.Index();
+                    int to = from + 1;
+                    if (this.Peek() == ':') {
+                        this.idx++;
+                        this.SkipSpaces();
+                        final char e = this.Peek();
+                        if (e == '-')
+                            throw this.Error("Negative indices are not supported");
+                        to = e >= '0' && e <= '9' ? this.Index() : Integer.MAX_VALUE;
+                        if (this.Peek() == ':')
+                            throw this.Error("Slice steps are not supported");
+                    }
+                    ranges.add(from);
+                    ranges.add(to);
+                } else {
+                    throw this.Error("Expected a selector");
+                }
+                this.SkipSpaces();
+                if (this.Peek() != ',')
+                    break;
+                this.idx++;
+            }
+            this.Expect(']');
+            step.names = names.toArray(new String[0]);
+            step.ranges = ranges.stream().mapToInt(Integer::intValue).toArray();
+            return step;
+        }
+
+        private int Index() throws ParseException {
+            final int start = this.idx;
+            long value = 0;
+            while (this.Peek() >= '0' && this.Peek() <= '9') {
+                value = value * 10 + (this.source.charAt(this.idx++) - '0');
+                if (value > Integer.MAX_VALUE)
+                    throw this.Error("Index out of range");
+            }
+            if (this.idx == start)
+                throw this.Error("Expected an index");
+            return (int) value;
+        }
+
+        private String Quoted(char quote) throws ParseException {
+            this.idx++;
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                if (this.idx >= this.source.length())
+                    throw this.Error("Unterminated name");
+                char c = this.source.charAt(this.idx++);
+                if (c == quote)
+                    return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (this.idx >= this.source.length())
+                    throw this.Error("Unterminated name");
+                c = this.source.charAt(this.idx++);
+                switch (c) {
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        if (this.idx + 4 > this.source.length())
+                            throw this.Error("Invalid escape");
+                        try {
+                            sb.append((char) Integer.parseInt(this.source.substring(this.idx, this.idx + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw this.Error("Invalid escape");
+                        }
+                        this.idx += 4;
+                        break;
+                    default:
+                        sb.append(c);
+                        break;
+                }
+            }
+        }
+    }
+}
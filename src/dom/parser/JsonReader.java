@@ -0,0 +1,304 @@
+package src.dom.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+public class JsonReader {
+    public enum Event {
+        START_OBJECT,
+        END_OBJECT,
+        START_ARRAY,
+        END_ARRAY,
+        FIELD_NAME,
+        STRING,
+        NUMBER,
+        BOOL,
+        NULL,
+        END_DOCUMENT,
+    }
+
+    private static final int CTX_ARRAY = 0;
+    private static final int CTX_OBJECT = 1;
+
+    private Tokenizer tokenizer;
+    private Event current;
+    private String name;
+    private String[] names;
+    private int[] stack;
+    private int depth;
+    private KeyCache keyCache;
+    // When set, field names other than these are read as null.
+    String[] knownNames;
+
+    public JsonReader(String source) {
+        this(new Tokenizer(source));
+    }
+
+    public JsonReader(byte[] source) {
+        this(source, 0, source.length);
+    }
+
+    public JsonReader(byte[] source, int offset, int length) {
+        this(ByteBuffer.wrap(source, offset, length));
+    }
+
+    public JsonReader(ByteBuffer source) {
+        this(new Tokenizer(source));
+    }
+
+    public JsonReader(ByteBuffer source, boolean indexed) {
+        this(new Tokenizer(source, indexed));
+    }
+
+    public JsonReader(InputStream input) {
+        this(input, Tokenizer.DEFAULT_BUFFER_SIZE);
+    }
+
+    public JsonReader(InputStream input, int bufferSize) {
+        this(new Tokenizer(input, bufferSize));
+    }
+
+    public JsonReader(ReadableByteChannel channel) {
+        this(channel, Tokenizer.DEFAULT_BUFFER_SIZE);
+    }
+
+    public JsonReader(ReadableByteChannel channel, int bufferSize) {
+        this(new Tokenizer(channel, bufferSize));
+    }
+
+    public JsonReader(Path path) throws IOException {
+        this(JsonParser.MapFile(path));
+    }
+
+    JsonReader(Tokenizer tokenizer) {
+        this.tokenizer = tokenizer;
+        this.stack = new int[16];
+        this.names = new String[16];
+        this.depth = 0;
+    }
+
+    // Interns field names through the cache, which may be shared with other readers.
+    public void SetKeyCache(KeyCache cache) {
+        this.keyCache = cache;
+    }
+
+    public KeyCache GetKeyCache() {
+        return this.keyCache;
+    }
+
+    // Lets GetValue() return string views of in-memory input, as
+    // JsonParser.SetStringViews() does.
+    public void SetStringViews(boolean views) {
+        this.tokenizer.views = views;
+    }
+
+    public Event CurrentToken() {
+        return this.current;
+    }
+
+    public int CurrentDepth() {
+        return this.depth;
+    }
+
+    // Name of the field the current value belongs to, null outside of objects.
+    public String CurrentName() {
+        if (this.current == Event.START_OBJECT || this.current == Event.START_ARRAY)
+            return this.names[this.depth - 1];
+        return this.name;
+    }
+
+    public Event NextToken() throws ParseException {
+        if (this.depth == 0) {
+            if (this.current != null) {
+                if (this.tokenizer.HasToken())
+                    throw new ParseException("Unexpected data after the top-level value");
+                return this.current = Event.END_DOCUMENT;
+            }
+            return this.ReadValue(this.NextRawToken());
+        }
+
+        TokenType tok = this.NextRawToken();
+        if (this.stack[this.depth - 1] == CTX_OBJECT) {
+            if (this.current == Event.FIELD_NAME)
+                return this.ReadValue(tok);
+            if (tok == TokenType.RIGHT_CURLY)
+                return this.EndContainer(Event.END_OBJECT);
+            if (this.current != Event.START_OBJECT) {
+                this.Expect(tok, TokenType.COMMA);
+                tok = this.NextRawToken();
+            }
+            this.Expect(tok, TokenType.STRING);
+            this.name = this.knownNames != null ? this.tokenizer.KnownString(this.knownNames)
+                    : this.tokenizer.StringValue(this.keyCache);
+            this.Expect(this.NextRawToken(), TokenType.COLON);
+            return this.current = Event.FIELD_NAME;
+        } else {
+            if (tok == TokenType.RIGHT_PAREN)
+                return this.EndContainer(Event.END_ARRAY);
+            if (this.current != Event.START_ARRAY) {
+                this.Expect(tok, TokenType.COMMA);
+                tok = this.NextRawToken();
+            }
+            return this.ReadValue(tok);
+        }
+    }
+
+    // Advances past everything nested in the current START_OBJECT/START_ARRAY, leaving
+    // the reader on the matching END event. Does nothing on scalar events. In-memory
+    // input is skipped over its bytes, without tokenizing.
+    public void SkipChildren() throws ParseException {
+        if (this.current != Event.START_OBJECT && this.current != Event.START_ARRAY)
+            return;
+        final boolean object = this.current == Event.START_OBJECT;
+        if (this.tokenizer.SkipContainer(object)) {
+            this.EndContainer(object ? Event.END_OBJECT : Event.END_ARRAY);
+            return;
+        }
+        final int target = this.depth - 1;
+        while (this.depth > target)
+            this.NextToken();
+    }
+
+    public String GetString() throws ParseException {
+        if (this.current == Event.FIELD_NAME)
+            return this.name;
+        if (this.current != Event.STRING)
+            throw new ParseException("Expected STRING, got " + this.current);
+        return this.tokenizer.StringValue();
+    }
+
+    public double GetDouble() throws ParseException {
+        this.ExpectNumber();
+        return this.tokenizer.DoubleValue();
+    }
+
+    // Exact for integers that fit in a long; other numbers are narrowed like
+    // JsonNumber.AsLong(), and those out of range are a ParseException.
+    public long GetLong() throws ParseException {
+        this.ExpectNumber();
+        if (this.tokenizer.isInteger)
+            return this.tokenizer.longValue;
+        try {
+            return this.tokenizer.NumberValue().AsLong();
+        } catch (ArithmeticException e) {
+            throw new ParseException(this.tokenizer.NumberText() + " is out of range for long");
+        }
+    }
+
+    public BigInteger GetBigInteger() throws ParseException {
+        this.ExpectNumber();
+        try {
+            return this.tokenizer.NumberValue().AsBigInteger();
+        } catch (ArithmeticException e) {
+            throw new ParseException(e.getMessage());
+        }
+    }
+
+    public JsonNumber GetNumber() throws ParseException {
+        this.ExpectNumber();
+        return this.tokenizer.NumberValue();
+    }
+
+    public boolean GetBoolean() throws ParseException {
+        if (this.current != Event.BOOL)
+            throw new ParseException("Expected BOOL, got " + this.current);
+        return this.tokenizer.boolValue;
+    }
+
+    // Builds the value the reader is on, leaving the reader on its last event.
+    // Objects keep their fields in source order.
+    public JsonType GetValue() throws ParseException {
+        switch (this.current) {
+            case START_OBJECT: {
+                HashMap<String, JsonType> res = new LinkedHashMap<>();
+                while (this.NextToken() == Event.FIELD_NAME) {
+                    final String name = this.name;
+                    this.NextToken();
+                    res.put(name, this.GetValue());
+                }
+                return new JsonObj(res);
+            }
+            case START_ARRAY: {
+                ArrayList<JsonType> res = new ArrayList<>();
+                while (this.NextToken() != Event.END_ARRAY)
+                    res.add(this.GetValue());
+                return new JsonArray(res);
+            }
+            case STRING:
+                return this.tokenizer.StringNode();
+            case NUMBER:
+                return this.tokenizer.NumberValue();
+            case BOOL:
+                return new JsonBool(this.tokenizer.boolValue);
+            case NULL:
+                return new JsonNull();
+            default:
+                throw new ParseException("Unexpected " + this.current);
+        }
+    }
+
+    private void ExpectNumber() throws ParseException {
+        if (this.current != Event.NUMBER)
+            throw new ParseException("Expected NUMBER, got " + this.current);
+    }
+
+    private TokenType NextRawToken() throws ParseException {
+        if (!this.tokenizer.HasToken())
+            throw new ParseException("Unexpected end of input");
+        return this.tokenizer.Tokenize();
+    }
+
+    private void Expect(TokenType tok, TokenType expectedType) throws ParseException {
+        if (tok != expectedType)
+            throw new ParseException(String.format("Expected %s, got %s", expectedType, tok));
+    }
+
+    private Event ReadValue(TokenType tok) throws ParseException {
+        switch (tok) {
+            case NUMBER:
+                return this.current = Event.NUMBER;
+            case STRING:
+                return this.current = Event.STRING;
+            case BOOL:
+                return this.current = Event.BOOL;
+            case NULL:
+                return this.current = Event.NULL;
+            case LEFT_CURLY:
+                this.Push(CTX_OBJECT);
+                return this.current = Event.START_OBJECT;
+            case LEFT_PAREN:
+                this.Push(CTX_ARRAY);
+                return this.current = Event.START_ARRAY;
+            default:
+                throw new ParseException("Unexpected " + tok);
+        }
+    }
+
+    private void Push(int ctx) {
+        if (this.depth == this.stack.length) {
+            int[] grown = new int[this.stack.length * 2];
+            System.arraycopy(this.stack, 0, grown, 0, this.depth);
+            this.stack = grown;
+            String[] grownNames = new String[grown.length];
+            System.arraycopy(this.names, 0, grownNames, 0, this.depth);
+            this.names = grownNames;
+        }
+        this.names[this.depth] = this.name;
+        this.stack[this.depth++] = ctx;
+        this.name = null;
+    }
+
+    private Event EndContainer(Event event) {
+        this.depth--;
+        this.name = this.names[this.depth];
+        this.names[this.depth] = null;
+        return this.current = event;
+    }
+}
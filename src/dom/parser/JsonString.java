@@ -1,19 +1,136 @@
 package src.dom.parser;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// With string views turned on (JsonParser.SetStringViews, always for
+// LazyParser), a string parsed from in-memory input is kept as a view of its
+// UTF-8 bytes between the quotes and only decoded, escapes included, when
+// first read. JsonTape hands out the same views into its own string arena.
+// Values that are only compared or written back out are never decoded; the
+// writer copies an escape-free view as it is. The view keeps the source
+// array alive and sees later changes to it.
 public class JsonString extends JsonType {
     String value;
+    private byte[] source;
+    private int offset;
+    private int length;
+    private boolean hasEscapes;
 
     public JsonString(String value) {
         this.value = value;
     }
 
+    JsonString(byte[] source, int offset, int length, boolean hasEscapes) {
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+        this.hasEscapes = hasEscapes;
+    }
+
     @Override
     public String GetValue() {
+        if (this.value == null)
+            this.value = Decode(this.source, this.offset, this.length, this.hasEscapes);
         return this.value;
     }
 
+    // Compares with s without decoding while the bytes are plain ASCII.
+    public boolean ValueEquals(String s) {
+        if (this.value != null || this.hasEscapes)
+            return this.GetValue().equals(s);
+        // Multi-byte characters only ever make the source longer.
+        if (this.length < s.length())
+            return false;
+        for (int i = 0; i < this.length; i++) {
+            if (this.source[this.offset + i] < 0)
+                return this.GetValue().equals(s);
+        }
+        if (this.length != s.length())
+            return false;
+        for (int i = 0; i < this.length; i++) {
+            if (this.source[this.offset + i] != s.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    // Writes an undecoded view without escapes straight from the source bytes.
+    boolean WriteRaw(JsonWriter writer) throws IOException {
+        if (this.value != null || this.hasEscapes)
+            return false;
+        return writer.WriteStringBytes(this.source, this.offset, this.length);
+    }
+
     @Override
     public String toString() {
-        return String.format("\"%s\"", this.value);
+        return JsonWriter.ToString(this);
+    }
+
+    // Decodes the bytes between the quotes of a JSON string. Escape-free input
+    // goes straight to the String constructor, which copies ASCII without
+    // decoding it.
+    static String Decode(byte[] bytes, int offset, int length, boolean hasEscapes) {
+        if (!hasEscapes)
+            return new String(bytes, offset, length, StandardCharsets.UTF_8);
+
+        // Neither escapes nor UTF-8 sequences decode to more chars than bytes.
+        char[] chars = new char[length];
+        int n = 0;
+        final int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            final int b = bytes[i] & 0xff;
+            if (b == '\\' && i + 1 < end) {
+                final byte c = bytes[i + 1];
+                i += 2;
+                switch (c) {
+                    case 'b':
+                        chars[n++] = '\b';
+                        break;
+                    case 'f':
+                        chars[n++] = '\f';
+                        break;
+                    case 'n':
+                        chars[n++] = '\n';
+                        break;
+                    case 'r':
+                        chars[n++] = '\r';
+                        break;
+                    case 't':
+                        chars[n++] = '\t';
+                        break;
+                    case 'u':
+                        if (i + 4 <= end) {
+                            chars[n++] = (char) (HexValue(bytes[i]) << 12 | HexValue(bytes[i + 1]) << 8
+                                    | HexValue(bytes[i + 2]) << 4 | HexValue(bytes[i + 3]));
+                            i += 4;
+                        }
+                        break;
+                    default:
+                        chars[n++] = (char) c;
+                        break;
+                }
+            } else if (b < 0x80) {
+                chars[n++] = (char) b;
+                i++;
+            } else {
+                // Copy the run up to the next escape through the UTF-8 decoder.
+                int run = i + 1;
+                while (run < end && bytes[run] != '\\')
+                    run++;
+                final String decoded = new String(bytes, i, run - i, StandardCharsets.UTF_8);
+                decoded.getChars(0, decoded.length(), chars, n);
+                n += decoded.length();
+                i = run;
+            }
+        }
+        return new String(chars, 0, n);
+    }
+
+    private static int HexValue(byte c) {
+        if (c <= '9')
+            return c - '0';
+        return (c | 0x20) - 'a' + 10;
     }
-}
\ No newline at end of file
+}
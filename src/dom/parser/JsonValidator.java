@@ -0,0 +1,321 @@
+package src.dom.parser;
+
+import java.util.Objects;
+
+// Checks that bytes hold exactly one well-formed JSON document (RFC 8259,
+// UTF-8 encoded) without building anything: no tokens, no strings, no
+// JsonType. One pass over the bytes driven by a character-class table and a
+// depth counter; the kind of each open container is a single bit, so the
+// only memory is a per-thread bit stack that grows with the deepest document
+// seen. Meant for rejecting malformed input before passing the bytes on as
+// they are:
+//   if (!JsonValidator.Validate(body))
+//       ...
+public final class JsonValidator {
+    private static final ThreadLocal<JsonValidator> VALIDATORS = ThreadLocal.withInitial(JsonValidator::new);
+
+    // Byte classes outside of strings, 0 for bytes that cannot appear there.
+    private static final byte WHITESPACE = 1;
+    private static final byte BEGIN_OBJECT = 2;
+    private static final byte END_OBJECT = 3;
+    private static final byte BEGIN_ARRAY = 4;
+    private static final byte END_ARRAY = 5;
+    private static final byte COMMA = 6;
+    private static final byte COLON = 7;
+    private static final byte QUOTE = 8;
+    private static final byte NUMBER = 9;
+    private static final byte LITERAL = 10;
+
+    private static final byte[] CLASSES = new byte[256];
+    // String bytes that need no attention: printable ASCII but '"' and '\'.
+    private static final boolean[] PLAIN = new boolean[256];
+    private static final boolean[] HEX = new boolean[256];
+
+    private static final byte[] TRUE = { 't', 'r', 'u', 'e' };
+    private static final byte[] FALSE = { 'f', 'a', 'l', 's', 'e' };
+    private static final byte[] NULL = { 'n', 'u', 'l', 'l' };
+
+    // What the scanner expects next.
+    private static final int VALUE = 0;
+    private static final int FIRST_VALUE = 1; // a value or ']'
+    private static final int KEY = 2;
+    private static final int FIRST_KEY = 3; // a key or '}'
+    private static final int AFTER_KEY = 4;
+    private static final int AFTER_VALUE = 5;
+
+    static {
+        CLASSES[' '] = CLASSES['\t'] = CLASSES['\n'] = CLASSES['\r'] = WHITESPACE;
+        CLASSES['{'] = BEGIN_OBJECT;
+        CLASSES['}'] = END_OBJECT;
+        CLASSES['['] = BEGIN_ARRAY;
+        CLASSES[']'] = END_ARRAY;
+        CLASSES[','] = COMMA;
+        CLASSES[':'] = COLON;
+        CLASSES['"'] = QUOTE;
+        CLASSES['-'] = NUMBER;
+        for (int c = '0'; c <= '9'; c++)
+            CLASSES[c] = NUMBER;
+        CLASSES['t'] = CLASSES['f'] = CLASSES['n'] = LITERAL;
+
+        for (int c = 0x20; c < 0x80; c++)
+            PLAIN[c] = c != '"' && c != '\\';
+        for (int c = 0; c < 256; c++)
+            HEX[c] = (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    // Bit i set when the container at depth i is an object.
+    private long[] objects = new long[1];
+
+    private JsonValidator() {
+    }
+
+    public static boolean Validate(byte[] json) {
+        return FindError(json, 0, json.length) < 0;
+    }
+
+    public static boolean Validate(byte[] json, int offset, int length) {
+        return FindError(json, offset, length) < 0;
+    }
+
+    public static int FindError(byte[] json) {
+        return FindError(json, 0, json.length);
+    }
+
+    // Offset from 'offset' of the first byte that makes the document invalid,
+    // 'length' when it is cut short, or -1 when it is valid.
+    public static int FindError(byte[] json, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, json.length);
+        final int limit = offset + length;
+        int pos = SkipValue(json, offset, limit);
+        if (pos < 0)
+            return ~pos - offset;
+        while (pos < limit && CLASSES[json[pos] & 0xff] == WHITESPACE)
+            pos++;
+        return pos == limit ? -1 : pos - offset;
+    }
+
+    // Checks the value at 'pos', after any whitespace. Returns the position
+    // right after it, or ~position of the first error.
+    static int SkipValue(byte[] array, int pos, int limit) {
+        return VALIDATORS.get().Scan(array, pos, limit, VALUE, 0);
+    }
+
+    // Same for the rest of an object or array whose opening bracket is just
+    // before 'pos'; returns the position after its closing bracket.
+    static int SkipRest(byte[] array, int pos, int limit, boolean object) {
+        final JsonValidator validator = VALIDATORS.get();
+        validator.objects[0] = object ? 1 : 0;
+        return validator.Scan(array, pos, limit, object ? FIRST_KEY : FIRST_VALUE, 1);
+    }
+
+    // Returns once 'depth' drops to zero, after the last byte of the value.
+    private int Scan(byte[] a, int pos, int limit, int state, int depth) {
+        while (true) {
+            while (pos < limit && CLASSES[a[pos] & 0xff] == WHITESPACE)
+                pos++;
+            if (pos == limit)
+                return ~pos;
+            final byte c = CLASSES[a[pos] & 0xff];
+            switch (state) {
+                case AFTER_KEY:
+                    if (c != COLON)
+                        return ~pos;
+                    pos++;
+                    state = VALUE;
+                    continue;
+                case AFTER_VALUE:
+                    if (c == COMMA) {
+                        pos++;
+                        state = this.InObject(depth) ? KEY : VALUE;
+                        continue;
+                    }
+                    break;
+                case KEY:
+                case FIRST_KEY:
+                    if (c == QUOTE) {
+                        pos = SkipString(a, pos + 1, limit);
+                        if (pos < 0)
+                            return pos;
+                        state = AFTER_KEY;
+                        continue;
+                    }
+                    if (state == KEY)
+                        return ~pos;
+                    break;
+                default:
+                    if (c == END_ARRAY && state == FIRST_VALUE)
+                        break;
+                    switch (c) {
+                        case BEGIN_OBJECT:
+                            this.Push(depth++, true);
+                            pos++;
+                            state = FIRST_KEY;
+                            continue;
+                        case BEGIN_ARRAY:
+                            this.Push(depth++, false);
+                            pos++;
+                            state = FIRST_VALUE;
+                            continue;
+                        case QUOTE:
+                            pos = SkipString(a, pos + 1, limit);
+                            break;
+                        case NUMBER:
+                            pos = SkipNumber(a, pos, limit);
+                            break;
+                        case LITERAL:
+                            pos = SkipLiteral(a, pos, limit);
+                            break;
+                        default:
+                            return ~pos;
+                    }
+                    if (pos < 0 || depth == 0)
+                        return pos;
+                    state = AFTER_VALUE;
+                    continue;
+            }
+
+            // Only the closing bracket of the current container is left.
+            if (c != (this.InObject(depth) ? END_OBJECT : END_ARRAY))
+                return ~pos;
+            pos++;
+            if (--depth == 0)
+                return pos;
+            state = AFTER_VALUE;
+        }
+    }
+
+    private boolean InObject(int depth) {
+        final int i = depth - 1;
+        return (this.objects[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private void Push(int i, boolean object) {
+        if ((i >>> 6) == this.objects.length) {
+            long[] grown = new long[this.objects.length * 2];
+            System.arraycopy(this.objects, 0, grown, 0, this.objects.length);
+            this.objects = grown;
+        }
+        if (object)
+            this.objects[i >>> 6] |= 1L << i;
+        else
+            this.objects[i >>> 6] &= ~(1L << i);
+    }
+
+    // 'pos' is just after the opening quote.
+    private static int SkipString(byte[] a, int pos, int limit) {
+        while (true) {
+            pos = StringScanner.SkipPlainString(a, 0, pos, limit);
+            while (pos < limit && PLAIN[a[pos] & 0xff])
+                pos++;
+            if (pos == limit)
+                return ~pos;
+            final int b = a[pos] & 0xff;
+            if (b == '"')
+                return pos + 1;
+            if (b == '\\')
+                pos = SkipEscape(a, pos + 1, limit);
+            else if (b >= 0x80)
+                pos = SkipUtf8(a, pos, limit);
+            else
+                return ~pos; // Unescaped control character
+            if (pos < 0)
+                return pos;
+        }
+    }
+
+    private static int SkipEscape(byte[] a, int pos, int limit) {
+        if (pos == limit)
+            return ~pos;
+        switch (a[pos]) {
+            case '"':
+            case '\\':
+            case '/':
+            case 'b':
+            case 'f':
+            case 'n':
+            case 'r':
+            case 't':
+                return pos + 1;
+            case 'u':
+                for (int i = pos + 1; i <= pos + 4; i++) {
+                    if (i == limit || !HEX[a[i] & 0xff])
+                        return ~i;
+                }
+                return pos + 5;
+            default:
+                return ~pos;
+        }
+    }
+
+    // One multi-byte sequence, rejecting overlong forms, surrogates and code
+    // points past U+10FFFF.
+    private static int SkipUtf8(byte[] a, int pos, int limit) {
+        final int b = a[pos] & 0xff;
+        int length;
+        int low = 0x80;
+        int high = 0xBF;
+        if (b >= 0xC2 && b <= 0xDF) {
+            length = 2;
+        } else if (b >= 0xE0 && b <= 0xEF) {
+            length = 3;
+            if (b == 0xE0)
+                low = 0xA0;
+            else if (b == 0xED)
+                high = 0x9F;
+        } else if (b >= 0xF0 && b <= 0xF4) {
+            length = 4;
+            if (b == 0xF0)
+                low = 0x90;
+            else if (b == 0xF4)
+                high = 0x8F;
+        } else {
+            return ~pos;
+        }
+        for (int i = pos + 1; i < pos + length; i++) {
+            if (i == limit)
+                return ~i;
+            final int c = a[i] & 0xff;
+            if (c < low || c > high)
+                return ~i;
+            low = 0x80;
+            high = 0xBF;
+        }
+        return pos + length;
+    }
+
+    // What follows the number is left to the caller, so "01" fails on the '1'.
+    private static int SkipNumber(byte[] a, int pos, int limit) {
+        if (a[pos] == '-')
+            pos++;
+        if (pos < limit && a[pos] == '0')
+            pos++;
+        else if ((pos = SkipDigits(a, pos, limit)) < 0)
+            return pos;
+        if (pos < limit && a[pos] == '.' && (pos = SkipDigits(a, pos + 1, limit)) < 0)
+            return pos;
+        if (pos < limit && (a[pos] | 0x20) == 'e') {
+            pos++;
+            if (pos < limit && (a[pos] == '+' || a[pos] == '-'))
+                pos++;
+            pos = SkipDigits(a, pos, limit);
+        }
+        return pos;
+    }
+
+    // At least one digit.
+    private static int SkipDigits(byte[] a, int pos, int limit) {
+        final int start = pos;
+        while (pos < limit && a[pos] >= '0' && a[pos] <= '9')
+            pos++;
+        return pos == start ? ~pos : pos;
+    }
+
+    private static int SkipLiteral(byte[] a, int pos, int limit) {
+        final byte[] word = a[pos] == 't' ? TRUE : a[pos] == 'f' ? FALSE : NULL;
+        for (int i = 0; i < word.length; i++) {
+            if (pos + i == limit || a[pos + i] != word[i])
+                return ~(pos + i);
+        }
+        return pos + word.length;
+    }
+}
@@ -0,0 +1,590 @@
+package src.dom.parser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Streaming JSON writer. Values are encoded as UTF-8 into a fixed chunk that
+// is handed to the sink whenever it fills up, so memory stays bounded however
+// large the document is. The sink is an OutputStream, a WritableByteChannel
+// (optionally through a caller-provided, reusable direct buffer), a Writer or
+// a ByteBuffer that receives the whole document. JsonType.toString() uses a
+// per-thread writer whose buffer grows instead and is reused between calls.
+//
+// Calls are checked against the JSON grammar: names only inside objects, one
+// value per name, and containers closed in order.
+public class JsonWriter {
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final int CTX_ARRAY = 0;
+    private static final int CTX_OBJECT = 1;
+    private static final int HAS_ELEMENTS = 2;
+
+    // Buffers grown past this are not kept for the next toString().
+    private static final int MAX_RETAINED_SIZE = 1 << 16;
+    private static final ThreadLocal<JsonWriter> STRING_WRITER =
+            ThreadLocal.withInitial(() -> new JsonWriter(256).Growing());
+
+    private OutputStream output;
+    private WritableByteChannel channel;
+    private ByteBuffer staging;
+    private Writer writer;
+    private CharsetDecoder decoder;
+    private CharBuffer chars;
+    private ByteBuffer target;
+    private boolean growing;
+
+    private byte[] buffer;
+    private int pos;
+
+    private int[] stack;
+    private int depth;
+    private boolean afterName;
+    private boolean complete;
+
+    public JsonWriter(OutputStream output) {
+        this(output, DEFAULT_BUFFER_SIZE);
+    }
+
+    public JsonWriter(OutputStream output, int bufferSize) {
+        this(bufferSize);
+        this.output = output;
+    }
+
+    public JsonWriter(WritableByteChannel channel) {
+        this(channel, ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE));
+    }
+
+    // Chunks are copied through 'staging', which can be a direct buffer reused
+    // across writers so the channel never needs a temporary one.
+    public JsonWriter(WritableByteChannel channel, ByteBuffer staging) {
+        this(staging.capacity());
+        this.channel = channel;
+        this.staging = staging;
+    }
+
+    public JsonWriter(Writer writer) {
+        this(DEFAULT_BUFFER_SIZE);
+        this.writer = writer;
+        this.decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.chars = CharBuffer.allocate(DEFAULT_BUFFER_SIZE);
+    }
+
+    // Writes into the remaining space of 'target'; a document that does not fit
+    // ends in a BufferOverflowException.
+    public JsonWriter(ByteBuffer target) {
+        this(DEFAULT_BUFFER_SIZE);
+        this.target = target;
+    }
+
+    private JsonWriter(int bufferSize) {
+        this.buffer = new byte[Math.max(bufferSize, 64)];
+        this.stack = new int[16];
+    }
+
+    private JsonWriter Growing() {
+        this.growing = true;
+        return this;
+    }
+
+    // The JSON text of a tree, written into the calling thread's buffer.
+    static String ToString(JsonType value) {
+        JsonWriter writer = STRING_WRITER.get();
+        if (writer.complete)
+            writer = new JsonWriter(256).Growing();
+        try {
+            writer.Value(value);
+            return new String(writer.buffer, 0, writer.pos, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writer.pos = 0;
+            writer.depth = 0;
+            writer.afterName = false;
+            writer.complete = false;
+            if (writer.buffer.length > MAX_RETAINED_SIZE)
+                writer.buffer = new byte[256];
+        }
+    }
+
+    public JsonWriter BeginObject() throws IOException {
+        this.BeforeValue();
+        this.Push(CTX_OBJECT);
+        this.WriteByte('{');
+        return this;
+    }
+
+    public JsonWriter EndObject() throws IOException {
+        this.Pop(CTX_OBJECT);
+        this.WriteByte('}');
+        return this;
+    }
+
+    public JsonWriter BeginArray() throws IOException {
+        this.BeforeValue();
+        this.Push(CTX_ARRAY);
+        this.WriteByte('[');
+        return this;
+    }
+
+    public JsonWriter EndArray() throws IOException {
+        this.Pop(CTX_ARRAY);
+        this.WriteByte(']');
+        return this;
+    }
+
+    public JsonWriter Name(String name) throws IOException {
+        if (this.depth == 0 || (this.stack[this.depth - 1] & CTX_OBJECT) == 0 || this.afterName)
+            throw new IllegalStateException("Name outside of an object");
+        if ((this.stack[this.depth - 1] & HAS_ELEMENTS) != 0)
+            this.WriteByte(',');
+        this.stack[this.depth - 1] |= HAS_ELEMENTS;
+        this.WriteString(name);
+        this.WriteByte(':');
+        this.afterName = true;
+        return this;
+    }
+
+    // A string quoted, escaped and encoded once, for callers that write the
+    // same names or values over and over, like per-class serializers.
+    public static final class EncodedString {
+        private final byte[] bytes;
+
+        private EncodedString(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    public static EncodedString EncodeString(String s) {
+        JsonWriter writer = new JsonWriter(64).Growing();
+        try {
+            writer.WriteString(s);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new EncodedString(Arrays.copyOf(writer.buffer, writer.pos));
+    }
+
+    public JsonWriter Name(EncodedString name) throws IOException {
+        if (this.depth == 0 || (this.stack[this.depth - 1] & CTX_OBJECT) == 0 || this.afterName)
+            throw new IllegalStateException("Name outside of an object");
+        if ((this.stack[this.depth - 1] & HAS_ELEMENTS) != 0)
+            this.WriteByte(',');
+        this.stack[this.depth - 1] |= HAS_ELEMENTS;
+        this.WriteBytes(name.bytes);
+        this.WriteByte(':');
+        this.afterName = true;
+        return this;
+    }
+
+    public JsonWriter Value(EncodedString value) throws IOException {
+        this.BeforeValue();
+        this.WriteBytes(value.bytes);
+        return this;
+    }
+
+    public JsonWriter Value(String value) throws IOException {
+        if (value == null)
+            return this.NullValue();
+        this.BeforeValue();
+        this.WriteString(value);
+        return this;
+    }
+
+    public JsonWriter Value(boolean value) throws IOException {
+        this.BeforeValue();
+        this.WriteAscii(value ? "true" : "false");
+        return this;
+    }
+
+    public JsonWriter Value(long value) throws IOException {
+        this.BeforeValue();
+        this.WriteLong(value);
+        return this;
+    }
+
+    // NaN and the infinities have no JSON form and are rejected.
+    public JsonWriter Value(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value))
+            throw new IllegalArgumentException("Numeric values must be finite, got " + value);
+        this.BeforeValue();
+        DoubleFormatter.Write(this, value);
+        return this;
+    }
+
+    public JsonWriter Value(float value) throws IOException {
+        if (Float.isNaN(value) || Float.isInfinite(value))
+            throw new IllegalArgumentException("Numeric values must be finite, got " + value);
+        this.BeforeValue();
+        this.WriteAscii(Float.toString(value));
+        return this;
+    }
+
+    public JsonWriter Value(BigDecimal value) throws IOException {
+        if (value == null)
+            return this.NullValue();
+        this.BeforeValue();
+        this.WriteAscii(value.toString());
+        return this;
+    }
+
+    public JsonWriter NullValue() throws IOException {
+        this.BeforeValue();
+        this.WriteAscii("null");
+        return this;
+    }
+
+    // Writes a whole JsonType tree.
+    public JsonWriter Value(JsonType value) throws IOException {
+        if (value == null || value instanceof JsonNull) {
+            this.NullValue();
+        } else if (value instanceof JsonObj) {
+            this.BeginObject();
+            try {
+                ((JsonObj) value).ForEach((k, v) -> {
+                    try {
+                        this.Name(k);
+                        this.Value(v);
+                    } catch (IOException e) {
+                        throw new WriteFailed(e);
+                    }
+                });
+            } catch (WriteFailed e) {
+                throw e.getCause();
+            }
+            this.EndObject();
+        } else if (value instanceof JsonArray) {
+            this.BeginArray();
+            for (JsonType element : ((JsonArray) value).GetValue())
+                this.Value(element);
+            this.EndArray();
+        } else if (value instanceof JsonString) {
+            final JsonString string = (JsonString) value;
+            if (!string.WriteRaw(this))
+                this.Value(string.GetValue());
+        } else if (value instanceof JsonBool) {
+            this.Value(((JsonBool) value).value);
+        } else if (value instanceof JsonNumber) {
+            this.BeforeValue();
+            ((JsonNumber) value).Write(this);
+        } else {
+            throw new IllegalArgumentException("Unknown JsonType " + value.getClass().getName());
+        }
+        return this;
+    }
+
+    // Hands everything written so far to the sink and flushes it.
+    public void Flush() throws IOException {
+        this.Drain();
+        if (this.output != null)
+            this.output.flush();
+        else if (this.writer != null)
+            this.writer.flush();
+    }
+
+    // Passes the chunk on to the sink once it is full.
+    private void Drain() throws IOException {
+        if (this.growing) {
+            this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+            return;
+        }
+        if (this.pos == 0)
+            return;
+        if (this.output != null) {
+            this.output.write(this.buffer, 0, this.pos);
+        } else if (this.channel != null) {
+            this.staging.clear();
+            this.staging.put(this.buffer, 0, this.pos);
+            this.staging.flip();
+            while (this.staging.hasRemaining())
+                this.channel.write(this.staging);
+        } else if (this.writer != null) {
+            ByteBuffer bytes = ByteBuffer.wrap(this.buffer, 0, this.pos);
+            while (true) {
+                this.chars.clear();
+                this.decoder.decode(bytes, this.chars, false);
+                this.chars.flip();
+                if (!this.chars.hasRemaining())
+                    break;
+                this.writer.write(this.chars.array(), 0, this.chars.limit());
+            }
+            // Keep a multi-byte character split across chunks for the next flush.
+            final int left = bytes.remaining();
+            System.arraycopy(this.buffer, bytes.position(), this.buffer, 0, left);
+            this.pos = left;
+            return;
+        } else {
+            this.target.put(this.buffer, 0, this.pos);
+        }
+        this.pos = 0;
+    }
+
+    // True once a complete top-level value has been written.
+    public boolean IsComplete() {
+        return this.complete && this.depth == 0;
+    }
+
+    private void BeforeValue() throws IOException {
+        if (this.depth == 0) {
+            if (this.complete)
+                throw new IllegalStateException("Only one top-level value can be written");
+            this.complete = true;
+            return;
+        }
+        final int top = this.stack[this.depth - 1];
+        if ((top & CTX_OBJECT) != 0) {
+            if (!this.afterName)
+                throw new IllegalStateException("Expected a name before the value");
+            this.afterName = false;
+            return;
+        }
+        if ((top & HAS_ELEMENTS) != 0)
+            this.WriteByte(',');
+        this.stack[this.depth - 1] |= HAS_ELEMENTS;
+    }
+
+    private void Push(int ctx) {
+        if (this.depth == this.stack.length) {
+            int[] grown = new int[this.stack.length * 2];
+            System.arraycopy(this.stack, 0, grown, 0, this.depth);
+            this.stack = grown;
+        }
+        this.stack[this.depth++] = ctx;
+    }
+
+    private void Pop(int ctx) {
+        if (this.depth == 0 || (this.stack[this.depth - 1] & CTX_OBJECT) != ctx || this.afterName)
+            throw new IllegalStateException(ctx == CTX_OBJECT ? "No object to end" : "No array to end");
+        this.depth--;
+    }
+
+    private void Require(int n) throws IOException {
+        if (this.pos + n > this.buffer.length)
+            this.Drain();
+    }
+
+    void WriteByte(char c) throws IOException {
+        if (this.pos == this.buffer.length)
+            this.Drain();
+        this.buffer[this.pos++] = (byte) c;
+    }
+
+    private void WriteBytes(byte[] bytes) throws IOException {
+        this.Require(bytes.length);
+        if (this.pos + bytes.length <= this.buffer.length) {
+            System.arraycopy(bytes, 0, this.buffer, this.pos, bytes.length);
+            this.pos += bytes.length;
+        } else {
+            for (byte b : bytes)
+                this.WriteByte((char) (b & 0xFF));
+        }
+    }
+
+    // Writes the UTF-8 bytes of an escape-free string as the next value, unless
+    // it holds a raw control character that has to be escaped after all.
+    boolean WriteStringBytes(byte[] bytes, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            if (bytes[i] >= 0 && bytes[i] < 0x20)
+                return false;
+        }
+        this.BeforeValue();
+        this.WriteByte('"');
+        while (length > 0) {
+            if (this.pos == this.buffer.length)
+                this.Drain();
+            final int n = Math.min(length, this.buffer.length - this.pos);
+            System.arraycopy(bytes, offset, this.buffer, this.pos, n);
+            this.pos += n;
+            offset += n;
+            length -= n;
+        }
+        this.WriteByte('"');
+        return true;
+    }
+
+    void WriteAscii(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++)
+            this.WriteByte(s.charAt(i));
+    }
+
+    void WriteLong(long value) throws IOException {
+        this.Require(20);
+        if (value < 0) {
+            this.buffer[this.pos++] = '-';
+        } else {
+            value = -value;
+        }
+        // Digits are produced from the negated value so Long.MIN_VALUE works too.
+        final int start = this.pos;
+        do {
+            this.buffer[this.pos++] = (byte) ('0' - (value % 10));
+            value /= 10;
+        } while (value != 0);
+        for (int i = start, j = this.pos - 1; i < j; i++, j--) {
+            final byte t = this.buffer[i];
+            this.buffer[i] = this.buffer[j];
+            this.buffer[j] = t;
+        }
+    }
+
+    // Writes mantissa * 10^exponent exactly, the mantissa read as unsigned:
+    // plainly while the point is near the digits, otherwise as d.dddE-x.
+    void WriteDecimal(long mantissa, int exponent, boolean negative) throws IOException {
+        if (mantissa == 0) {
+            // 0e5 or -0.0e10; the layouts below would pad the zero with more zeros.
+            this.WriteAscii(negative ? "-0.0" : "0");
+            return;
+        }
+        final int digits = DigitCount(mantissa);
+        final int point = digits + exponent;
+        // Sign, point, up to 21 zeros or "0." and 5 zeros, or an exponent.
+        this.Require(digits + 24);
+        if (negative)
+            this.buffer[this.pos++] = '-';
+        if (exponent >= 0 && point <= 21) {
+            this.WriteDigits(mantissa, digits);
+            for (int i = 0; i < exponent; i++)
+                this.buffer[this.pos++] = '0';
+        } else if (exponent < 0 && point > 0) {
+            this.WriteDigits(mantissa, digits);
+            this.InsertPoint(this.pos - digits + point);
+        } else if (exponent < 0 && point > -6) {
+            this.buffer[this.pos++] = '0';
+            this.buffer[this.pos++] = '.';
+            for (int i = point; i < 0; i++)
+                this.buffer[this.pos++] = '0';
+            this.WriteDigits(mantissa, digits);
+        } else {
+            this.WriteDigits(mantissa, digits);
+            if (digits > 1)
+                this.InsertPoint(this.pos - digits + 1);
+            this.buffer[this.pos++] = 'E';
+            this.WriteLong(point - 1);
+        }
+    }
+
+    private static int DigitCount(long mantissa) {
+        int n = 1;
+        for (long p = 10; n < 20 && Long.compareUnsigned(mantissa, p) >= 0; p *= 10)
+            n++;
+        return n;
+    }
+
+    // Writes the unsigned mantissa's 'digits' digits, last one first.
+    private void WriteDigits(long mantissa, int digits) {
+        int i = this.pos + digits;
+        this.pos = i;
+        if (mantissa < 0) {
+            final long q = Long.divideUnsigned(mantissa, 10);
+            this.buffer[--i] = (byte) ('0' + (mantissa - q * 10));
+            mantissa = q;
+        }
+        do {
+            this.buffer[--i] = (byte) ('0' + mantissa % 10);
+            mantissa /= 10;
+        } while (mantissa != 0);
+    }
+
+    private void InsertPoint(int at) {
+        System.arraycopy(this.buffer, at, this.buffer, at + 1, this.pos - at);
+        this.buffer[at] = '.';
+        this.pos++;
+    }
+
+    // Escape for each ASCII character: 0 to copy it, 'u' for a hex escape, or the
+    // character that follows the backslash.
+    private static final byte[] ESCAPES = new byte[128];
+
+    static {
+        for (int c = 0; c < 0x20; c++)
+            ESCAPES[c] = 'u';
+        ESCAPES['"'] = '"';
+        ESCAPES['\\'] = '\\';
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\r'] = 'r';
+        ESCAPES['\t'] = 't';
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\f'] = 'f';
+    }
+
+    private void WriteString(String s) throws IOException {
+        this.WriteByte('"');
+        final int length = s.length();
+        int i = 0;
+        while (i < length) {
+            // A char takes at most 6 bytes, so the chunk has room for 'end - i'.
+            if (this.buffer.length - this.pos < 12)
+                this.Drain();
+            final int end = Math.min(length, i + (this.buffer.length - this.pos) / 6);
+            for (; i < end; i++) {
+                final char c = s.charAt(i);
+                if (c < 0x80) {
+                    final byte escape = ESCAPES[c];
+                    if (escape == 0)
+                        this.buffer[this.pos++] = (byte) c;
+                    else if (escape == 'u')
+                        this.WriteUnicodeEscape(c);
+                    else
+                        this.WriteEscape(escape);
+                } else if (c < 0x800) {
+                    this.buffer[this.pos++] = (byte) (0xC0 | (c >> 6));
+                    this.buffer[this.pos++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                        final int cp = Character.toCodePoint(c, s.charAt(++i));
+                        this.buffer[this.pos++] = (byte) (0xF0 | (cp >> 18));
+                        this.buffer[this.pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                        this.buffer[this.pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                        this.buffer[this.pos++] = (byte) (0x80 | (cp & 0x3F));
+                    } else {
+                        // A lone surrogate cannot be encoded as UTF-8, but can be escaped.
+                        this.WriteUnicodeEscape(c);
+                    }
+                } else {
+                    this.buffer[this.pos++] = (byte) (0xE0 | (c >> 12));
+                    this.buffer[this.pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    this.buffer[this.pos++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+        this.WriteByte('"');
+    }
+
+    private void WriteEscape(byte c) {
+        this.buffer[this.pos++] = '\\';
+        this.buffer[this.pos++] = c;
+    }
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private void WriteUnicodeEscape(char c) {
+        this.buffer[this.pos++] = '\\';
+        this.buffer[this.pos++] = 'u';
+        this.buffer[this.pos++] = HEX[(c >> 12) & 0xF];
+        this.buffer[this.pos++] = HEX[(c >> 8) & 0xF];
+        this.buffer[this.pos++] = HEX[(c >> 4) & 0xF];
+        this.buffer[this.pos++] = HEX[c & 0xF];
+    }
+
+    // Carries an IOException out of the ForEach callback.
+    private static final class WriteFailed extends RuntimeException {
+        WriteFailed(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
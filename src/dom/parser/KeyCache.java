@@ -0,0 +1,85 @@
+package src.dom.parser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Bounded cache from the UTF-8 bytes of an object key to its String, so
+// records that repeat the same keys share one String per key instead of
+// decoding a new one each time. The table is open-addressed with a short
+// probe sequence; once every probed slot is taken the first one is replaced,
+// so the cache never grows past its capacity.
+//
+// Entries are immutable, which makes a cache safe to share between parsers on
+// different threads: a racing lookup sees either the old entry or the new one.
+// A shared cache also shares its object shapes, see JsonParser.SetObjectLayout().
+public class KeyCache {
+    static final int MAX_KEY_LENGTH = 64;
+    private static final int PROBES = 4;
+
+    private static final class Entry {
+        final byte[] bytes;
+        final int hash;
+        final String value;
+
+        Entry(byte[] bytes, int hash, String value) {
+            this.bytes = bytes;
+            this.hash = hash;
+            this.value = value;
+        }
+    }
+
+    private final Entry[] table;
+    private final int mask;
+    final ObjectShape shapes = ObjectShape.Root();
+
+    public KeyCache() {
+        this(4096);
+    }
+
+    public KeyCache(int capacity) {
+        final int size = Math.max(16, Integer.highestOneBit(capacity - 1) << 1);
+        this.table = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    // Seeds the cache with a known key, so that keys read later are this very
+    // String and can be compared by reference.
+    public void Add(String key) {
+        final byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_KEY_LENGTH && this.Get(bytes, 0, bytes.length) == null)
+            this.Put(bytes, 0, bytes.length, key);
+    }
+
+    // Returns the cached key for the bytes, or null.
+    String Get(byte[] bytes, int offset, int length) {
+        final int hash = Hash(bytes, offset, length);
+        for (int i = 0; i < PROBES; i++) {
+            final Entry e = this.table[(hash + i) & this.mask];
+            if (e == null)
+                return null;
+            if (e.hash == hash && Arrays.equals(e.bytes, 0, e.bytes.length, bytes, offset, offset + length))
+                return e.value;
+        }
+        return null;
+    }
+
+    void Put(byte[] bytes, int offset, int length, String value) {
+        final int hash = Hash(bytes, offset, length);
+        final Entry entry = new Entry(Arrays.copyOfRange(bytes, offset, offset + length), hash, value);
+        for (int i = 0; i < PROBES; i++) {
+            final int slot = (hash + i) & this.mask;
+            if (this.table[slot] == null) {
+                this.table[slot] = entry;
+                return;
+            }
+        }
+        this.table[hash & this.mask] = entry;
+    }
+
+    private static int Hash(byte[] bytes, int offset, int length) {
+        int h = length;
+        for (int i = 0; i < length; i++)
+            h = 31 * h + bytes[offset + i];
+        return h ^ (h >>> 16);
+    }
+}
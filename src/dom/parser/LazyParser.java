@@ -0,0 +1,351 @@
+package src.dom.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+// Lazy parse mode. One validating pass over an in-memory buffer records a
+// tape of value offsets; the returned JsonObj/JsonArray are views over it that
+// only build their HashMap/ArrayList, and the child values in it, once
+// GetValue() is called. Get(key) and Get(index) on an untouched view find the
+// child on the tape instead, so reading a few fields of a large document
+// allocates little more than the tape.
+//
+// The views keep the source buffer alive and share one tokenizer, so a lazy
+// document must not be read from several threads at once.
+public class LazyParser {
+    private ByteBuffer source;
+
+    public LazyParser(byte[] source) {
+        this(source, 0, source.length);
+    }
+
+    public LazyParser(byte[] source, int offset, int length) {
+        this(ByteBuffer.wrap(source, offset, length));
+    }
+
+    public LazyParser(ByteBuffer source) {
+        this.source = source;
+    }
+
+    public LazyParser(Path path) throws IOException {
+        this(JsonParser.MapFile(path));
+    }
+
+    public JsonType Parse() throws ParseException {
+        Tokenizer tokenizer = new Tokenizer(this.source);
+        // The document points into the source anyway, so its strings may too.
+        tokenizer.views = true;
+        LazyDocument document = new LazyDocument(tokenizer, this.source.remaining());
+        return document.Node(0);
+    }
+}
+
+// Every value and key is a node on the tape, in document order, identified
+// by its slot. A scalar or key takes one slot holding the offset of its token;
+// a container takes two, its offset stored complemented followed by the slot
+// after its subtree. An object's children are its keys, each followed by its
+// value; an array's are its elements.
+final class LazyDocument {
+    private final Tokenizer tokenizer;
+    private int[] tape;
+    private int count;
+
+    LazyDocument(Tokenizer tokenizer, int length) throws ParseException {
+        this.tokenizer = tokenizer;
+        // Dense documents need about one slot per three or four bytes, sparse
+        // ones far fewer; start small and let Add() double the tape.
+        this.tape = new int[Math.max(16, Math.min(length / 16, 1 << 14))];
+        this.Value(this.NextToken());
+        if (this.tokenizer.HasToken())
+            throw new ParseException("Unexpected data after the top-level value");
+    }
+
+    int FirstChild(int node) {
+        return node + 2;
+    }
+
+    int NextSibling(int node) {
+        return this.tape[node] < 0 ? this.tape[node + 1] : node + 1;
+    }
+
+    // The slot after the last child of a container.
+    int End(int node) {
+        return this.tape[node + 1];
+    }
+
+    private int Position(int node) {
+        final int position = this.tape[node];
+        return position < 0 ? ~position : position;
+    }
+
+    boolean KeyEquals(int node, String key) throws ParseException {
+        this.tokenizer.Seek(this.Position(node));
+        this.tokenizer.Tokenize();
+        return this.tokenizer.StringEquals(key);
+    }
+
+    String Key(int node) throws ParseException {
+        this.tokenizer.Seek(this.Position(node));
+        this.tokenizer.Tokenize();
+        return this.tokenizer.StringValue();
+    }
+
+    // Builds the value of a node; containers come back as new lazy views.
+    JsonType Node(int node) throws ParseException {
+        this.tokenizer.Seek(this.Position(node));
+        switch (this.tokenizer.Tokenize()) {
+            case NUMBER:
+                return this.tokenizer.NumberValue();
+            case STRING:
+                return this.tokenizer.StringNode();
+            case BOOL:
+                return new JsonBool(this.tokenizer.boolValue);
+            case NULL:
+                return new JsonNull();
+            case LEFT_CURLY:
+                return new LazyObj(this, node);
+            default:
+                return new LazyArray(this, node);
+        }
+    }
+
+    private TokenType NextToken() throws ParseException {
+        if (!this.tokenizer.HasToken())
+            throw new ParseException("Unexpected end of input");
+        return this.tokenizer.Tokenize();
+    }
+
+    private void Expect(TokenType tok, TokenType expectedType) throws ParseException {
+        if (tok != expectedType)
+            throw new ParseException(String.format("Expected %s, got %s", expectedType, tok));
+    }
+
+    private void Add(int entry) {
+        if (this.count == this.tape.length)
+            this.tape = Arrays.copyOf(this.tape, this.tape.length * 2);
+        this.tape[this.count++] = entry;
+    }
+
+    private void Value(TokenType tok) throws ParseException {
+        final int node = this.count;
+        switch (tok) {
+            case NUMBER:
+            case BOOL:
+            case NULL:
+                this.Add(this.tokenizer.start);
+                return;
+            case STRING:
+                this.Add(this.tokenizer.start - 1);
+                return;
+            case LEFT_CURLY:
+            case LEFT_PAREN:
+                this.Add(~this.tokenizer.start);
+                this.Add(0);
+                break;
+            default:
+                throw new ParseException("Unexpected " + tok);
+        }
+        if (tok == TokenType.LEFT_CURLY) {
+            tok = this.NextToken();
+            while (tok != TokenType.RIGHT_CURLY) {
+                this.Expect(tok, TokenType.STRING);
+                this.Add(this.tokenizer.start - 1);
+                this.Expect(this.NextToken(), TokenType.COLON);
+                this.Value(this.NextToken());
+                tok = this.NextToken();
+                if (tok == TokenType.COMMA) {
+                    tok = this.NextToken();
+                    this.Expect(tok, TokenType.STRING);
+                } else {
+                    this.Expect(tok, TokenType.RIGHT_CURLY);
+                }
+            }
+        } else {
+            tok = this.NextToken();
+            while (tok != TokenType.RIGHT_PAREN) {
+                this.Value(tok);
+                tok = this.NextToken();
+                if (tok == TokenType.COMMA) {
+                    tok = this.NextToken();
+                    if (tok == TokenType.RIGHT_PAREN)
+                        throw new ParseException("Unexpected " + tok);
+                } else {
+                    this.Expect(tok, TokenType.RIGHT_PAREN);
+                }
+            }
+        }
+        this.tape[node + 1] = this.count;
+    }
+}
+
+final class LazyObj extends JsonObj {
+    private final LazyDocument document;
+    private final int node;
+    private HashMap<String, JsonType> value;
+    // Tape slot of each key, found on the first Get(); its value follows it.
+    private int[] slots;
+    // The value of each key once built, so Get() returns the same node.
+    private JsonType[] children;
+    // Entry of each key, built on the second Get() so that later lookups do
+    // not compare every key again.
+    private HashMap<String, Integer> index;
+
+    LazyObj(LazyDocument document, int node) {
+        super(null);
+        this.document = document;
+        this.node = node;
+    }
+
+    @Override
+    public HashMap<String, JsonType> GetValue() {
+        if (this.value == null) {
+            final int[] slots = this.Slots();
+            HashMap<String, JsonType> value = new LinkedHashMap<>();
+            try {
+                for (int i = 0; i < slots.length; i++)
+                    value.put(this.document.Key(slots[i]), this.Child(i));
+            } catch (ParseException e) {
+                // The tape was built from a validated source.
+                throw new IllegalStateException(e);
+            }
+            this.value = value;
+            this.slots = null;
+            this.children = null;
+            this.index = null;
+        }
+        return this.value;
+    }
+
+    // Later duplicates win, as in the materialized map.
+    @Override
+    public JsonType Get(String key) {
+        if (this.value != null)
+            return this.value.get(key);
+        try {
+            final int[] slots = this.Slots();
+            int found = -1;
+            if (this.index != null) {
+                final Integer entry = this.index.get(key);
+                found = entry == null ? -1 : entry;
+            } else if (this.children == null) {
+                this.children = new JsonType[slots.length];
+                for (int i = 0; i < slots.length; i++) {
+                    if (this.document.KeyEquals(slots[i], key))
+                        found = i;
+                }
+            } else {
+                HashMap<String, Integer> index = new HashMap<>();
+                for (int i = 0; i < slots.length; i++)
+                    index.put(this.document.Key(slots[i]), i);
+                this.index = index;
+                final Integer entry = index.get(key);
+                found = entry == null ? -1 : entry;
+            }
+            return found < 0 ? null : this.Child(found);
+        } catch (ParseException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private JsonType Child(int entry) throws ParseException {
+        if (this.children == null)
+            return this.document.Node(this.document.NextSibling(this.slots[entry]));
+        if (this.children[entry] == null)
+            this.children[entry] = this.document.Node(this.document.NextSibling(this.slots[entry]));
+        return this.children[entry];
+    }
+
+    private int[] Slots() {
+        if (this.slots == null) {
+            int[] slots = new int[8];
+            int n = 0;
+            for (int i = this.document.FirstChild(this.node); i < this.document.End(this.node);) {
+                if (n == slots.length)
+                    slots = Arrays.copyOf(slots, n * 2);
+                slots[n++] = i;
+                i = this.document.NextSibling(this.document.NextSibling(i));
+            }
+            this.slots = Arrays.copyOf(slots, n);
+        }
+        return this.slots;
+    }
+}
+
+final class LazyArray extends JsonArray {
+    private final LazyDocument document;
+    private final int node;
+    private ArrayList<JsonType> value;
+    // Tape slot of each element, found on the first Get() or Size().
+    private int[] slots;
+    // Each element once built, so Get() returns the same node.
+    private JsonType[] children;
+
+    LazyArray(LazyDocument document, int node) {
+        super(null);
+        this.document = document;
+        this.node = node;
+    }
+
+    @Override
+    public ArrayList<JsonType> GetValue() {
+        if (this.value == null) {
+            final int[] slots = this.Slots();
+            ArrayList<JsonType> value = new ArrayList<>(slots.length);
+            try {
+                for (int i = 0; i < slots.length; i++)
+                    value.add(this.children != null && this.children[i] != null ? this.children[i]
+                            : this.document.Node(slots[i]));
+            } catch (ParseException e) {
+                throw new IllegalStateException(e);
+            }
+            this.value = value;
+            this.slots = null;
+            this.children = null;
+        }
+        return this.value;
+    }
+
+    @Override
+    public JsonType Get(int index) {
+        if (this.value != null)
+            return this.value.get(index);
+        final int[] slots = this.Slots();
+        if (index < 0 || index >= slots.length)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + slots.length);
+        if (this.children == null)
+            this.children = new JsonType[slots.length];
+        try {
+            if (this.children[index] == null)
+                this.children[index] = this.document.Node(slots[index]);
+            return this.children[index];
+        } catch (ParseException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    @Override
+    public int Size() {
+        if (this.value != null)
+            return this.value.size();
+        return this.Slots().length;
+    }
+
+    private int[] Slots() {
+        if (this.slots == null) {
+            int[] slots = new int[8];
+            int n = 0;
+            for (int i = this.document.FirstChild(this.node); i < this.document.End(this.node);
+                    i = this.document.NextSibling(i)) {
+                if (n == slots.length)
+                    slots = Arrays.copyOf(slots, n * 2);
+                slots[n++] = i;
+            }
+            this.slots = Arrays.copyOf(slots, n);
+        }
+        return this.slots;
+    }
+}
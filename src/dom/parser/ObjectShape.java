@@ -0,0 +1,116 @@
+package src.dom.parser;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+// The ordered key set of an object, as in the hidden classes of JavaScript
+// engines. Shapes form a tree rooted at the empty shape: adding a key moves to
+// a child shape, which is created once and then reused, so records with the
+// same keys in the same order end up sharing one shape and only store their
+// values. Transitions are thread-safe, so a tree can be shared.
+//
+// A tree is bounded in the number of shapes and keys per shape; With()
+// returns null beyond that and the caller falls back to a plain HashMap.
+final class ObjectShape {
+    static final int MAX_SHAPES = 4096;
+    static final int MAX_KEYS = 64;
+    private static final int LINEAR_SCAN_KEYS = 8;
+
+    final String[] keys;
+    private final HashMap<String, Integer> index;
+    private final AtomicInteger shapeCount;
+    private final ConcurrentHashMap<String, ObjectShape> transitions = new ConcurrentHashMap<>();
+
+    private ObjectShape(String[] keys, AtomicInteger shapeCount) {
+        this.keys = keys;
+        this.shapeCount = shapeCount;
+        if (keys.length > LINEAR_SCAN_KEYS) {
+            this.index = new HashMap<>();
+            for (int i = 0; i < keys.length; i++)
+                this.index.put(keys[i], i);
+        } else {
+            this.index = null;
+        }
+    }
+
+    static ObjectShape Root() {
+        return new ObjectShape(new String[0], new AtomicInteger(1));
+    }
+
+    int IndexOf(String key) {
+        if (this.index != null) {
+            final Integer i = this.index.get(key);
+            return i == null ? -1 : i;
+        }
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.keys[i].equals(key))
+                return i;
+        }
+        return -1;
+    }
+
+    // The shape with key appended, or null if the tree is full.
+    ObjectShape With(String key) {
+        final ObjectShape next = this.transitions.get(key);
+        if (next != null)
+            return next;
+        if (this.keys.length == MAX_KEYS || this.shapeCount.get() >= MAX_SHAPES)
+            return null;
+        return this.transitions.computeIfAbsent(key, k -> {
+            this.shapeCount.incrementAndGet();
+            String[] keys = Arrays.copyOf(this.keys, this.keys.length + 1);
+            keys[this.keys.length] = k;
+            return new ObjectShape(keys, this.shapeCount);
+        });
+    }
+
+    HashMap<String, JsonType> ToMap(JsonType[] values, int count) {
+        HashMap<String, JsonType> res = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++)
+            res.put(this.keys[i], values[i]);
+        return res;
+    }
+}
+
+// A JsonObj that stores only its values, by position in its shape. The
+// HashMap is built on the first GetValue() and takes over from then on.
+final class ShapedObj extends JsonObj {
+    private final ObjectShape shape;
+    private final JsonType[] values;
+    private HashMap<String, JsonType> value;
+
+    ShapedObj(ObjectShape shape, JsonType[] values) {
+        super(null);
+        this.shape = shape;
+        this.values = values;
+    }
+
+    @Override
+    public HashMap<String, JsonType> GetValue() {
+        if (this.value == null)
+            this.value = this.shape.ToMap(this.values, this.values.length);
+        return this.value;
+    }
+
+    @Override
+    public JsonType Get(String key) {
+        if (this.value != null)
+            return this.value.get(key);
+        final int i = this.shape.IndexOf(key);
+        return i < 0 ? null : this.values[i];
+    }
+
+    @Override
+    public void ForEach(BiConsumer<String, JsonType> action) {
+        if (this.value != null) {
+            this.value.forEach(action);
+            return;
+        }
+        for (int i = 0; i < this.values.length; i++)
+            action.accept(this.shape.keys[i], this.values[i]);
+    }
+}
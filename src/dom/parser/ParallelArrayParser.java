@@ -0,0 +1,284 @@
+package src.dom.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Parses a document whose top-level value is one large array using several
+// threads. A structural pre-scan, which only tracks strings and nesting depth,
+// finds the commas between the top-level elements; on large inputs it runs on
+// the pool as well, chunk by chunk. The element ranges are
+// then parsed concurrently into their slot of the result, keeping input order.
+public class ParallelArrayParser {
+    static final int SPLIT_THRESHOLD = 1 << 20;
+
+    private ByteBuffer source;
+
+    public ParallelArrayParser(byte[] source) {
+        this(source, 0, source.length);
+    }
+
+    public ParallelArrayParser(byte[] source, int offset, int length) {
+        this(ByteBuffer.wrap(source, offset, length));
+    }
+
+    public ParallelArrayParser(ByteBuffer source) {
+        this.source = source;
+    }
+
+    public ParallelArrayParser(Path path) throws IOException {
+        this(JsonParser.MapFile(path));
+    }
+
+    public JsonArray Parse() throws ParseException {
+        return this.Parse(ForkJoinPool.commonPool());
+    }
+
+    public JsonArray Parse(ForkJoinPool pool) throws ParseException {
+        int[] bounds = this.ScanElements(pool);
+        JsonType[] elements = new JsonType[bounds.length - 1];
+        if (elements.length > 0) {
+            try {
+                pool.invoke(new Elements(this.source, bounds, elements, 0, elements.length));
+            } catch (UncheckedParseException e) {
+                throw e.getCause();
+            }
+        }
+        return new JsonArray(new ArrayList<>(Arrays.asList(elements)));
+    }
+
+    // Returns the element boundaries: element i spans bounds[i] + 1 until
+    // bounds[i + 1], where the entries are the '[', the top-level commas and
+    // the closing ']'.
+    //
+    // Large inputs are pre-scanned in chunks on the pool. A chunk cannot know
+    // whether it starts inside a string, so it is scanned both ways; one
+    // serial pass over the chunk results then picks the right one for each
+    // chunk and keeps the commas at depth zero.
+    private int[] ScanElements(ForkJoinPool pool) throws ParseException {
+        int pos = this.SkipWhitespace(this.source.position());
+        int end = this.source.limit();
+        while (end > pos && (this.source.get(end - 1) & 0xff) <= ' ')
+            end--;
+        if (pos == end || this.source.get(pos) != '[' || this.source.get(end - 1) != ']')
+            throw new ParseException("Expected a top-level array");
+
+        final int from = pos + 1;
+        final int to = end - 1;
+        final int count = (int) Math.max(1, Math.min(pool.getParallelism() * 4L, (to - from) / SPLIT_THRESHOLD));
+        Chunk[] chunks = new Chunk[count];
+        int start = from;
+        for (int i = 0; i < count; i++) {
+            int stop = to;
+            if (i < count - 1) {
+                // Never split right after a backslash, so no escape straddles chunks.
+                stop = Math.max(start, from + (int) ((long) (to - from) * (i + 1) / count));
+                while (stop < to && this.source.get(stop - 1) == '\\')
+                    stop++;
+            }
+            chunks[i] = new Chunk(this.source, start, stop, i > 0);
+            start = stop;
+        }
+        if (count == 1)
+            chunks[0].compute();
+        else
+            pool.invoke(new Chunks(chunks));
+
+        int[] bounds = new int[64];
+        int size = 0;
+        bounds[size++] = pos;
+        int depth = 0;
+        boolean inString = false;
+        for (Chunk chunk : chunks) {
+            final int h = inString ? 1 : 0;
+            if (chunk.lowest[h] < -depth) {
+                final int at = chunk.FindUnbalanced(inString, depth);
+                throw new ParseException("Unbalanced " + (char) this.source.get(at) + " at byte " + at);
+            }
+            if (chunk.lowest[h] == -depth) {
+                if (size + chunk.counts[h] >= bounds.length)
+                    bounds = Arrays.copyOf(bounds, Math.max(bounds.length * 2, size + chunk.counts[h] + 1));
+                System.arraycopy(chunk.commas[h], 0, bounds, size, chunk.counts[h]);
+                size += chunk.counts[h];
+            }
+            depth += chunk.depths[h];
+            inString = chunk.inStrings[h];
+        }
+        if (inString || depth != 0)
+            throw new ParseException("Unexpected end of input");
+
+        if (size == 1 && this.SkipWhitespace(bounds[0] + 1) == end - 1)
+            return new int[] { bounds[0] };
+        bounds = Arrays.copyOf(bounds, size + 1);
+        bounds[size] = end - 1;
+        return bounds;
+    }
+
+    private int SkipWhitespace(int pos) {
+        final int limit = this.source.limit();
+        while (pos < limit && (this.source.get(pos) & 0xff) <= ' ')
+            pos++;
+        return pos;
+    }
+
+    private static final class Chunks extends RecursiveAction {
+        private final Chunk[] chunks;
+
+        Chunks(Chunk[] chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(this.chunks);
+        }
+    }
+
+    // Scan of one chunk, for each of the two ways it may start: index 0 outside
+    // of a string, 1 inside one. Depths are relative to the chunk start; the
+    // commas kept are those at the lowest depth the chunk reaches, which are
+    // the top-level ones when that depth is the array's own.
+    private static final class Chunk extends RecursiveAction {
+        private final ByteBuffer source;
+        private final byte[] array;
+        private final int offset;
+        private final int from;
+        private final int to;
+        private final boolean both;
+
+        final int[][] commas = new int[2][];
+        final int[] counts = new int[2];
+        final int[] depths = new int[2];
+        final int[] lowest = new int[2];
+        final boolean[] inStrings = new boolean[2];
+
+        Chunk(ByteBuffer source, int from, int to, boolean both) {
+            this.source = source;
+            if (source.hasArray()) {
+                this.array = source.array();
+                this.offset = source.arrayOffset();
+            } else {
+                this.array = null;
+                this.offset = 0;
+            }
+            this.from = from;
+            this.to = to;
+            this.both = both;
+        }
+
+        @Override
+        protected void compute() {
+            this.Scan(0, false, Integer.MIN_VALUE);
+            if (this.both)
+                this.Scan(1, true, Integer.MIN_VALUE);
+        }
+
+        // Rescans with the chunk's actual start state for the position of the
+        // first bracket that closes more than is open.
+        int FindUnbalanced(boolean inString, int depth) {
+            return this.Scan(inString ? 1 : 0, inString, -depth);
+        }
+
+        // Stops at a depth below 'floor' and returns that position, otherwise
+        // returns -1.
+        private int Scan(int h, boolean inString, int floor) {
+            int[] commas = new int[16];
+            int count = 0;
+            int depth = 0;
+            int lowest = 0;
+            for (int pos = this.from; pos < this.to; pos++) {
+                if (inString) {
+                    pos = StringScanner.SkipStringBody(this.array, this.offset, pos, this.to);
+                    if (pos == this.to)
+                        break;
+                    final byte c = this.ByteAt(pos);
+                    if (c == '\\')
+                        pos++;
+                    else if (c == '"')
+                        inString = false;
+                    continue;
+                }
+                switch (this.ByteAt(pos)) {
+                    case '"':
+                        inString = true;
+                        break;
+                    case '[':
+                    case '{':
+                        depth++;
+                        break;
+                    case ']':
+                    case '}':
+                        if (--depth < lowest) {
+                            if (depth < floor)
+                                return pos;
+                            lowest = depth;
+                            count = 0;
+                        }
+                        break;
+                    case ',':
+                        if (depth == lowest) {
+                            if (count == commas.length)
+                                commas = Arrays.copyOf(commas, count * 2);
+                            commas[count++] = pos;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            this.commas[h] = commas;
+            this.counts[h] = count;
+            this.depths[h] = depth;
+            this.lowest[h] = lowest;
+            this.inStrings[h] = inString;
+            return -1;
+        }
+
+        private byte ByteAt(int pos) {
+            return this.array != null ? this.array[this.offset + pos] : this.source.get(pos);
+        }
+    }
+
+    private static final class Elements extends RecursiveAction {
+        private final ByteBuffer source;
+        private final int[] bounds;
+        private final JsonType[] elements;
+        private final int from;
+        private final int to;
+
+        Elements(ByteBuffer source, int[] bounds, JsonType[] elements, int from, int to) {
+            this.source = source;
+            this.bounds = bounds;
+            this.elements = elements;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from == 1 || this.bounds[this.to] - this.bounds[this.from] <= SPLIT_THRESHOLD) {
+                for (int i = this.from; i < this.to; i++)
+                    this.elements[i] = this.ParseElement(i);
+                return;
+            }
+            final int mid = (this.from + this.to) >>> 1;
+            invokeAll(new Elements(this.source, this.bounds, this.elements, this.from, mid),
+                    new Elements(this.source, this.bounds, this.elements, mid, this.to));
+        }
+
+        private JsonType ParseElement(int i) {
+            ByteBuffer range = this.source.duplicate();
+            range.limit(this.bounds[i + 1]).position(this.bounds[i] + 1);
+            try {
+                return new JsonParser(range).Parse();
+            } catch (ParseException e) {
+                throw new UncheckedParseException(
+                        new ParseException(String.format("Element %d: %s", i, e.getMessage())));
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package src.dom.parser;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// SWAR scans over string bodies, and over the lines of JSON Lines input: eight
+// bytes are read as one little-endian long and tested for the bytes that end a
+// run, so long strings and lines are crossed a word at a time. String bodies
+// are only scanned this way in heap arrays.
+class StringScanner {
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH = 0x8080808080808080L;
+    private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+
+    private StringScanner() {
+    }
+
+    // Returns the first position at or after pos that may hold a quote or
+    // backslash, checking eight bytes per step.
+    static int SkipStringBody(byte[] array, int offset, int pos, int limit) {
+        if (array == null)
+            return pos;
+        while (pos + 8 <= limit) {
+            final long w = (long) LONGS.get(array, offset + pos);
+            final long m = Equal(w, '"') | Equal(w, '\\');
+            if (m != 0)
+                return pos + (Long.numberOfTrailingZeros(m) >>> 3);
+            pos += 8;
+        }
+        return pos;
+    }
+
+    // Like SkipStringBody, also stopping at control characters and non-ASCII
+    // bytes. Bytes below the first stop never borrow, so its position is exact.
+    static int SkipPlainString(byte[] array, int offset, int pos, int limit) {
+        while (pos + 8 <= limit) {
+            final long w = (long) LONGS.get(array, offset + pos);
+            final long m = Equal(w, '"') | Equal(w, '\\') | (((w - ONES * 0x20) | w) & HIGH);
+            if (m != 0)
+                return pos + (Long.numberOfTrailingZeros(m) >>> 3);
+            pos += 8;
+        }
+        return pos;
+    }
+
+    // The first '\n' at or after pos, or limit; any buffer, read eight bytes
+    // at a time. 'source' must be in little-endian order.
+    static int NextNewline(ByteBuffer source, int pos, int limit) {
+        while (pos + 8 <= limit) {
+            final long m = Equal(source.getLong(pos), '\n');
+            if (m != 0)
+                return pos + (Long.numberOfTrailingZeros(m) >>> 3);
+            pos += 8;
+        }
+        while (pos < limit && source.get(pos) != '\n')
+            pos++;
+        return pos;
+    }
+
+    // High bit of each byte set where the byte equals c.
+    private static long Equal(long w, char c) {
+        final long x = w ^ (ONES * c);
+        return ~(((x & LOW7) + LOW7) | x) & HIGH;
+    }
+}
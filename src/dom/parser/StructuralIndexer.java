@@ -0,0 +1,185 @@
+package src.dom.parser;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Stage-1 structural indexer in the style of simdjson. Each 64-byte block is
+// read as eight little-endian longs and classified with SWAR arithmetic into
+// one 64-bit mask per character class. String regions come out of the quote
+// and backslash masks through a prefix XOR, with no per-byte branching.
+//
+// The output is the position of every token start: structural characters,
+// both quotes of every string and the first byte of every number or literal.
+// A closing quote is stored complemented (~pos) when its string contains a
+// backslash, so the tokenizer knows which strings need escape handling.
+//
+// Input is indexed one window at a time, so the position buffer stays bounded
+// however large the document is.
+//
+// Without the Vector API this is about half as fast as the byte loop it
+// replaces (TokenizerBench.TokenizeIndexed), so indexed tokenizing is opt-in:
+// Tokenizer(ByteBuffer, true), and JsonParser and JsonReader likewise.
+class StructuralIndexer {
+    static final int WINDOW = 16 * 1024;
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH = 0x8080808080808080L;
+    private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+    private static final long EVEN_BITS = 0x5555555555555555L;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+
+    private final ByteBuffer source;
+    private final byte[] array;
+    private final int arrayOffset;
+    private final int limit;
+    private int pos;
+
+    int[] positions;
+    int count;
+
+    private long prevInString;
+    private long prevEscaped;
+    private long prevScalar;
+    private boolean stringHasEscape;
+
+    StructuralIndexer(ByteBuffer source, int start, int limit) {
+        this.source = source.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.array = source.hasArray() ? source.array() : null;
+        this.arrayOffset = source.hasArray() ? source.arrayOffset() : 0;
+        this.pos = start;
+        this.limit = limit;
+        this.positions = new int[Math.min(WINDOW, limit - start) + 1];
+    }
+
+    // Replaces the positions with those of the next window. Returns false once
+    // the whole input has been indexed.
+    boolean IndexNext() {
+        if (this.pos >= this.limit)
+            return false;
+        this.count = 0;
+        final int windowEnd = (int) Math.min((long) this.pos + WINDOW, this.limit);
+        while (this.pos < windowEnd) {
+            this.IndexBlock(this.pos);
+            this.pos += 64;
+        }
+        this.pos = Math.min(this.pos, this.limit);
+        return true;
+    }
+
+    private void IndexBlock(int base) {
+        long quote = 0, backslash = 0, structural = 0, whitespace = 0;
+        for (int i = 0; i < 8; i++) {
+            final long w = this.Word(base + 8 * i);
+            final int shift = 8 * i;
+            quote |= MoveMask(Equal(w, '"')) << shift;
+            backslash |= MoveMask(Equal(w, '\\')) << shift;
+            // '[' and ']' differ from '{' and '}' only in bit 0x20.
+            final long folded = w | (ONES * 0x20);
+            structural |= MoveMask(Equal(folded, '{') | Equal(folded, '}') | Equal(w, ':') | Equal(w, ',')) << shift;
+            whitespace |= MoveMask(Equal(w, ' ') | Equal(w, '\n') | Equal(w, '\r') | Equal(w, '\t')) << shift;
+        }
+
+        final long escaped = this.FindEscaped(backslash);
+        quote &= ~escaped;
+        final long inString = PrefixXor(quote) ^ this.prevInString;
+        this.prevInString = inString >> 63;
+
+        final long outside = ~inString & ~quote;
+        final long scalar = outside & ~structural & ~whitespace;
+        final long scalarStart = scalar & ~((scalar << 1) | this.prevScalar);
+        this.prevScalar = scalar >>> 63;
+        final long stringBackslash = backslash & inString;
+
+        long bits = (structural & outside) | quote | scalarStart;
+        if (stringBackslash == 0 && !this.stringHasEscape) {
+            while (bits != 0) {
+                this.Add(base + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+            return;
+        }
+
+        int openBit = -1;
+        while (bits != 0) {
+            final int b = Long.numberOfTrailingZeros(bits);
+            final long bit = 1L << b;
+            bits &= bits - 1;
+            if ((quote & bit) == 0) {
+                this.Add(base + b);
+            } else if ((inString & bit) != 0) {
+                openBit = b;
+                this.stringHasEscape = false;
+                this.Add(base + b);
+            } else {
+                final long range = (bit - 1) & ~LowMask(openBit);
+                final boolean hasEscape = this.stringHasEscape || (stringBackslash & range) != 0;
+                this.Add(hasEscape ? ~(base + b) : base + b);
+            }
+        }
+        if (this.prevInString != 0)
+            this.stringHasEscape |= (stringBackslash & ~LowMask(openBit)) != 0;
+    }
+
+    private void Add(int position) {
+        this.positions[this.count++] = position;
+    }
+
+    // Bits 0..openBit, or none when the string was opened in an earlier block.
+    private static long LowMask(int openBit) {
+        return openBit < 0 ? 0 : (2L << openBit) - 1;
+    }
+
+    // Reads eight bytes; past the end of the input the block is padded with spaces.
+    private long Word(int at) {
+        if (at + 8 <= this.limit) {
+            if (this.array != null)
+                return (long) LONGS.get(this.array, this.arrayOffset + at);
+            return this.source.getLong(at);
+        }
+        long w = 0;
+        for (int i = 7; i >= 0; i--) {
+            final int b = at + i < this.limit ? this.source.get(at + i) & 0xff : ' ';
+            w = (w << 8) | b;
+        }
+        return w;
+    }
+
+    // High bit of each byte set where the byte equals c.
+    private static long Equal(long w, char c) {
+        final long x = w ^ (ONES * c);
+        return ~(((x & LOW7) + LOW7) | x) & HIGH;
+    }
+
+    // Gathers the high bit of each byte into the low eight bits.
+    private static long MoveMask(long highBits) {
+        return ((highBits >>> 7) * 0x0102040810204080L) >>> 56;
+    }
+
+    private static long PrefixXor(long x) {
+        x ^= x << 1;
+        x ^= x << 2;
+        x ^= x << 4;
+        x ^= x << 8;
+        x ^= x << 16;
+        x ^= x << 32;
+        return x;
+    }
+
+    // Marks the characters escaped by a backslash, carrying odd-length
+    // backslash runs across blocks (simdjson's find_escaped_branchless).
+    private long FindEscaped(long backslash) {
+        if (backslash == 0 && this.prevEscaped == 0)
+            return 0;
+        backslash &= ~this.prevEscaped;
+        final long followsEscape = (backslash << 1) | this.prevEscaped;
+        final long oddSequenceStarts = backslash & ~EVEN_BITS & ~followsEscape;
+        final long sequencesStartingOnEvenBits = oddSequenceStarts + backslash;
+        this.prevEscaped = Long.compareUnsigned(sequencesStartingOnEvenBits, backslash) < 0 ? 1 : 0;
+        final long invertMask = sequencesStartingOnEvenBits << 1;
+        return (EVEN_BITS ^ invertMask) & followsEscape;
+    }
+}
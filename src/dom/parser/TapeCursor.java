@@ -0,0 +1,198 @@
+package src.dom.parser;
+
+import java.math.BigDecimal;
+
+// Navigates a JsonTape without allocating. The cursor sits on one value;
+// Down() enters the container it is on, Next() moves to the following
+// sibling and Up() returns to the enclosing container.
+public class TapeCursor {
+    public enum Kind {
+        OBJECT,
+        ARRAY,
+        STRING,
+        NUMBER,
+        BOOL,
+        NULL,
+    }
+
+    private final JsonTape document;
+    private int index;
+    private int[] parents;
+    private int depth;
+
+    TapeCursor(JsonTape document) {
+        this.document = document;
+        this.parents = new int[16];
+    }
+
+    public Kind GetKind() {
+        switch (this.document.Type(this.index)) {
+            case '{':
+                return Kind.OBJECT;
+            case '[':
+                return Kind.ARRAY;
+            case '"':
+                return Kind.STRING;
+            case 't':
+            case 'f':
+                return Kind.BOOL;
+            case 'n':
+                return Kind.NULL;
+            default:
+                return Kind.NUMBER;
+        }
+    }
+
+    public int CurrentDepth() {
+        return this.depth;
+    }
+
+    // Name of the field the cursor is on, null outside of objects.
+    public String CurrentName() {
+        if (this.depth == 0 || this.document.Type(this.parents[this.depth - 1]) != '{')
+            return null;
+        return this.document.StringAt(this.index - 1);
+    }
+
+    // Number of elements or fields of the container the cursor is on.
+    public int Size() {
+        final Kind kind = this.GetKind();
+        if (kind != Kind.OBJECT && kind != Kind.ARRAY)
+            throw new IllegalStateException("Expected OBJECT or ARRAY, got " + kind);
+        final int count = (int) (this.document.Payload(this.index) >>> 32);
+        if (count < JsonTape.MAX_COUNT)
+            return count;
+        int n = 0;
+        final int end = (int) this.document.Payload(this.index);
+        for (int i = this.FirstChild(this.index); i < end; i = this.NextChild(this.index, i))
+            n++;
+        return n;
+    }
+
+    // Moves to the first element or field value; false for an empty container.
+    public boolean Down() {
+        final Kind kind = this.GetKind();
+        if (kind != Kind.OBJECT && kind != Kind.ARRAY)
+            throw new IllegalStateException("Expected OBJECT or ARRAY, got " + kind);
+        final int first = this.FirstChild(this.index);
+        if (first >= (int) this.document.Payload(this.index))
+            return false;
+        this.Push(this.index);
+        this.index = first;
+        return true;
+    }
+
+    // Moves to the next element or field value; false, without moving, after the last.
+    public boolean Next() {
+        if (this.depth == 0)
+            return false;
+        final int parent = this.parents[this.depth - 1];
+        final int next = this.NextChild(parent, this.index);
+        if (next >= (int) this.document.Payload(parent))
+            return false;
+        this.index = next;
+        return true;
+    }
+
+    public boolean Up() {
+        if (this.depth == 0)
+            return false;
+        this.index = this.parents[--this.depth];
+        return true;
+    }
+
+    // Moves from an object to the value of the given field; false, without
+    // moving, if it has none. Later duplicates win.
+    public boolean Find(String key) {
+        if (this.GetKind() != Kind.OBJECT)
+            throw new IllegalStateException("Expected OBJECT, got " + this.GetKind());
+        final int end = (int) this.document.Payload(this.index);
+        int found = -1;
+        for (int i = this.index + 1; i < end; i = this.document.After(i + 1)) {
+            if (this.document.StringEquals(i, key))
+                found = i + 1;
+        }
+        if (found < 0)
+            return false;
+        this.Push(this.index);
+        this.index = found;
+        return true;
+    }
+
+    // Moves from an array to its element at the given position.
+    public boolean Element(int position) {
+        if (this.GetKind() != Kind.ARRAY)
+            throw new IllegalStateException("Expected ARRAY, got " + this.GetKind());
+        final int end = (int) this.document.Payload(this.index);
+        int i = this.index + 1;
+        for (int n = 0; n < position && i < end; n++)
+            i = this.document.After(i);
+        if (position < 0 || i >= end)
+            return false;
+        this.Push(this.index);
+        this.index = i;
+        return true;
+    }
+
+    public String GetString() {
+        this.Expect(Kind.STRING);
+        return this.document.StringAt(this.index);
+    }
+
+    public boolean GetBoolean() {
+        this.Expect(Kind.BOOL);
+        return this.document.Type(this.index) == 't';
+    }
+
+    public long GetLong() {
+        this.Expect(Kind.NUMBER);
+        if (this.document.Type(this.index) == 'l')
+            return this.document.tape[this.index + 1];
+        return this.document.NumberAt(this.index).AsLong();
+    }
+
+    public double GetDouble() {
+        this.Expect(Kind.NUMBER);
+        if (this.document.Type(this.index) == 'l')
+            return this.document.tape[this.index + 1];
+        return this.document.NumberAt(this.index).AsDouble();
+    }
+
+    public BigDecimal GetBigDecimal() {
+        this.Expect(Kind.NUMBER);
+        return this.document.NumberAt(this.index).AsBigDecimal();
+    }
+
+    public boolean IsNull() {
+        return this.GetKind() == Kind.NULL;
+    }
+
+    // Converts the value under the cursor into the JsonType classes.
+    public JsonType ToJsonType() {
+        return this.document.ToJsonType(this.index);
+    }
+
+    private void Expect(Kind kind) {
+        if (this.GetKind() != kind)
+            throw new IllegalStateException(String.format("Expected %s, got %s", kind, this.GetKind()));
+    }
+
+    // Objects store each key before its value, so their first value is one further.
+    private int FirstChild(int container) {
+        return this.document.Type(container) == '{' ? container + 2 : container + 1;
+    }
+
+    private int NextChild(int container, int child) {
+        final int next = this.document.After(child);
+        return this.document.Type(container) == '{' ? next + 1 : next;
+    }
+
+    private void Push(int container) {
+        if (this.depth == this.parents.length) {
+            int[] grown = new int[this.parents.length * 2];
+            System.arraycopy(this.parents, 0, grown, 0, this.depth);
+            this.parents = grown;
+        }
+        this.parents[this.depth++] = container;
+    }
+}
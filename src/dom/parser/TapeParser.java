@@ -0,0 +1,178 @@
+package src.dom.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Parses a document into a JsonTape. String bytes are copied into the arena
+// as they are tokenized, so any source works, streams included. Both arrays
+// are trimmed to size at the end, as tapes tend to be kept around.
+public class TapeParser {
+    private Tokenizer tokenizer;
+    private long[] tape;
+    private int count;
+    private byte[] strings;
+    private int stringsLength;
+
+    public TapeParser(String source) {
+        this(new Tokenizer(source));
+    }
+
+    public TapeParser(byte[] source) {
+        this(source, 0, source.length);
+    }
+
+    public TapeParser(byte[] source, int offset, int length) {
+        this(ByteBuffer.wrap(source, offset, length));
+    }
+
+    public TapeParser(ByteBuffer source) {
+        this(new Tokenizer(source));
+    }
+
+    public TapeParser(InputStream input) {
+        this(input, Tokenizer.DEFAULT_BUFFER_SIZE);
+    }
+
+    public TapeParser(InputStream input, int bufferSize) {
+        this(new Tokenizer(input, bufferSize));
+    }
+
+    public TapeParser(ReadableByteChannel channel) {
+        this(channel, Tokenizer.DEFAULT_BUFFER_SIZE);
+    }
+
+    public TapeParser(ReadableByteChannel channel, int bufferSize) {
+        this(new Tokenizer(channel, bufferSize));
+    }
+
+    public TapeParser(Path path) throws IOException {
+        this(JsonParser.MapFile(path));
+    }
+
+    TapeParser(Tokenizer tokenizer) {
+        this.tokenizer = tokenizer;
+        this.tape = new long[64];
+        this.strings = new byte[256];
+    }
+
+    public JsonTape Parse() throws ParseException {
+        this.Value(this.NextToken());
+        if (this.tokenizer.HasToken())
+            throw new ParseException("Unexpected data after the top-level value");
+        return new JsonTape(Arrays.copyOf(this.tape, this.count), Arrays.copyOf(this.strings, this.stringsLength));
+    }
+
+    private TokenType NextToken() throws ParseException {
+        if (!this.tokenizer.HasToken())
+            throw new ParseException("Unexpected end of input");
+        return this.tokenizer.Tokenize();
+    }
+
+    private void Expect(TokenType tok, TokenType expectedType) throws ParseException {
+        if (tok != expectedType)
+            throw new ParseException(String.format("Expected %s, got %s", expectedType, tok));
+    }
+
+    private void Add(long entry) {
+        if (this.count == this.tape.length)
+            this.tape = Arrays.copyOf(this.tape, this.tape.length * 2);
+        this.tape[this.count++] = entry;
+    }
+
+    // Copies the current string or number token into the arena, behind its length.
+    private void AddString(char type) {
+        final int length = this.tokenizer.TokenLength();
+        final int needed = this.stringsLength + 4 + length;
+        if (needed > this.strings.length)
+            this.strings = Arrays.copyOf(this.strings, Math.max(needed, this.strings.length * 2));
+        final int offset = this.stringsLength;
+        this.strings[offset] = (byte) length;
+        this.strings[offset + 1] = (byte) (length >>> 8);
+        this.strings[offset + 2] = (byte) (length >>> 16);
+        this.strings[offset + 3] = (byte) (length >>> 24);
+        this.tokenizer.CopyToken(this.strings, offset + 4);
+        this.stringsLength = needed;
+        final long escaped = type == '"' && this.tokenizer.hasEscapes ? JsonTape.ESCAPED : 0;
+        this.Add(JsonTape.Entry(type, escaped | offset));
+    }
+
+    private void AddNumber() {
+        final Tokenizer t = this.tokenizer;
+        if (t.isInteger) {
+            this.Add(JsonTape.Entry('l', 0));
+            this.Add(t.longValue);
+        } else if (t.numberTruncated) {
+            this.AddString('N');
+        } else {
+            final long sign = t.numberNegative ? 1L << 32 : 0;
+            this.Add(JsonTape.Entry('d', sign | (t.numberExponent & 0xFFFFFFFFL)));
+            this.Add(t.numberMantissa);
+        }
+    }
+
+    private void Value(TokenType tok) throws ParseException {
+        switch (tok) {
+            case NUMBER:
+                this.AddNumber();
+                return;
+            case STRING:
+                this.AddString('"');
+                return;
+            case BOOL:
+                this.Add(JsonTape.Entry(this.tokenizer.boolValue ? 't' : 'f', 0));
+                return;
+            case NULL:
+                this.Add(JsonTape.Entry('n', 0));
+                return;
+            case LEFT_CURLY:
+            case LEFT_PAREN:
+                break;
+            default:
+                throw new ParseException("Unexpected " + tok);
+        }
+
+        final boolean isObject = tok == TokenType.LEFT_CURLY;
+        final int start = this.count;
+        this.Add(0);
+        int children = 0;
+        if (isObject) {
+            tok = this.NextToken();
+            while (tok != TokenType.RIGHT_CURLY) {
+                this.Expect(tok, TokenType.STRING);
+                this.AddString('"');
+                this.Expect(this.NextToken(), TokenType.COLON);
+                this.Value(this.NextToken());
+                children++;
+                tok = this.NextToken();
+                if (tok == TokenType.COMMA) {
+                    tok = this.NextToken();
+                    this.Expect(tok, TokenType.STRING);
+                } else {
+                    this.Expect(tok, TokenType.RIGHT_CURLY);
+                }
+            }
+        } else {
+            tok = this.NextToken();
+            while (tok != TokenType.RIGHT_PAREN) {
+                this.Value(tok);
+                children++;
+                tok = this.NextToken();
+                if (tok == TokenType.COMMA) {
+                    tok = this.NextToken();
+                    if (tok == TokenType.RIGHT_PAREN)
+                        throw new ParseException("Unexpected " + tok);
+                } else {
+                    this.Expect(tok, TokenType.RIGHT_PAREN);
+                }
+            }
+        }
+        final int end = this.count;
+        this.Add(JsonTape.Entry(isObject ? '}' : ']', start));
+        final long saturated = Math.min(children, JsonTape.MAX_COUNT);
+        this.tape[start] = JsonTape.Entry(isObject ? '{' : '[', (saturated << 32) | end);
+    }
+}
@@ -0,0 +1,15 @@
+package src.dom.parser;
+
+// Carries a ParseException where checked exceptions cannot pass: out of
+// fork/join tasks, where it is unwrapped again before reaching callers, and
+// out of the streams of JsonLinesParser.Records(), where it reaches them.
+public class UncheckedParseException extends RuntimeException {
+    UncheckedParseException(ParseException cause) {
+        super(cause);
+    }
+
+    @Override
+    public ParseException getCause() {
+        return (ParseException) super.getCause();
+    }
+}
@@ -0,0 +1,556 @@
+package json;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingDeque;
+
+import src.dom.parser.JsonNumber;
+import src.dom.parser.JsonReader;
+import src.dom.parser.JsonType;
+import src.dom.parser.ParseException;
+
+// Reads values of one type, the counterpart of ValueWriter. The reader for a
+// type is picked once, when the class using it is bound, and then reads
+// straight from the token stream. Read() is called with the reader on the
+// first event of the value and leaves it on the last one; a null event is
+// handled by ReadNullable() before it gets there.
+abstract class ValueReader {
+    abstract Object Read(JsonReader reader) throws ParseException;
+
+    private static final ClassValue<ValueReader> READERS = new ClassValue<ValueReader>() {
+        @Override
+        protected ValueReader computeValue(Class<?> cls) {
+            return ForClass(cls);
+        }
+    };
+
+    static Object ReadNullable(ValueReader valueReader, JsonReader reader) throws ParseException {
+        if (reader.CurrentToken() == JsonReader.Event.NULL)
+            return null;
+        return valueReader.Read(reader);
+    }
+
+    // The reader for values declared as 'type', generics included.
+    static ValueReader ForType(Type type) {
+        if (type instanceof Class)
+            return READERS.get((Class<?>) type);
+        if (type instanceof GenericArrayType) {
+            final Type component = ((GenericArrayType) type).getGenericComponentType();
+            return new ObjectArrayReader(Raw(component), ForType(component));
+        }
+        if (type instanceof ParameterizedType) {
+            final ParameterizedType parameterized = (ParameterizedType) type;
+            final Class<?> raw = (Class<?>) parameterized.getRawType();
+            final Type[] arguments = parameterized.getActualTypeArguments();
+            if (Map.class.isAssignableFrom(raw)) {
+                if (arguments[0] != String.class)
+                    throw new IllegalArgumentException("Map keys must be strings: " + type);
+                return new MapReader(raw, ForType(arguments[1]));
+            }
+            if (Collection.class.isAssignableFrom(raw) || raw == Iterable.class)
+                return new CollectionReader(raw, ForType(arguments[0]));
+            // Classes bound with type arguments read their fields as those;
+            // anything else, Optional<T> say, is rejected by ForClass().
+            if (JsonSerializable.class.isAssignableFrom(raw) || raw.isRecord())
+                return new BoundReader(parameterized);
+            return READERS.get(raw);
+        }
+        // Type variables and wildcards.
+        return NATURAL;
+    }
+
+    // 'type' with the type variables of a generic class replaced by the
+    // arguments it is bound with. Variables left over are read as untyped.
+    static Type Resolve(Type type, Map<TypeVariable<?>, Type> arguments) {
+        if (arguments.isEmpty())
+            return type;
+        if (type instanceof TypeVariable)
+            return arguments.getOrDefault(type, type);
+        if (type instanceof ParameterizedType) {
+            final ParameterizedType parameterized = (ParameterizedType) type;
+            final Type[] resolved = parameterized.getActualTypeArguments().clone();
+            for (int i = 0; i < resolved.length; i++)
+                resolved[i] = Resolve(resolved[i], arguments);
+            return new Parameterized((Class<?>) parameterized.getRawType(), parameterized.getOwnerType(), resolved);
+        }
+        if (type instanceof GenericArrayType) {
+            final Type component = Resolve(((GenericArrayType) type).getGenericComponentType(), arguments);
+            if (component instanceof Class)
+                return Array.newInstance((Class<?>) component, 0).getClass();
+        }
+        return type;
+    }
+
+    private static Class<?> Raw(Type type) {
+        if (type instanceof Class)
+            return (Class<?>) type;
+        if (type instanceof ParameterizedType)
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        if (type instanceof GenericArrayType)
+            return Array.newInstance(Raw(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        return Object.class;
+    }
+
+    private static ValueReader ForClass(Class<?> cls) {
+        if (cls == String.class || cls == CharSequence.class)
+            return STRING;
+        if (cls == int.class || cls == Integer.class)
+            return INT;
+        if (cls == long.class || cls == Long.class)
+            return LONG;
+        if (cls == double.class || cls == Double.class)
+            return DOUBLE;
+        if (cls == boolean.class || cls == Boolean.class)
+            return BOOLEAN;
+        if (cls == float.class || cls == Float.class)
+            return FLOAT;
+        if (cls == short.class || cls == Short.class)
+            return SHORT;
+        if (cls == byte.class || cls == Byte.class)
+            return BYTE;
+        if (cls == char.class || cls == Character.class)
+            return CHAR;
+        if (cls == BigDecimal.class || cls == Number.class)
+            return DECIMAL;
+        if (cls == BigInteger.class)
+            return BIG_INTEGER;
+        if (cls.isEnum())
+            return new EnumReader(cls);
+        if (cls == int[].class)
+            return INT_ARRAY;
+        if (cls == long[].class)
+            return LONG_ARRAY;
+        if (cls == double[].class)
+            return DOUBLE_ARRAY;
+        if (cls == float[].class)
+            return FLOAT_ARRAY;
+        if (cls == short[].class)
+            return SHORT_ARRAY;
+        if (cls == byte[].class)
+            return BYTE_ARRAY;
+        if (cls == boolean[].class)
+            return BOOLEAN_ARRAY;
+        if (cls == char[].class)
+            return CHAR_ARRAY;
+        if (cls.isArray())
+            return new ObjectArrayReader(cls.getComponentType(), ForType(cls.getComponentType()));
+        final Codec<?> codec = Codecs.For(cls);
+        if (codec != null) {
+            return new ValueReader() {
+                @Override
+                Object Read(JsonReader reader) throws ParseException {
+                    return codec.Read(reader);
+                }
+            };
+        }
+        if (JsonSerializable.class.isAssignableFrom(cls) || cls.isRecord())
+            return new BoundReader(cls);
+        if (JsonType.class.isAssignableFrom(cls))
+            return JSON_TYPE;
+        if (Collection.class.isAssignableFrom(cls) || cls == Iterable.class)
+            return new CollectionReader(cls, NATURAL);
+        if (Map.class.isAssignableFrom(cls))
+            return new MapReader(cls, NATURAL);
+        if (cls == Object.class)
+            return NATURAL;
+        throw new IllegalArgumentException("Cannot deserialize " + cls.getName());
+    }
+
+    // What a collection or map declared as 'declared' is built as: the class
+    // itself when it has a public no-argument constructor, otherwise the first
+    // of the usual implementations that is one. Anything else is rejected when
+    // the class using it is bound.
+    private static MethodHandle Constructor(Class<?> declared, Class<?>... implementations) {
+        Class<?> cls = null;
+        if (!declared.isInterface() && !Modifier.isAbstract(declared.getModifiers())) {
+            cls = declared;
+        } else {
+            for (Class<?> implementation : implementations) {
+                if (declared.isAssignableFrom(implementation)) {
+                    cls = implementation;
+                    break;
+                }
+            }
+        }
+        try {
+            if (cls != null) {
+                return MethodHandles.publicLookup().findConstructor(cls, MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(Object.class));
+            }
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            // Rejected below.
+        }
+        throw new IllegalArgumentException("Cannot deserialize " + declared.getName());
+    }
+
+    private static Object Create(MethodHandle constructor) {
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void Expect(JsonReader reader, JsonReader.Event event) throws ParseException {
+        if (reader.CurrentToken() != event)
+            throw new ParseException(String.format("Expected %s, got %s", event, reader.CurrentToken()));
+    }
+
+    private static final ValueReader STRING = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return reader.GetString();
+        }
+    };
+
+    private static final ValueReader INT = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return Codecs.ReadInt(reader);
+        }
+    };
+
+    private static final ValueReader LONG = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return reader.GetLong();
+        }
+    };
+
+    private static final ValueReader SHORT = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return Codecs.ReadShort(reader);
+        }
+    };
+
+    private static final ValueReader BYTE = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return Codecs.ReadByte(reader);
+        }
+    };
+
+    private static final ValueReader DOUBLE = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return reader.GetDouble();
+        }
+    };
+
+    private static final ValueReader FLOAT = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return (float) reader.GetDouble();
+        }
+    };
+
+    private static final ValueReader BOOLEAN = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return reader.GetBoolean();
+        }
+    };
+
+    private static final ValueReader CHAR = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return Codecs.ReadChar(reader);
+        }
+    };
+
+    private static final ValueReader DECIMAL = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return reader.GetNumber().AsBigDecimal();
+        }
+    };
+
+    private static final ValueReader BIG_INTEGER = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return reader.GetBigInteger();
+        }
+    };
+
+    private static final ValueReader INT_ARRAY = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return Codecs.ReadIntArray(reader);
+        }
+    };
+
+    private static final ValueReader LONG_ARRAY = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return Codecs.ReadLongArray(reader);
+        }
+    };
+
+    private static final ValueReader DOUBLE_ARRAY = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return Codecs.ReadDoubleArray(reader);
+        }
+    };
+
+    private static final ValueReader FLOAT_ARRAY = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return Codecs.ReadFloatArray(reader);
+        }
+    };
+
+    private static final ValueReader SHORT_ARRAY = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return Codecs.ReadShortArray(reader);
+        }
+    };
+
+    private static final ValueReader BYTE_ARRAY = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return Codecs.ReadByteArray(reader);
+        }
+    };
+
+    private static final ValueReader BOOLEAN_ARRAY = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return Codecs.ReadBooleanArray(reader);
+        }
+    };
+
+    // Written as a string by ValueWriter.
+    private static final ValueReader CHAR_ARRAY = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return Codecs.ReadCharArray(reader);
+        }
+    };
+
+    // Untyped values: maps, lists, strings, Long or Double, and booleans.
+    private static final ValueReader NATURAL = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            switch (reader.CurrentToken()) {
+                case START_OBJECT: {
+                    LinkedHashMap<String, Object> res = new LinkedHashMap<>();
+                    while (reader.NextToken() == JsonReader.Event.FIELD_NAME) {
+                        final String name = reader.GetString();
+                        reader.NextToken();
+                        res.put(name, ReadNullable(this, reader));
+                    }
+                    return res;
+                }
+                case START_ARRAY: {
+                    ArrayList<Object> res = new ArrayList<>();
+                    while (reader.NextToken() != JsonReader.Event.END_ARRAY)
+                        res.add(ReadNullable(this, reader));
+                    return res;
+                }
+                case STRING:
+                    return reader.GetString();
+                case NUMBER:
+                    return reader.GetNumber().GetValue();
+                case BOOL:
+                    return reader.GetBoolean();
+                default:
+                    throw new ParseException("Unexpected " + reader.CurrentToken());
+            }
+        }
+    };
+
+    private static final ValueReader JSON_TYPE = new ValueReader() {
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return reader.GetValue();
+        }
+    };
+
+    private static final class EnumReader extends ValueReader {
+        private final HashMap<String, Object> constants = new HashMap<>();
+
+        EnumReader(Class<?> cls) {
+            for (Object constant : cls.getEnumConstants())
+                this.constants.put(((Enum<?>) constant).name(), constant);
+        }
+
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            final String name = reader.GetString();
+            final Object constant = this.constants.get(name);
+            if (constant == null)
+                throw new ParseException("Unknown constant \"" + name + "\"");
+            return constant;
+        }
+    }
+
+    private static final class ObjectArrayReader extends ValueReader {
+        private final Class<?> component;
+        private final ValueReader element;
+
+        ObjectArrayReader(Class<?> component, ValueReader element) {
+            this.component = component;
+            this.element = element;
+        }
+
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            Expect(reader, JsonReader.Event.START_ARRAY);
+            ArrayList<Object> elements = new ArrayList<>();
+            while (reader.NextToken() != JsonReader.Event.END_ARRAY)
+                elements.add(ReadNullable(this.element, reader));
+            return elements.toArray((Object[]) Array.newInstance(this.component, elements.size()));
+        }
+    }
+
+    private static final class CollectionReader extends ValueReader {
+        private final MethodHandle constructor;
+        private final ValueReader element;
+
+        CollectionReader(Class<?> declared, ValueReader element) {
+            this.constructor = Constructor(declared, ArrayList.class, LinkedHashSet.class, TreeSet.class,
+                    ArrayDeque.class, LinkedBlockingDeque.class);
+            this.element = element;
+        }
+
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            Expect(reader, JsonReader.Event.START_ARRAY);
+            @SuppressWarnings("unchecked")
+            final Collection<Object> res = (Collection<Object>) Create(this.constructor);
+            while (reader.NextToken() != JsonReader.Event.END_ARRAY) {
+                final Object value = ReadNullable(this.element, reader);
+                try {
+                    res.add(value);
+                } catch (NullPointerException | ClassCastException e) {
+                    // Nulls in a queue or sorted set, say.
+                    throw new ParseException(
+                            String.format("Cannot add %s to a %s", value, res.getClass().getName()));
+                }
+            }
+            return res;
+        }
+    }
+
+    private static final class MapReader extends ValueReader {
+        private final MethodHandle constructor;
+        private final ValueReader value;
+
+        MapReader(Class<?> declared, ValueReader value) {
+            this.constructor = Constructor(declared, LinkedHashMap.class, TreeMap.class,
+                    ConcurrentHashMap.class, ConcurrentSkipListMap.class);
+            this.value = value;
+        }
+
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            Expect(reader, JsonReader.Event.START_OBJECT);
+            @SuppressWarnings("unchecked")
+            final Map<String, Object> res = (Map<String, Object>) Create(this.constructor);
+            while (reader.NextToken() == JsonReader.Event.FIELD_NAME) {
+                final String name = reader.GetString();
+                reader.NextToken();
+                final Object value = ReadNullable(this.value, reader);
+                try {
+                    res.put(name, value);
+                } catch (NullPointerException e) {
+                    throw new ParseException(
+                            String.format("Cannot put %s in a %s", value, res.getClass().getName()));
+                }
+            }
+            return res;
+        }
+    }
+
+    // Binds lazily, so a class may have fields of its own type.
+    private static final class BoundReader extends ValueReader {
+        private final Type type;
+
+        BoundReader(Type type) {
+            this.type = type;
+        }
+
+        @Override
+        Object Read(JsonReader reader) throws ParseException {
+            return ClassDecoder.Of(this.type).Read(reader);
+        }
+    }
+
+    // A generic type with its arguments resolved. Equal to, and hashed the
+    // same as, the JDK's own, so either finds the same bound class.
+    private static final class Parameterized implements ParameterizedType {
+        private final Class<?> raw;
+        private final Type owner;
+        private final Type[] arguments;
+
+        Parameterized(Class<?> raw, Type owner, Type[] arguments) {
+            this.raw = raw;
+            this.owner = owner;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public Type[] getActualTypeArguments() {
+            return this.arguments.clone();
+        }
+
+        @Override
+        public Type getRawType() {
+            return this.raw;
+        }
+
+        @Override
+        public Type getOwnerType() {
+            return this.owner;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof ParameterizedType))
+                return false;
+            final ParameterizedType that = (ParameterizedType) other;
+            return this.raw.equals(that.getRawType()) && Objects.equals(this.owner, that.getOwnerType())
+                    && Arrays.equals(this.arguments, that.getActualTypeArguments());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.arguments) ^ Objects.hashCode(this.owner) ^ this.raw.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder res = new StringBuilder(this.raw.getName()).append('<');
+            for (int i = 0; i < this.arguments.length; i++)
+                res.append(i == 0 ? "" : ", ").append(this.arguments[i].getTypeName());
+            return res.append('>').toString();
+        }
+    }
+}
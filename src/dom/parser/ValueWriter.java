@@ -0,0 +1,331 @@
+package json;
+
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+
+import src.dom.parser.JsonType;
+import src.dom.parser.JsonWriter;
+
+// Writes values of one type. The writer for a type is picked once: for a
+// field from its declared type when that pins down the runtime class, and
+// otherwise once per runtime class through a ClassValue, so values are not
+// run through a chain of instanceof checks. Write() is never given null.
+abstract class ValueWriter {
+    abstract void Write(JsonWriter writer, Object value) throws Exception;
+
+    private static final ClassValue<ValueWriter> WRITERS = new ClassValue<ValueWriter>() {
+        @Override
+        protected ValueWriter computeValue(Class<?> cls) {
+            return ForClass(cls);
+        }
+    };
+
+    // Looks the writer up by the runtime class of each value.
+    static final ValueWriter DYNAMIC = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            WRITERS.get(value.getClass()).Write(writer, value);
+        }
+    };
+
+    static void WriteNullable(ValueWriter valueWriter, JsonWriter writer, Object value) throws Exception {
+        if (value == null)
+            writer.NullValue();
+        else
+            valueWriter.Write(writer, value);
+    }
+
+    // The writer for values declared as 'type'.
+    static ValueWriter ForType(Class<?> type) {
+        if (type.isArray() || type.isEnum() || Modifier.isFinal(type.getModifiers()))
+            return WRITERS.get(type);
+        return DYNAMIC;
+    }
+
+    private static ValueWriter ForClass(Class<?> cls) {
+        if (cls == String.class)
+            return STRING;
+        if (cls == Integer.class || cls == Long.class || cls == Short.class || cls == Byte.class)
+            return INTEGER;
+        if (cls == Double.class)
+            return DOUBLE;
+        if (cls == Float.class)
+            return FLOAT;
+        if (cls == Boolean.class)
+            return BOOLEAN;
+        if (cls == Character.class || CharSequence.class.isAssignableFrom(cls))
+            return STRING;
+        if (cls == BigDecimal.class)
+            return DECIMAL;
+        if (cls == BigInteger.class)
+            return BIG_INTEGER;
+        if (Number.class.isAssignableFrom(cls))
+            return NUMBER;
+        if (cls.isEnum() || (cls.getSuperclass() != null && cls.getSuperclass().isEnum()))
+            return new EnumWriter(cls.isEnum() ? cls : cls.getSuperclass());
+        if (cls.isArray())
+            return ForArray(cls.getComponentType());
+        @SuppressWarnings("unchecked")
+        final Codec<Object> codec = (Codec<Object>) Codecs.For(cls);
+        if (codec != null) {
+            return new ValueWriter() {
+                @Override
+                void Write(JsonWriter writer, Object value) throws Exception {
+                    codec.Write(writer, value);
+                }
+            };
+        }
+        if (JsonSerializable.class.isAssignableFrom(cls))
+            return new BoundWriter(cls);
+        if (JsonType.class.isAssignableFrom(cls))
+            return JSON_TYPE;
+        if (Iterable.class.isAssignableFrom(cls))
+            return ITERABLE;
+        if (Map.class.isAssignableFrom(cls))
+            return MAP;
+        return new ValueWriter() {
+            @Override
+            void Write(JsonWriter writer, Object value) throws Exception {
+                throw new IllegalArgumentException("Cannot serialize " + cls.getName());
+            }
+        };
+    }
+
+    private static ValueWriter ForArray(Class<?> component) {
+        if (component == int.class)
+            return INT_ARRAY;
+        if (component == long.class)
+            return LONG_ARRAY;
+        if (component == double.class)
+            return DOUBLE_ARRAY;
+        if (component == boolean.class)
+            return BOOLEAN_ARRAY;
+        if (component == char.class)
+            return CHAR_ARRAY;
+        if (component == float.class)
+            return FLOAT_ARRAY;
+        if (component == short.class)
+            return SHORT_ARRAY;
+        if (component == byte.class)
+            return BYTE_ARRAY;
+        return new ObjectArrayWriter(ForType(component));
+    }
+
+    private static final ValueWriter STRING = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.Value(value.toString());
+        }
+    };
+
+    private static final ValueWriter INTEGER = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.Value(((Number) value).longValue());
+        }
+    };
+
+    private static final ValueWriter DOUBLE = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.Value((double) (Double) value);
+        }
+    };
+
+    private static final ValueWriter FLOAT = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.Value((float) (Float) value);
+        }
+    };
+
+    private static final ValueWriter BOOLEAN = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.Value((boolean) (Boolean) value);
+        }
+    };
+
+    private static final ValueWriter DECIMAL = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.Value((BigDecimal) value);
+        }
+    };
+
+    private static final ValueWriter BIG_INTEGER = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.Value(new BigDecimal((BigInteger) value));
+        }
+    };
+
+    // Other Number types, such as AtomicLong, print their exact value.
+    private static final ValueWriter NUMBER = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.Value(new BigDecimal(value.toString()));
+        }
+    };
+
+    private static final ValueWriter JSON_TYPE = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.Value((JsonType) value);
+        }
+    };
+
+    private static final ValueWriter ITERABLE = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.BeginArray();
+            for (Object element : (Iterable<?>) value)
+                WriteNullable(DYNAMIC, writer, element);
+            writer.EndArray();
+        }
+    };
+
+    private static final ValueWriter MAP = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.BeginObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                writer.Name(entry.getKey().toString());
+                WriteNullable(DYNAMIC, writer, entry.getValue());
+            }
+            writer.EndObject();
+        }
+    };
+
+    private static final ValueWriter INT_ARRAY = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.BeginArray();
+            for (int x : (int[]) value)
+                writer.Value(x);
+            writer.EndArray();
+        }
+    };
+
+    private static final ValueWriter LONG_ARRAY = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.BeginArray();
+            for (long x : (long[]) value)
+                writer.Value(x);
+            writer.EndArray();
+        }
+    };
+
+    private static final ValueWriter DOUBLE_ARRAY = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.BeginArray();
+            for (double x : (double[]) value)
+                writer.Value(x);
+            writer.EndArray();
+        }
+    };
+
+    private static final ValueWriter FLOAT_ARRAY = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.BeginArray();
+            for (float x : (float[]) value)
+                writer.Value(x);
+            writer.EndArray();
+        }
+    };
+
+    private static final ValueWriter SHORT_ARRAY = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.BeginArray();
+            for (short x : (short[]) value)
+                writer.Value(x);
+            writer.EndArray();
+        }
+    };
+
+    private static final ValueWriter BYTE_ARRAY = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.BeginArray();
+            for (byte x : (byte[]) value)
+                writer.Value(x);
+            writer.EndArray();
+        }
+    };
+
+    private static final ValueWriter BOOLEAN_ARRAY = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.BeginArray();
+            for (boolean x : (boolean[]) value)
+                writer.Value(x);
+            writer.EndArray();
+        }
+    };
+
+    // A char[] is text, as in the String it would usually be.
+    private static final ValueWriter CHAR_ARRAY = new ValueWriter() {
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.Value(new String((char[]) value));
+        }
+    };
+
+    private static final class ObjectArrayWriter extends ValueWriter {
+        private final ValueWriter element;
+
+        ObjectArrayWriter(ValueWriter element) {
+            this.element = element;
+        }
+
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.BeginArray();
+            for (Object x : (Object[]) value)
+                WriteNullable(this.element, writer, x);
+            writer.EndArray();
+        }
+    }
+
+    // Constant names are encoded once, indexed by ordinal.
+    private static final class EnumWriter extends ValueWriter {
+        private final JsonWriter.EncodedString[] names;
+
+        EnumWriter(Class<?> cls) {
+            final Object[] constants = cls.getEnumConstants();
+            this.names = new JsonWriter.EncodedString[constants.length];
+            for (int i = 0; i < constants.length; i++)
+                this.names[i] = JsonWriter.EncodeString(((Enum<?>) constants[i]).name());
+        }
+
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            writer.Value(this.names[((Enum<?>) value).ordinal()]);
+        }
+    }
+
+    // Binds lazily, so a class may have fields of its own type; the binding is
+    // kept once found rather than looked up for every value.
+    private static final class BoundWriter extends ValueWriter {
+        private final Class<?> cls;
+        private ClassBinding binding;
+
+        BoundWriter(Class<?> cls) {
+            this.cls = cls;
+        }
+
+        @Override
+        void Write(JsonWriter writer, Object value) throws Exception {
+            ClassBinding binding = this.binding;
+            if (binding == null)
+                this.binding = binding = ClassBinding.Of(this.cls);
+            binding.Write(writer, value);
+        }
+    }
+}
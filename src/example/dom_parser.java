@@ -1,7 +1,6 @@
 package src.example;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.HashMap;
 
@@ -14,10 +13,8 @@ import src.dom.parser.ParseException;
 class Example {
     public static void main(String[] args) {
         try {
-            String content = new String(Files.readAllBytes(Paths.get("./src/example/example.json")));
-
             try {
-                JsonParser parser = new JsonParser(content);
+                JsonParser parser = new JsonParser(Paths.get("./src/example/example.json"));
                 JsonObj res = parser.ParseObj();
 
                 HashMap<String, JsonType> hm = res.GetValue();
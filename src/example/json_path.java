@@ -0,0 +1,32 @@
+package src.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import src.dom.parser.JsonPath;
+import src.dom.parser.JsonType;
+import src.dom.parser.ParseException;
+
+class PathExample {
+    public static void main(String[] args) {
+        try {
+            try {
+                byte[] json = Files.readAllBytes(Paths.get("./src/example/example.json"));
+                for (JsonType hobby : JsonPath.Compile("$.hobbies[*]").Select(json))
+                    System.out.println("Hobby: " + hobby);
+
+                JsonType city = JsonPath.Compile("/address/city").SelectFirst(json);
+                if (city != null) {
+                    System.out.println("City: " + city);
+                } else {
+                    System.out.println("error: no city");
+                }
+            } catch (ParseException e) {
+                System.out.println(e);
+            }
+        } catch (IOException e) {
+            System.out.println(e.toString());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package src.example;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import src.dom.parser.JsonReader;
+import src.dom.parser.ParseException;
+
+class ReaderExample {
+    public static void main(String[] args) {
+        try {
+            try {
+                JsonReader reader = new JsonReader(Paths.get("./src/example/example.json"));
+                if (reader.NextToken() != JsonReader.Event.START_OBJECT) {
+                    System.out.println("error: expected an object");
+                    return;
+                }
+
+                while (reader.NextToken() == JsonReader.Event.FIELD_NAME) {
+                    String field = reader.GetString();
+                    reader.NextToken();
+                    if (field.equals("name") || field.equals("email")) {
+                        System.out.println(field + ": " + reader.GetString());
+                    } else {
+                        reader.SkipChildren();
+                    }
+                }
+            } catch (ParseException e) {
+                System.out.println(e);
+            }
+        } catch (IOException e) {
+            System.out.println(e.toString());
+        }
+    }
+}
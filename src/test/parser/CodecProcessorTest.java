@@ -0,0 +1,217 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import json.Codec;
+import json.CodecProcessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// The processor does not run on this build's own sources, so these tests
+// compile small models with it through javax.tools and load the codecs.
+class CodecProcessorTest {
+    private static final String MODEL = String.join("\n",
+            "package model;",
+            "",
+            "import java.math.BigDecimal;",
+            "import java.math.BigInteger;",
+            "import java.util.List;",
+            "import java.util.Map;",
+            "import java.util.Set;",
+            "import json.GenerateCodec;",
+            "",
+            "public class Outer {",
+            "    public enum Status { OPEN, CLOSED }",
+            "",
+            "    @GenerateCodec",
+            "    public record Point(int x, int y) {}",
+            "",
+            "    @GenerateCodec",
+            "    public static class Order {",
+            "        public long id;",
+            "        public Status status;",
+            "        public Integer quantity;",
+            "        public double price;",
+            "        public char grade;",
+            "        public boolean paid;",
+            "        public BigDecimal total;",
+            "        public BigInteger big;",
+            "        public int[] codes;",
+            "        public Point[] path;",
+            "        public List<Point> points;",
+            "        public Set<String> tags;",
+            "        public Map<String, List<Long>> counts;",
+            "        public List<int[]> rows;",
+            "        private String note;",
+            "",
+            "        public String getNote() { return this.note; }",
+            "        public void setNote(String note) { this.note = note; }",
+            "    }",
+            "}",
+            "");
+
+    private static final class Compiled {
+        final List<String> errors;
+        final Path output;
+
+        Compiled(List<String> errors, Path output) {
+            this.errors = errors;
+            this.output = output;
+        }
+    }
+
+    // Compiles the source with CodecProcessor against this build's classes.
+    private static Compiled Compile(Path dir, String className, String source)
+            throws IOException, URISyntaxException {
+        final Path sources = Files.createDirectories(dir.resolve("src"));
+        final Path output = Files.createDirectories(dir.resolve("classes"));
+        final Path file = sources.resolve(className.replace('.', '/') + ".java");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, source);
+
+        final URL location = CodecProcessor.class.getProtectionDomain().getCodeSource().getLocation();
+        final String classes = Path.of(location.toURI()).toString();
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager files =
+                compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            final List<String> options = List.of("-classpath", classes, "-processorpath", classes,
+                    "-processor", CodecProcessor.class.getName(), "-d", output.toString(),
+                    "-s", Files.createDirectories(dir.resolve("generated")).toString());
+            compiler.getTask(null, files, diagnostics, options, null, files.getJavaFileObjects(file.toFile()))
+                    .call();
+        }
+        ArrayList<String> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            if (d.getKind() == Diagnostic.Kind.ERROR)
+                errors.add(d.getMessage(Locale.ROOT));
+        }
+        return new Compiled(errors, output);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Codec<Object> Load(ClassLoader loader, String name) throws ReflectiveOperationException {
+        return (Codec<Object>) loader.loadClass(name).getConstructor().newInstance();
+    }
+
+    // Reads the document and writes it back out.
+    private static String RoundTrip(Codec<Object> codec, String json) throws ParseException, IOException {
+        final JsonReader reader = new JsonReader(json);
+        reader.NextToken();
+        final Object value = codec.Read(reader);
+        final StringWriter out = new StringWriter();
+        final JsonWriter writer = new JsonWriter(out);
+        codec.Write(writer, value);
+        writer.Flush();
+        return out.toString();
+    }
+
+    @Test
+    void GeneratedCodecsRoundTrip(@TempDir Path dir) throws Exception {
+        final Compiled compiled = Compile(dir, "model.Outer", MODEL);
+        assertEquals(List.of(), compiled.errors);
+        assertEquals(List.of("model.Outer_OrderJsonCodec", "model.Outer_PointJsonCodec"),
+                Files.readAllLines(compiled.output.resolve("META-INF/services/json.Codec")));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { compiled.output.toUri().toURL() },
+                CodecProcessorTest.class.getClassLoader())) {
+            final Codec<Object> point = Load(loader, "model.Outer_PointJsonCodec");
+            assertEquals("model.Outer$Point", point.Type().getName());
+            assertEquals("{\"x\":1,\"y\":-2}", RoundTrip(point, "{\"y\": -2, \"x\": 1}"));
+            assertEquals("null", RoundTrip(point, "null"));
+
+            final Codec<Object> order = Load(loader, "model.Outer_OrderJsonCodec");
+            final String full = "{\"id\":9007199254740993,\"status\":\"CLOSED\",\"quantity\":3,\"price\":0.1,"
+                    + "\"grade\":\"B\",\"paid\":true,\"total\":-12.50,\"big\":123456789012345678901234567890,"
+                    + "\"codes\":[1,-2],\"path\":[{\"x\":0,\"y\":1},null],\"points\":[{\"x\":5,\"y\":6}],"
+                    + "\"tags\":[\"b\",\"a\"],\"counts\":{\"k\":[1,2],\"e\":[]},\"rows\":[[1],[]],"
+                    + "\"note\":\"caf\u00e9\"}";
+            assertEquals(full, RoundTrip(order, full));
+
+            // Missing, null and unknown fields.
+            final String sparse = "{\"id\": null, \"extra\": {\"id\": 1, \"a\": [1, {}]},"
+                    + " \"quantity\": null}";
+            assertEquals("{\"id\":0,\"status\":null,\"quantity\":null,\"price\":0,\"grade\":\"\\u0000\","
+                    + "\"paid\":false,\"total\":null,\"big\":null,\"codes\":null,\"path\":null,"
+                    + "\"points\":null,\"tags\":null,\"counts\":null,\"rows\":null,\"note\":null}",
+                    RoundTrip(order, sparse));
+        }
+    }
+
+    @Test
+    void BadInputIsAParseException(@TempDir Path dir) throws Exception {
+        final Compiled compiled = Compile(dir, "model.Outer", MODEL);
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { compiled.output.toUri().toURL() },
+                CodecProcessorTest.class.getClassLoader())) {
+            final Codec<Object> order = Load(loader, "model.Outer_OrderJsonCodec");
+            for (String json : new String[] { "[]", "{\"status\": \"PENDING\"}", "{\"grade\": \"AB\"}",
+                    "{\"codes\": [1, 3000000000]}", "{\"id\": \"1\"}" }) {
+                final JsonReader reader = new JsonReader(json);
+                reader.NextToken();
+                assertThrows(ParseException.class, () -> order.Read(reader), json);
+            }
+        }
+    }
+
+    @Test
+    void UnsupportedTypesAreCompileErrors(@TempDir Path dir) throws Exception {
+        final String source = String.join("\n",
+                "package model;",
+                "",
+                "import java.util.Map;",
+                "import json.GenerateCodec;",
+                "",
+                "public class Bad {",
+                "    @GenerateCodec",
+                "    public static class Any {",
+                "        public Object any;",
+                "    }",
+                "",
+                "    @GenerateCodec",
+                "    public static class Keys {",
+                "        public Map<Integer, String> keys;",
+                "    }",
+                "",
+                "    @GenerateCodec",
+                "    public static class Hidden {",
+                "        private int hidden;",
+                "    }",
+                "",
+                "    @GenerateCodec",
+                "    public class Inner {",
+                "    }",
+                "",
+                "    @GenerateCodec",
+                "    public static class Generic<T> {",
+                "    }",
+                "}",
+                "");
+        final Compiled compiled = Compile(dir, "model.Bad", source);
+        assertEquals(List.of("Cannot generate code for java.lang.Object",
+                "Map keys must be strings: java.util.Map<java.lang.Integer,java.lang.String>",
+                "Private field hidden needs a getter", "Inner must be static",
+                "@GenerateCodec does not support generic classes"), compiled.errors);
+        assertFalse(Files.exists(compiled.output.resolve("model/Bad_AnyJsonCodec.class")));
+    }
+}
@@ -0,0 +1,67 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CompactObjTest {
+    private static JsonObj Ordered(String json) throws ParseException {
+        final JsonParser parser = new JsonParser(json);
+        parser.SetObjectLayout(JsonParser.ObjectLayout.ORDERED);
+        return parser.ParseObj();
+    }
+
+    @Test
+    void KeepsSourceOrder() throws ParseException {
+        final JsonObj obj = Ordered("{\"z\": 1, \"a\": {\"y\": 2, \"b\": 3}, \"m\": [], \"z\": 4}");
+        assertInstanceOf(CompactObj.class, obj);
+        assertEquals("{\"z\":4,\"a\":{\"y\":2,\"b\":3},\"m\":[]}", obj.toString());
+        ArrayList<String> keys = new ArrayList<>();
+        obj.ForEach((key, value) -> keys.add(key));
+        assertEquals(List.of("z", "a", "m"), keys);
+        assertEquals(List.of("z", "a", "m"), new ArrayList<>(obj.GetValue().keySet()));
+        assertEquals("{}", Ordered("{}").toString());
+    }
+
+    // Lookups go through the position table past INDEX_THRESHOLD keys; every
+    // size around it must find every key, the duplicates and nothing else.
+    @Test
+    void LookupsAroundTheIndexThreshold() throws ParseException {
+        for (int size = 0; size <= 4 * CompactObj.INDEX_THRESHOLD + 1; size++) {
+            final StringBuilder json = new StringBuilder("{");
+            for (int i = 0; i < size; i++)
+                json.append("\"k").append(i).append("\":").append(i).append(',');
+            json.append("\"k0\":-1}");
+            final JsonObj obj = Ordered(json.toString());
+            assertEquals("-1", obj.Get("k0").toString());
+            for (int i = 1; i < size; i++)
+                assertEquals(String.valueOf(i), obj.Get("k" + i).toString(), "size " + size);
+            assertNull(obj.Get("k" + Math.max(size, 1)));
+            assertEquals(Math.max(size, 1), obj.GetValue().size());
+        }
+    }
+
+    @Test
+    void MapTakesOverOnceBuilt() throws ParseException {
+        final JsonObj obj = Ordered("{\"a\": 1, \"b\": 2}");
+        obj.GetValue().remove("a");
+        obj.GetValue().put("c", new JsonBool(true));
+        assertNull(obj.Get("a"));
+        assertEquals("true", obj.Get("c").toString());
+        assertEquals("{\"b\":2,\"c\":true}", obj.toString());
+    }
+
+    @Test
+    void SameContentsAsTheDefaultLayout() throws ParseException {
+        final String json = "{\"id\": 1, \"tags\": [{\"k\": \"v\"}, {}], \"nested\": {\"x\": {\"y\": null}}}";
+        final JsonObj expected = new JsonParser(json).ParseObj();
+        final JsonObj obj = Ordered(json);
+        assertEquals(expected.GetValue().keySet(), obj.GetValue().keySet());
+        expected.ForEach((key, value) -> assertEquals(value.toString(), obj.Get(key).toString()));
+    }
+}
@@ -0,0 +1,52 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class DoubleParserTest {
+    private static void AssertParsed(String text) throws ParseException {
+        final JsonReader reader = new JsonReader(text);
+        reader.NextToken();
+        assertEquals(Double.parseDouble(text), reader.GetDouble(), text);
+        assertEquals(Double.parseDouble(text), ((JsonNumber) new JsonParser(text).Parse()).AsDouble(), text);
+    }
+
+    @Test
+    void EdgeCases() throws ParseException {
+        final String[] cases = { "0", "-0", "-0.0", "0e-400", "1e-400", "1e400", "-1e400", "4.9e-324",
+            "2.4703282292062327e-324", "2.4703282292062328e-324", "2.2250738585072011e-308",
+            "2.2250738585072014e-308", "1.7976931348623157e308", "1.7976931348623159e308",
+            "9007199254740993", "9007199254740993.0", "9007199254740995", "18446744073709551615",
+            "0.1", "0.3", "123456789012345678", "1234567890123456789e-10",
+            "0.1000000000000000055511151231257827021181583404541015625",
+            "7.2057594037927933e16", "1e22", "1e23", "8.98846567431158e307", "3.0e-44" };
+        for (String text : cases)
+            AssertParsed(text);
+    }
+
+    @Test
+    void RandomDecimals() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            final long w = random.nextLong() >>> random.nextInt(64);
+            final int q = random.nextInt(700) - 360;
+            final double d = DoubleParser.ToDouble(w, q, false);
+            // NaN hands the rare undecidable cases over to Double.parseDouble.
+            if (!Double.isNaN(d))
+                assertEquals(Double.parseDouble(Long.toUnsignedString(w) + "e" + q), d, w + "e" + q);
+        }
+    }
+
+    @Test
+    void RandomDoublesReadBack() throws ParseException {
+        final Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            final double d = Double.longBitsToDouble(random.nextLong());
+            if (!Double.isNaN(d) && !Double.isInfinite(d))
+                AssertParsed(Double.toString(d));
+        }
+    }
+}
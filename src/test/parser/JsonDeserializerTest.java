@@ -0,0 +1,201 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import json.JsonDeserializer;
+import json.JsonSerializable;
+import org.junit.jupiter.api.Test;
+
+class JsonDeserializerTest {
+    record Point(int x, int y) {
+    }
+
+    static class Shape implements JsonSerializable {
+        String name;
+        List<Point> points;
+        Map<String, Point> named;
+        Shape inner;
+    }
+
+    @Test
+    void NestedClassesAndMaps() throws ParseException {
+        final String json = "{\"name\": \"a\", \"extra\": {\"x\": [1]}, \"points\": [{\"x\": 1, \"y\": 2}, {\"y\": 4}],"
+                + " \"named\": {\"x\": {\"x\": 5, \"y\": 6}, \"name\": {\"x\": 7}},"
+                + " \"inner\": {\"name\": \"b\", \"points\": []}}";
+        final Shape shape = JsonDeserializer.FromJson(json, Shape.class);
+        assertEquals("a", shape.name);
+        assertEquals(List.of(new Point(1, 2), new Point(0, 4)), shape.points);
+        assertEquals(Map.of("x", new Point(5, 6), "name", new Point(7, 0)), shape.named);
+        assertEquals("b", shape.inner.name);
+        assertEquals(List.of(), shape.inner.points);
+    }
+
+    @Test
+    void TheReadersOwnCacheIsKept() throws ParseException {
+        final KeyCache cache = new KeyCache();
+        final JsonReader reader = new JsonReader("{\"x\": 1, \"y\": 2}");
+        reader.SetKeyCache(cache);
+        assertEquals(new Point(1, 2), JsonDeserializer.FromJson(reader, Point.class));
+        assertSame(cache, reader.GetKeyCache());
+    }
+
+    enum Color {
+        RED, GREEN
+    }
+
+    record Pair<A, B>(A first, B second) {
+    }
+
+    static class Node<T> implements JsonSerializable {
+        T value;
+        Node<T> next;
+    }
+
+    record Generic(Pair<String, List<Integer>> pair, Map<String, Pair<Color, Long>> pairs, List<int[]> arrays,
+            Node<Point> list) {
+    }
+
+    static class Collections implements JsonSerializable {
+        LinkedList<String> linked;
+        TreeSet<String> tree;
+        ArrayDeque<Integer> deque;
+        TreeMap<String, Integer> treeMap;
+        Collection<String> collection;
+        Set<String> set;
+        SortedSet<String> sorted;
+        Queue<Integer> queue;
+        Deque<Integer> deque2;
+        NavigableMap<String, Integer> navigable;
+        ConcurrentMap<String, Integer> concurrent;
+        List<?> wildcard;
+        Map<String, Object> natural;
+    }
+
+    static class Primitives implements JsonSerializable {
+        int i = 7;
+        long l = 8;
+        double d = 9;
+        boolean b = true;
+        char c = 'c';
+        Integer boxed = 1;
+        String s = "s";
+    }
+
+    static class Unsupported implements JsonSerializable {
+        Optional<String> value;
+    }
+
+    static class UnsupportedSet implements JsonSerializable {
+        EnumSet<Color> colors;
+    }
+
+    @Test
+    void Records() throws ParseException {
+        assertEquals(new Point(3, 0), JsonDeserializer.FromJson("{\"x\": 3, \"z\": [1, {}]}", Point.class));
+        assertEquals(new Point(0, 0), JsonDeserializer.FromJson("{\"x\": null}", Point.class));
+        assertThrows(ParseException.class, () -> JsonDeserializer.FromJson("[1, 2]", Point.class));
+        assertThrows(ParseException.class, () -> JsonDeserializer.FromJson("{\"x\": \"1\"}", Point.class));
+    }
+
+    @Test
+    void Generics() throws ParseException {
+        final Generic generic = JsonDeserializer.FromJson("{\"pair\": {\"first\": \"a\", \"second\": [1, 2]},"
+                + " \"pairs\": {\"k\": {\"first\": \"GREEN\", \"second\": 5}}, \"arrays\": [[1], []],"
+                + " \"list\": {\"value\": {\"x\": 1}, \"next\": {\"value\": {\"y\": 2}}}}",
+                Generic.class);
+        assertEquals(new Pair<>("a", List.of(1, 2)), generic.pair());
+        assertEquals(Map.of("k", new Pair<>(Color.GREEN, 5L)), generic.pairs());
+        assertArrayEquals(new int[] { 1 }, generic.arrays().get(0));
+        assertEquals(0, generic.arrays().get(1).length);
+        assertEquals(new Point(1, 0), generic.list().value);
+        assertEquals(new Point(0, 2), generic.list().next.value);
+        assertNull(generic.list().next.next);
+    }
+
+    @Test
+    void Enums() throws ParseException {
+        assertSame(Color.RED, JsonDeserializer.FromJson("\"RED\"", Color.class));
+        assertArrayEquals(new Color[] { Color.GREEN, null }, JsonDeserializer.FromJson("[\"GREEN\", null]",
+                Color[].class));
+        assertThrows(ParseException.class, () -> JsonDeserializer.FromJson("\"red\"", Color.class));
+        assertThrows(ParseException.class, () -> JsonDeserializer.FromJson("1", Color.class));
+    }
+
+    @Test
+    void Nulls() throws ParseException {
+        assertNull(JsonDeserializer.FromJson("null", Integer.class));
+        assertNull(JsonDeserializer.FromJson("null", Point.class));
+        assertNull(JsonDeserializer.FromJson("null", String.class));
+        assertThrows(ParseException.class, () -> JsonDeserializer.FromJson("null", int.class));
+        assertThrows(ParseException.class, () -> JsonDeserializer.FromJson("null", boolean.class));
+        assertEquals(5, JsonDeserializer.FromJson("5", int.class));
+        // Fields keep their default for null, except references.
+        final Primitives primitives = JsonDeserializer.FromJson("{\"i\": null, \"l\": null, \"d\": null,"
+                + " \"b\": null, \"c\": null, \"boxed\": null, \"s\": null}", Primitives.class);
+        assertEquals(7, primitives.i);
+        assertEquals(8, primitives.l);
+        assertEquals(9, primitives.d);
+        assertEquals(true, primitives.b);
+        assertEquals('c', primitives.c);
+        assertNull(primitives.boxed);
+        assertNull(primitives.s);
+    }
+
+    @Test
+    void Collections() throws ParseException {
+        final Collections res = JsonDeserializer.FromJson("{\"linked\": [\"a\", null], \"tree\": [\"b\", \"a\"],"
+                + " \"deque\": [1, 2], \"treeMap\": {\"b\": 1, \"a\": 2}, \"collection\": [\"x\"],"
+                + " \"set\": [\"b\", \"a\", \"b\"], \"sorted\": [\"b\", \"a\"], \"queue\": [3],"
+                + " \"deque2\": [4], \"navigable\": {\"b\": 1, \"a\": 2}, \"concurrent\": {\"a\": 1},"
+                + " \"wildcard\": [1, \"x\", [true]], \"natural\": {\"n\": 1.5, \"m\": {\"k\": null}}}",
+                Collections.class);
+        assertEquals(java.util.Arrays.asList("a", null), res.linked);
+        assertEquals(List.of("a", "b"), List.copyOf(res.tree));
+        assertEquals(List.of(1, 2), List.copyOf(res.deque));
+        assertEquals("{a=2, b=1}", res.treeMap.toString());
+        assertEquals(List.of("x"), List.copyOf(res.collection));
+        assertEquals(List.of("b", "a"), List.copyOf(res.set));
+        assertInstanceOf(TreeSet.class, res.sorted);
+        assertEquals(List.of("a", "b"), List.copyOf(res.sorted));
+        assertInstanceOf(ArrayDeque.class, res.queue);
+        assertEquals(List.of(4), List.copyOf(res.deque2));
+        assertInstanceOf(TreeMap.class, res.navigable);
+        assertInstanceOf(ConcurrentHashMap.class, res.concurrent);
+        assertEquals(List.of(1L, "x", List.of(true)), res.wildcard);
+        assertEquals("{n=1.5, m={k=null}}", res.natural.toString());
+        // Nulls do not fit every collection.
+        assertThrows(ParseException.class, () -> JsonDeserializer.FromJson("{\"deque\": [null]}",
+                Collections.class));
+        assertThrows(ParseException.class, () -> JsonDeserializer.FromJson("{\"concurrent\": {\"a\": null}}",
+                Collections.class));
+    }
+
+    @Test
+    void UnsupportedTypesAreRejectedWhenBound() {
+        assertThrows(IllegalArgumentException.class, () -> JsonDeserializer.FromJson("{}", Unsupported.class));
+        assertThrows(IllegalArgumentException.class, () -> JsonDeserializer.FromJson("{}", UnsupportedSet.class));
+        assertThrows(IllegalArgumentException.class, () -> JsonDeserializer.FromJson("{}", Optional.class));
+    }
+}
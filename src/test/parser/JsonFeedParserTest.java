@@ -0,0 +1,72 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class JsonFeedParserTest {
+    private static final String[] DOCUMENTS = {
+        "{\"a\": [1, -2.5e-3, 0, -0, 1E+2, 0.125], \"b\\u00e9\\n\": \"x\\\"y\\\\z\\u20AC\", \"c\": {}}",
+        "[true, false, null, [], [[]], \"\", \"h\u00e9llo \u20ac \ud83d\ude00\"]",
+        "[123456789012345678901234567890, 9223372036854775807, -9223372036854775808, 1e999999]",
+        "  \"top\"  ",
+        "-12.5e+7",
+    };
+
+    private static String Feed(String json, int chunk) throws ParseException {
+        final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        final JsonFeedParser parser = new JsonFeedParser(16);
+        for (int i = 0; i < bytes.length; i += chunk)
+            parser.Feed(bytes, i, Math.min(chunk, bytes.length - i));
+        parser.EndOfInput();
+        return parser.GetResult().toString();
+    }
+
+    @Test
+    void AnySplitGivesTheSameDocument() throws ParseException {
+        for (String json : DOCUMENTS) {
+            final String expected = new JsonParser(json).Parse().toString();
+            for (int chunk = 1; chunk <= 7; chunk++)
+                assertEquals(expected, Feed(json, chunk), json + " in chunks of " + chunk);
+        }
+    }
+
+    @Test
+    void EmptyChunksAreHarmless() throws ParseException {
+        final String json = "[\"ab\\u0041\", 12.5e3]";
+        final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        final JsonFeedParser parser = new JsonFeedParser();
+        for (int i = 0; i < bytes.length; i++) {
+            assertEquals(JsonFeedParser.Status.NEED_MORE_INPUT, parser.Feed(bytes, i, 0));
+            parser.Feed(bytes, i, 1);
+        }
+        parser.EndOfInput();
+        assertEquals(new JsonParser(json).Parse().toString(), parser.GetResult().toString());
+    }
+
+    @Test
+    void MalformedInputIsRejected() {
+        for (String json : new String[] { "[01]", "[1.]", "[1e]", "[-]", "[\"\\x\"]", "[1.2.3]", "[\"abc" })
+            assertThrows(ParseException.class, () -> Feed(json, 1), json);
+    }
+
+    // Rescanning a cut-off token from its start on every chunk would take minutes here.
+    @Test
+    void LongTokensInSmallChunks() throws ParseException {
+        final StringBuilder text = new StringBuilder("[\"");
+        for (int i = 0; i < 1 << 20; i++)
+            text.append(i % 64 == 0 ? "\\n" : "x");
+        text.append("\", 1");
+        for (int i = 0; i < 1 << 20; i++)
+            text.append((char) ('0' + i % 10));
+        text.append("]");
+        final String json = text.toString();
+        final String result = assertTimeoutPreemptively(Duration.ofSeconds(20), () -> Feed(json, 16));
+        assertEquals(new JsonParser(json).Parse().toString(), result);
+    }
+}
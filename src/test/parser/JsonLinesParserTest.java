@@ -0,0 +1,86 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class JsonLinesParserTest {
+    private static List<String> ParseAll(String lines) throws ParseException {
+        return Strings(new JsonLinesParser(lines.getBytes(StandardCharsets.UTF_8)).ParseAll());
+    }
+
+    private static List<String> Strings(List<JsonType> values) {
+        return values.stream().map(JsonType::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    void BlankLinesAndLineEndings() throws ParseException {
+        final String lines = "\n{\"a\": 1}\r\n\r\n  \t\n[1, 2]\n\"x\"\r\nnull";
+        final List<String> expected = List.of("{\"a\":1}", "[1,2]", "\"x\"", "null");
+        assertEquals(expected, ParseAll(lines));
+        assertEquals(expected, Strings(new JsonLinesParser(lines.getBytes(StandardCharsets.UTF_8)).Records()
+                .collect(Collectors.toList())));
+        assertEquals(List.of(), ParseAll(""));
+        assertEquals(List.of(), ParseAll("\r\n\n \n"));
+    }
+
+    @Test
+    void ReportsTheRecordOffset() {
+        final String lines = "1\n{\"a\": }\n3\n";
+        final ParseException e = assertThrows(ParseException.class, () -> ParseAll(lines));
+        assertTrue(e.getMessage().startsWith("Record at byte 2: "), e.getMessage());
+        final UncheckedParseException unchecked = assertThrows(UncheckedParseException.class,
+                () -> new JsonLinesParser(lines.getBytes(StandardCharsets.UTF_8)).Records().count());
+        assertEquals(e.getMessage(), unchecked.getCause().getMessage());
+    }
+
+    // Lines of every length around the 1 MB segments, so records start on,
+    // just before and just after each split point, some with "\r\n".
+    @Test
+    void RecordsAcrossSegmentBoundaries() throws ParseException {
+        final StringBuilder lines = new StringBuilder();
+        final ArrayList<String> expected = new ArrayList<>();
+        int i = 0;
+        while (lines.length() < 5 * JsonLinesParser.SPLIT_THRESHOLD) {
+            final String record = "[" + i + ",\"" + "x".repeat(i * 7919 % 3000) + "\"]";
+            expected.add(record);
+            lines.append(record).append(i % 3 == 0 ? "\r\n" : "\n");
+            if (i % 11 == 0)
+                lines.append('\n');
+            i++;
+        }
+        final byte[] bytes = lines.toString().getBytes(StandardCharsets.UTF_8);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(expected, Strings(new JsonLinesParser(bytes).ParseAll(pool)));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(expected, Strings(new JsonLinesParser(bytes).Records().collect(Collectors.toList())));
+        assertEquals(expected, Strings(new JsonLinesParser(bytes).Records().parallel()
+                .collect(Collectors.toList())));
+        // A slice of a larger array, read through a direct buffer too.
+        final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 3);
+        direct.put((byte) '[').put(bytes).put((byte) ']').put((byte) '\n').flip().position(1).limit(bytes.length + 1);
+        assertEquals(expected, Strings(new JsonLinesParser(direct).ParseAll()));
+    }
+
+    // A boundary right after the '\r' of a "\r\n".
+    @Test
+    void SplitBetweenCarriageReturnAndNewline() throws ParseException {
+        final int half = JsonLinesParser.SPLIT_THRESHOLD;
+        final String first = "\"" + "a".repeat(half - 3) + "\"\r";
+        final String lines = first + "\n" + "[1]\r\n" + "\"" + "b".repeat(half) + "\"\r\n";
+        assertEquals(List.of("\"" + "a".repeat(half - 3) + "\"", "[1]", "\"" + "b".repeat(half) + "\""),
+                ParseAll(lines));
+    }
+}
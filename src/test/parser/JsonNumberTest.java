@@ -0,0 +1,65 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+
+import json.Codecs;
+import org.junit.jupiter.api.Test;
+
+class JsonNumberTest {
+    private static JsonNumber Number(String json) throws ParseException {
+        return (JsonNumber) new JsonParser(json).Parse();
+    }
+
+    private static JsonReader Reader(String json) throws ParseException {
+        final JsonReader reader = new JsonReader(json);
+        reader.NextToken();
+        return reader;
+    }
+
+    @Test
+    void AsLongInRange() throws ParseException {
+        assertEquals(Long.MAX_VALUE, Number("9223372036854775807").AsLong());
+        assertEquals(Long.MIN_VALUE, Number("-9223372036854775808").AsLong());
+        assertEquals(100000, Number("1e5").AsLong());
+        assertEquals(1, Number("1.9").AsLong());
+        assertEquals(-1, Number("-1.9").AsLong());
+        assertEquals(0, Number("1e-999999999").AsLong());
+        assertEquals(0, Number("0e999999999").AsLong());
+    }
+
+    @Test
+    void AsLongOutOfRange() throws ParseException {
+        for (String json : new String[] { "1e20", "18446744073709551615", "9223372036854775808", "-1e19",
+                "1e999999999", "-9223372036854775809" })
+            assertThrows(ArithmeticException.class, () -> Number(json).AsLong(), json);
+    }
+
+    @Test
+    void AsIntOutOfRange() throws ParseException {
+        assertEquals(Integer.MAX_VALUE, Number("2147483647").AsInt());
+        assertThrows(ArithmeticException.class, () -> Number("2147483648").AsInt());
+        assertThrows(ArithmeticException.class, () -> Number("4294967296e0").AsInt());
+    }
+
+    @Test
+    void AsBigInteger() throws ParseException {
+        assertEquals(new BigInteger("123456789012345678901234567890"),
+                Number("123456789012345678901234567890.75").AsBigInteger());
+        assertEquals(BigInteger.TEN.pow(999), Number("1e999").AsBigInteger());
+        assertThrows(ArithmeticException.class, () -> Number("1e999999999").AsBigInteger());
+        assertThrows(ArithmeticException.class, () -> Number("12345678901234567890e99999999999").AsBigInteger());
+    }
+
+    @Test
+    void ReaderRejectsOutOfRange() throws ParseException {
+        assertEquals(42, Reader("42.5").GetLong());
+        assertThrows(ParseException.class, () -> Reader("1e20").GetLong());
+        assertThrows(ParseException.class, () -> Reader("1e999999999").GetBigInteger());
+        assertThrows(ParseException.class, () -> Codecs.ReadInt(Reader("1e10")));
+        assertThrows(ParseException.class, () -> Codecs.ReadByte(Reader("18446744073709551615")));
+        assertThrows(ParseException.class, () -> Codecs.ReadBigInteger(Reader("-1e999999999")));
+    }
+}
@@ -0,0 +1,165 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JsonParserTest {
+    private static String Error(String json) {
+        return assertThrows(ParseException.class, () -> new JsonParser(json).Parse(), json).getMessage();
+    }
+
+    @Test
+    void NonStringKeyReportsTheToken() {
+        assertEquals("Expected string as key, got NUMBER", Error("{1: 2}"));
+        assertEquals("Expected string as key, got LEFT_CURLY", Error("{\"a\": 1, {}: 2}"));
+        // The offending token is reported, not parsed; this one would not parse.
+        assertEquals("Expected string as key, got LEFT_PAREN", Error("{[1,: 2}"));
+    }
+
+    @Test
+    void EmptyContainers() throws ParseException {
+        assertEquals("[[],{}]", new JsonParser("[ [ ] , { } ]").Parse().toString());
+        assertEquals("Unexpected data after the top-level value", Error("[] []"));
+    }
+
+    // Whitespace without end after the given prefix.
+    private static InputStream Endless(String prefix) {
+        return new SequenceInputStream(new ByteArrayInputStream(prefix.getBytes(StandardCharsets.UTF_8)),
+                new InputStream() {
+                    @Override
+                    public int read() {
+                        return ' ';
+                    }
+                });
+    }
+
+    // Tokens are pulled as the value is built, so an error is reported without
+    // tokenizing the rest of the input.
+    @Test
+    void ErrorsAreReportedWithoutReadingAhead() {
+        assertEquals("Expected COMMA, got STRING", assertThrows(ParseException.class,
+                () -> new JsonParser(Endless("[1, 2 \"x\"]"), 64).Parse()).getMessage());
+        assertEquals("Unexpected RIGHT_CURLY", assertThrows(ParseException.class,
+                () -> new JsonParser(Endless("{\"a\": }"), 64).ParseObj()).getMessage());
+    }
+
+    @Test
+    void LargeDocuments() throws ParseException {
+        final StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 100_000; i++) {
+            json.append(i == 0 ? "{\"i\":" : ",{\"i\":").append(i);
+            json.append(",\"s\":[\"").append(i).append("\"]}");
+        }
+        final JsonArray array = new JsonParser(json.append(']').toString()).ParseArray();
+        assertEquals(100_000, array.Size());
+        final JsonObj last = (JsonObj) array.Get(99_999);
+        assertEquals(99_999, ((JsonNumber) last.Get("i")).AsLong());
+        assertEquals("[\"99999\"]", last.Get("s").toString());
+
+        final String nested = "[".repeat(2_000) + "\"deep\"" + "]".repeat(2_000);
+        assertEquals(nested, new JsonParser(nested).Parse().toString());
+    }
+
+    private static final String UTF8_DOCUMENT = "{\"h\u00e9\": [\"\u20ac \ud83d\ude00\","
+            + " \"\\u00e9\\ud83d\\ude00\", -0.5e-3, 18446744073709551616]}";
+
+    // The bytes, positions and limits are read as given; nothing outside them
+    // is looked at and the buffer itself is not moved.
+    @Test
+    void Utf8Inputs(@TempDir Path dir) throws ParseException, IOException {
+        final String expected = new JsonParser(UTF8_DOCUMENT).Parse().toString();
+        final byte[] bytes = UTF8_DOCUMENT.getBytes(StandardCharsets.UTF_8);
+        assertEquals(expected, new JsonParser(bytes).Parse().toString());
+
+        final byte[] padded = new byte[bytes.length + 6];
+        padded[0] = padded[1] = padded[2] = '[';
+        padded[padded.length - 1] = padded[padded.length - 2] = padded[padded.length - 3] = '}';
+        System.arraycopy(bytes, 0, padded, 3, bytes.length);
+        assertEquals(expected, new JsonParser(padded, 3, bytes.length).Parse().toString());
+
+        final ByteBuffer heap = ByteBuffer.wrap(padded, 3, bytes.length);
+        assertEquals(expected, new JsonParser(heap).Parse().toString());
+        assertEquals(3, heap.position());
+        final ByteBuffer slice = ByteBuffer.wrap(padded).slice(3, bytes.length);
+        assertEquals(expected, new JsonParser(slice).Parse().toString());
+        assertEquals(expected, new JsonParser(heap.asReadOnlyBuffer()).Parse().toString());
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(padded.length).put(padded);
+        direct.limit(3 + bytes.length).position(3);
+        assertEquals(expected, new JsonParser(direct).Parse().toString());
+        assertEquals(3, direct.position());
+
+        final Path file = dir.resolve("document.json");
+        Files.write(file, bytes);
+        assertEquals(expected, new JsonParser(file).Parse().toString());
+    }
+
+    // Views decode lazily but read the same as copied strings.
+    @Test
+    void StringViews() throws ParseException {
+        final byte[] bytes = UTF8_DOCUMENT.getBytes(StandardCharsets.UTF_8);
+        final JsonParser parser = new JsonParser(bytes);
+        parser.SetStringViews(true);
+        assertEquals(new JsonParser(UTF8_DOCUMENT).Parse().toString(), parser.Parse().toString());
+    }
+
+    // Hands out at most 'step' bytes per read, so tokens are cut at every offset.
+    private static InputStream Trickle(byte[] bytes, int step) {
+        return new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, step));
+            }
+        };
+    }
+
+    @Test
+    void StreamedInputAcrossBufferEdges() throws ParseException {
+        final String json = UTF8_DOCUMENT.replace("-0.5e-3",
+                "\"" + "x".repeat(100) + "\", true, null, [1, {}]");
+        final String expected = new JsonParser(json).Parse().toString();
+        final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        for (int size = 1; size <= 9; size++) {
+            for (int step = 1; step <= 4; step++) {
+                final String context = "buffer " + size + ", reads of " + step;
+                final JsonParser streamed = new JsonParser(Trickle(bytes, step), size);
+                assertEquals(expected, streamed.Parse().toString(), context);
+                final JsonParser channel = new JsonParser(Channels.newChannel(Trickle(bytes, step)), size);
+                assertEquals(expected, channel.Parse().toString(), context);
+            }
+        }
+        assertEquals(expected, new JsonParser(new ByteArrayInputStream(bytes)).Parse().toString());
+        final InputStream truncated = Trickle("[1, [2".getBytes(StandardCharsets.UTF_8), 1);
+        assertEquals("Unexpected end of input",
+                assertThrows(ParseException.class, () -> new JsonParser(truncated, 2).Parse()).getMessage());
+    }
+
+    @Test
+    void ReadErrorsAreUnchecked() {
+        final InputStream failing = new SequenceInputStream(
+                new ByteArrayInputStream("[1, 2".getBytes(StandardCharsets.UTF_8)), new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("disk gone");
+                    }
+                });
+        final UncheckedIOException e = assertThrows(UncheckedIOException.class,
+                () -> new JsonParser(failing, 4).Parse());
+        assertTrue(e.getCause().getMessage().contains("disk gone"));
+    }
+}
@@ -0,0 +1,72 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+class JsonPathTest {
+    private static final String DOCUMENT = "{\"store\": {\"book\": ["
+            + "{\"title\": \"A\", \"price\": 8.95, \"tags\": [\"x\", \"y\"]},"
+            + "{\"title\": \"B\", \"price\": 12.99, \"isbn\": \"0-553\"},"
+            + "{\"title\": \"C\", \"price\": 22.99, \"meta\": {\"price\": 1}}],"
+            + " \"bicycle\": {\"color\": \"red\", \"price\": 19.95}},"
+            + " \"a/b\": {\"m~n\": 5}, \"a\": 1, \"b\": 2, \"c\": 3, \"0\": \"zero\", \"esc\\u0061ped\": true}";
+
+    private static final String[] PATHS = { "$", "$.a", "$['a','b']", "$['b','a']", "$['a','zz']",
+        "$.store.book[0].title", "$['store']['book'][1]", "$.store.book[*].price", "$.store.book[0,2].title",
+        "$.store.book[1:3].title", "$.store.book[:2].title", "$..price", "$..book[0]", "$.store.*",
+        "$..*", "$.store.book[*]['title','isbn']", "$.missing", "$.store.book[7]", "$.a.b", "$.escaped",
+        "$[0]", "/store/book/0/title", "/a~1b/m~0n", "/0", "", "/store/book/2/meta/price", "/store/nope" };
+
+    private static JsonType Tree() throws ParseException {
+        final JsonParser parser = new JsonParser(DOCUMENT);
+        parser.SetObjectLayout(JsonParser.ObjectLayout.ORDERED);
+        return parser.Parse();
+    }
+
+    @Test
+    void StreamAndTreeAgree() throws ParseException {
+        final JsonType tree = Tree();
+        for (String expression : PATHS) {
+            final JsonPath path = JsonPath.Compile(expression);
+            final String streamed = path.Select(DOCUMENT).toString();
+            assertEquals(streamed, path.Select(tree).toString(), expression);
+            assertEquals(streamed, path.Select(DOCUMENT.getBytes()).toString(), expression);
+            final ArrayList<JsonType> all = path.Select(tree);
+            final JsonType first = path.SelectFirst(DOCUMENT);
+            assertEquals(all.isEmpty() ? null : all.get(0).toString(), first == null ? null : first.toString(), expression);
+        }
+    }
+
+    @Test
+    void Results() throws ParseException {
+        assertEquals("[1, 2]", JsonPath.Compile("$['a','b']").Select(Tree()).toString());
+        assertEquals("[1, 2]", JsonPath.Compile("$['b','a']").Select(DOCUMENT).toString());
+        assertEquals("[8.95, 12.99, 22.99, 1, 19.95]", JsonPath.Compile("$..price").Select(DOCUMENT).toString());
+        assertEquals("[\"B\", \"C\"]", JsonPath.Compile("$.store.book[1:3].title").Select(Tree()).toString());
+        assertEquals("[5]", JsonPath.Compile("/a~1b/m~0n").Select(DOCUMENT).toString());
+        assertEquals("[\"zero\"]", JsonPath.Compile("/0").Select(Tree()).toString());
+        assertEquals("[true]", JsonPath.Compile("$.escaped").Select(DOCUMENT).toString());
+        assertNull(JsonPath.Compile("$.missing").SelectFirst(Tree()));
+    }
+
+    @Test
+    void ReaderIsLeftAfterTheValue() throws ParseException {
+        final JsonReader reader = new JsonReader("[{\"a\": [1, 2], \"b\": 3}, 4]");
+        reader.NextToken();
+        reader.NextToken();
+        assertEquals("[[1,2]]", JsonPath.Compile("$.a").Select(reader).toString());
+        assertEquals(JsonReader.Event.END_OBJECT, reader.CurrentToken());
+        assertEquals(JsonReader.Event.NUMBER, reader.NextToken());
+    }
+
+    @Test
+    void UnsupportedExpressions() {
+        for (String expression : new String[] { "a.b", "$[?(@.a)]", "$[-1]", "$.", "/a~2" })
+            assertThrows(ParseException.class, () -> JsonPath.Compile(expression), expression);
+    }
+}
@@ -0,0 +1,122 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import src.dom.parser.JsonReader.Event;
+
+class JsonReaderTest {
+    private static final String DOCUMENT = "{\"id\": 7, \"tags\": [\"a\", {\"x\": null}], \"ok\": true,"
+            + " \"skip\": {\"s\": \"}]\\\"\"}, \"n\": -1.5}";
+
+    // Every event as "depth name EVENT".
+    private static List<String> Events(JsonReader reader) throws ParseException {
+        ArrayList<String> events = new ArrayList<>();
+        Event event;
+        do {
+            event = reader.NextToken();
+            events.add(reader.CurrentDepth() + " " + reader.CurrentName() + " " + event);
+        } while (event != Event.END_DOCUMENT);
+        return events;
+    }
+
+    private static JsonReader Streamed(String json) {
+        return new JsonReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), 8);
+    }
+
+    @Test
+    void EventsNamesAndDepths() throws ParseException {
+        final List<String> expected = List.of(
+                "1 null START_OBJECT",
+                "1 id FIELD_NAME", "1 id NUMBER",
+                "1 tags FIELD_NAME", "2 tags START_ARRAY", "2 null STRING",
+                "3 null START_OBJECT", "3 x FIELD_NAME", "3 x NULL", "2 null END_OBJECT",
+                "1 tags END_ARRAY",
+                "1 ok FIELD_NAME", "1 ok BOOL",
+                "1 skip FIELD_NAME", "2 skip START_OBJECT",
+                "2 s FIELD_NAME", "2 s STRING", "1 skip END_OBJECT",
+                "1 n FIELD_NAME", "1 n NUMBER",
+                "0 null END_OBJECT",
+                "0 null END_DOCUMENT");
+        assertEquals(expected, Events(new JsonReader(DOCUMENT)));
+        assertEquals(expected, Events(new JsonReader(DOCUMENT.getBytes(StandardCharsets.UTF_8))));
+        assertEquals(expected, Events(Streamed(DOCUMENT)));
+    }
+
+    @Test
+    void Values() throws ParseException {
+        final JsonReader reader = new JsonReader(DOCUMENT);
+        assertEquals(Event.START_OBJECT, reader.NextToken());
+        reader.NextToken();
+        assertEquals("id", reader.GetString());
+        reader.NextToken();
+        assertEquals(7, reader.GetLong());
+        assertEquals(7.0, reader.GetDouble());
+        assertEquals("Expected BOOL, got NUMBER",
+                assertThrows(ParseException.class, reader::GetBoolean).getMessage());
+        reader.NextToken();
+        reader.NextToken();
+        assertEquals("[\"a\",{\"x\":null}]", reader.GetValue().toString());
+        assertEquals(Event.END_ARRAY, reader.CurrentToken());
+        reader.NextToken();
+        reader.NextToken();
+        assertEquals(true, reader.GetBoolean());
+        reader.NextToken();
+        reader.NextToken();
+        reader.SkipChildren();
+        reader.NextToken();
+        reader.NextToken();
+        assertEquals(-1.5, reader.GetDouble());
+        assertEquals(-1, reader.GetLong());
+
+        final JsonReader big = new JsonReader("[1e30, 123456789012345678901234567890]");
+        big.NextToken();
+        big.NextToken();
+        assertEquals("1e30 is out of range for long",
+                assertThrows(ParseException.class, big::GetLong).getMessage());
+        big.NextToken();
+        assertEquals("123456789012345678901234567890", big.GetBigInteger().toString());
+    }
+
+    @Test
+    void SkipChildren() throws ParseException {
+        for (JsonReader reader : List.of(new JsonReader(DOCUMENT), Streamed(DOCUMENT))) {
+            ArrayList<String> names = new ArrayList<>();
+            assertEquals(Event.START_OBJECT, reader.NextToken());
+            while (reader.NextToken() == Event.FIELD_NAME) {
+                names.add(reader.CurrentName());
+                reader.NextToken();
+                reader.SkipChildren();
+                assertEquals(1, reader.CurrentDepth());
+            }
+            assertEquals(Event.END_OBJECT, reader.CurrentToken());
+            assertEquals(List.of("id", "tags", "ok", "skip", "n"), names);
+            assertEquals(Event.END_DOCUMENT, reader.NextToken());
+            assertNull(reader.CurrentName());
+        }
+    }
+
+    @Test
+    void Errors() {
+        assertThrows(ParseException.class, () -> Events(new JsonReader("[1 2]")));
+        assertThrows(ParseException.class, () -> Events(new JsonReader("{\"a\" 1}")));
+        assertEquals("Unexpected end of input",
+                assertThrows(ParseException.class, () -> Events(new JsonReader("[1, "))).getMessage());
+        assertEquals("Unexpected data after the top-level value",
+                assertThrows(ParseException.class, () -> Events(new JsonReader("{} 1"))).getMessage());
+        final JsonReader reader = new JsonReader("[[1, 2");
+        assertThrows(ParseException.class, () -> {
+            reader.NextToken();
+            reader.NextToken();
+            reader.SkipChildren();
+        });
+    }
+}
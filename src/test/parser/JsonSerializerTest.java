@@ -0,0 +1,187 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import json.JsonSerializable;
+import json.JsonSerializer;
+import org.junit.jupiter.api.Test;
+
+class JsonSerializerTest {
+    enum Color {
+        RED, GREEN
+    }
+
+    static class Primitives implements JsonSerializable {
+        static int ignored = 5;
+        long l = -1L << 40;
+        int i = 7;
+        short s = -3;
+        byte b = 12;
+        double d = 0.5;
+        float f = 1.25f;
+        boolean z = true;
+        char c = '"';
+    }
+
+    static class References implements JsonSerializable {
+        String text = "a\nb";
+        String none;
+        Integer boxed = 3;
+        Color color = Color.GREEN;
+        int[] numbers = { 1, 2 };
+        Color[] colors = { Color.RED, null };
+        List<Object> list = List.of(1, "x", List.of(true));
+        LinkedHashMap<String, Object> map = new LinkedHashMap<>();
+        Object dynamic = 2.5;
+    }
+
+    static class Node implements JsonSerializable {
+        int value;
+        Node next;
+
+        Node(int value, Node next) {
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    record Point(int x, int y) implements JsonSerializable {
+    }
+
+    // More fields than a handle chain could hold inline.
+    static class Wide implements JsonSerializable {
+        int f0 = 0, f1 = 1, f2 = 2, f3 = 3, f4 = 4, f5 = 5, f6 = 6, f7 = 7, f8 = 8, f9 = 9;
+        int f10 = 10, f11 = 11, f12 = 12, f13 = 13, f14 = 14, f15 = 15, f16 = 16, f17 = 17, f18 = 18, f19 = 19;
+        String g0 = "0", g1 = "1", g2 = "2", g3 = "3", g4 = "4", g5 = "5", g6 = "6", g7 = "7", g8 = "8", g9 = "9";
+    }
+
+    static class Empty implements JsonSerializable {
+    }
+
+    enum Operation {
+        PLUS {
+            @Override
+            int Apply(int a, int b) {
+                return a + b;
+            }
+        },
+        TIMES_\u00c9 {
+            @Override
+            int Apply(int a, int b) {
+                return a * b;
+            }
+        };
+
+        abstract int Apply(int a, int b);
+    }
+
+    static class Arrays implements JsonSerializable {
+        long[] longs = { Long.MIN_VALUE, 0, Long.MAX_VALUE };
+        double[] doubles = { -0.0, Double.MIN_VALUE, 1e21, 0.1 };
+        float[] floats = { 3.4028235e38f, -1.5f };
+        short[] shorts = { Short.MIN_VALUE };
+        byte[] bytes = { -128, 127 };
+        boolean[] booleans = { true, false };
+        char[] chars = { 'h', '\u00e9', '\n' };
+        int[] empty = {};
+        int[][] matrix = { { 1 }, {}, null };
+        Object[] mixed = { 1L, 'c', Operation.PLUS, new Point(0, 0), null };
+        Operation[] operations = { Operation.TIMES_\u00c9, Operation.PLUS };
+    }
+
+    static class Numbers implements JsonSerializable {
+        BigDecimal decimal = new BigDecimal("-1.000e-30");
+        BigInteger integer = BigInteger.ONE.shiftLeft(80);
+        AtomicLong atomic = new AtomicLong(-9);
+        Number number = 2.5f;
+        Object object = (short) 4;
+    }
+
+    static class Unsupported implements JsonSerializable {
+        Object value;
+
+        Unsupported(Object value) {
+            this.value = value;
+        }
+    }
+
+    static class NotFinite implements JsonSerializable {
+        double value = Double.NaN;
+    }
+
+    @Test
+    void Primitives() throws Exception {
+        assertEquals("{\"l\":-1099511627776,\"i\":7,\"s\":-3,\"b\":12,\"d\":0.5,\"f\":1.25,\"z\":true,\"c\":\"\\\"\"}",
+                JsonSerializer.ToJson(new Primitives()));
+    }
+
+    @Test
+    void References() throws Exception {
+        final References references = new References();
+        references.map.put("k", null);
+        assertEquals("{\"text\":\"a\\nb\",\"none\":null,\"boxed\":3,\"color\":\"GREEN\",\"numbers\":[1,2],"
+                + "\"colors\":[\"RED\",null],\"list\":[1,\"x\",[true]],\"map\":{\"k\":null},\"dynamic\":2.5}",
+                JsonSerializer.ToJson(references));
+    }
+
+    @Test
+    void NestedAndRecursive() throws Exception {
+        assertEquals("{\"value\":1,\"next\":{\"value\":2,\"next\":null}}",
+                JsonSerializer.ToJson(new Node(1, new Node(2, null))));
+        assertEquals("{\"x\":1,\"y\":-2}", JsonSerializer.ToJson(new Point(1, -2)));
+        assertEquals("{}", JsonSerializer.ToJson(new Empty()));
+    }
+
+    @Test
+    void FieldsKeepTheirOrder() throws Exception {
+        final StringBuilder expected = new StringBuilder("{");
+        for (int i = 0; i < 20; i++)
+            expected.append("\"f").append(i).append("\":").append(i).append(',');
+        for (int i = 0; i < 10; i++)
+            expected.append("\"g").append(i).append("\":\"").append(i).append(i == 9 ? "\"" : "\",");
+        assertEquals(expected.append('}').toString(), JsonSerializer.ToJson(new Wide()));
+    }
+
+    // The same binding written many times, so the JIT compiles the handle.
+    @Test
+    void WritesTheSameOnceCompiled() throws Exception {
+        final String expected = JsonSerializer.ToJson(new Point(3, 4));
+        for (int i = 0; i < 20000; i++)
+            assertEquals(expected, JsonSerializer.ToJson(new Point(3, 4)));
+    }
+
+    @Test
+    void Arrays() throws Exception {
+        final String json = JsonSerializer.ToJson(new Arrays());
+        assertEquals("{\"longs\":[-9223372036854775808,0,9223372036854775807],"
+                + "\"doubles\":[-0.0,4.9E-324,1E21,0.1],\"floats\":[3.4028235E38,-1.5],\"shorts\":[-32768],"
+                + "\"bytes\":[-128,127],\"booleans\":[true,false],\"chars\":\"h\u00e9\\n\",\"empty\":[],"
+                + "\"matrix\":[[1],[],null],\"mixed\":[1,\"c\",\"PLUS\",{\"x\":0,\"y\":0},null],"
+                + "\"operations\":[\"TIMES_\u00c9\",\"PLUS\"]}", json);
+        final JsonParser parser = new JsonParser(json);
+        parser.SetObjectLayout(JsonParser.ObjectLayout.ORDERED);
+        assertEquals(json, parser.Parse().toString());
+    }
+
+    @Test
+    void Numbers() throws Exception {
+        assertEquals("{\"decimal\":-1.000E-30,\"integer\":1208925819614629174706176,\"atomic\":-9,"
+                + "\"number\":2.5,\"object\":4}", JsonSerializer.ToJson(new Numbers()));
+    }
+
+    @Test
+    void UnsupportedValuesAreRejected() {
+        assertEquals("Cannot serialize java.lang.Thread", assertThrows(IllegalArgumentException.class,
+                () -> JsonSerializer.ToJson(new Unsupported(Thread.currentThread()))).getMessage());
+        assertEquals("Cannot serialize java.lang.Object", assertThrows(IllegalArgumentException.class,
+                () -> JsonSerializer.ToJson(new Unsupported(new Object()))).getMessage());
+        assertThrows(IllegalArgumentException.class, () -> JsonSerializer.ToJson(new NotFinite()));
+    }
+}
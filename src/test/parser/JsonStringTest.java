@@ -0,0 +1,78 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class JsonStringTest {
+    private static byte[] Bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void ParsedStringsAreCopiedByDefault() throws ParseException {
+        final byte[] source = Bytes("[\"abc\"]");
+        final JsonArray array = new JsonParser(source).ParseArray();
+        source[2] = 'x';
+        assertEquals("abc", array.Get(0).GetValue());
+
+        final byte[] read = Bytes("\"abc\"");
+        final JsonReader reader = new JsonReader(read);
+        reader.NextToken();
+        final JsonType value = reader.GetValue();
+        read[1] = 'x';
+        assertEquals("abc", value.GetValue());
+    }
+
+    @Test
+    void ViewsAreOptIn() throws ParseException {
+        final byte[] source = Bytes("[\"abc\"]");
+        final JsonParser parser = new JsonParser(source);
+        parser.SetStringViews(true);
+        final JsonArray array = parser.ParseArray();
+        source[2] = 'x';
+        assertEquals("xbc", array.Get(0).GetValue());
+    }
+
+    @Test
+    void Decode() throws ParseException {
+        final String json = "[\"plain\", \"tab\\there\", \"\\u00e9\\u20AC\\ud83d\\ude00\", \"héllo €\\n\", "
+                + "\"\\\"\\\\\\/\\b\\f\\r\"]";
+        final String[] expected = { "plain", "tab\there", "é€😀", "héllo €\n",
+                "\"\\/\b\f\r" };
+        for (boolean views : new boolean[] { false, true }) {
+            final JsonParser parser = new JsonParser(Bytes(json));
+            parser.SetStringViews(views);
+            final JsonArray array = parser.ParseArray();
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], array.Get(i).GetValue());
+                assertTrue(((JsonString) array.Get(i)).ValueEquals(expected[i]));
+            }
+        }
+    }
+
+    @Test
+    void ValueEqualsWithoutDecoding() throws ParseException {
+        final JsonParser parser = new JsonParser(Bytes("[\"abc\", \"été\"]"));
+        parser.SetStringViews(true);
+        final JsonArray array = parser.ParseArray();
+        final JsonString ascii = (JsonString) array.Get(0);
+        assertTrue(ascii.ValueEquals("abc"));
+        assertFalse(ascii.ValueEquals("abd"));
+        assertFalse(ascii.ValueEquals("ab"));
+        assertTrue(((JsonString) array.Get(1)).ValueEquals("été"));
+    }
+
+    @Test
+    void ViewsWriteBackUnchanged() throws ParseException {
+        final String json = "{\"a\":\"x\\ny\",\"b\":\"é\",\"c\":\"plain\"}";
+        final JsonParser parser = new JsonParser(Bytes(json));
+        parser.SetStringViews(true);
+        parser.SetObjectLayout(JsonParser.ObjectLayout.ORDERED);
+        assertEquals(json, parser.Parse().toString());
+    }
+}
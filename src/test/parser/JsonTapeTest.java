@@ -0,0 +1,132 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import src.dom.parser.TapeCursor.Kind;
+
+class JsonTapeTest {
+    private static final String DOCUMENT = "{\"id\": 42, \"price\": -12.50e1,"
+            + " \"big\": 123456789012345678901234567890, \"n\\u00e4me\": \"caf\\u00e9 \\\"x\\\"\","
+            + " \"tags\": [\"a\", [], {}, null, true, false],"
+            + " \"dup\": 1, \"dup\": 2}";
+
+    @Test
+    void ConvertsLikeTheParser() throws ParseException {
+        final String[] documents = { DOCUMENT, "[]", "{}", "\"\"", "-0", "[[[[1]]], {\"a\": {\"b\": []}}]" };
+        for (String json : documents) {
+            final JsonParser parser = new JsonParser(json);
+            parser.SetObjectLayout(JsonParser.ObjectLayout.ORDERED);
+            final String expected = parser.Parse().toString();
+            assertEquals(expected, new TapeParser(json).Parse().ToJsonType().toString(), json);
+            final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            final JsonTape streamed = new TapeParser(new ByteArrayInputStream(bytes), 4).Parse();
+            assertEquals(expected, streamed.ToJsonType().toString(), json);
+        }
+    }
+
+    @Test
+    void CursorWalksTheDocument() throws ParseException {
+        final TapeCursor cursor = new TapeParser(DOCUMENT).Parse().Cursor();
+        assertEquals(Kind.OBJECT, cursor.GetKind());
+        assertEquals(7, cursor.Size());
+        assertNull(cursor.CurrentName());
+        assertFalse(cursor.Next());
+        assertFalse(cursor.Up());
+
+        assertTrue(cursor.Down());
+        assertEquals(1, cursor.CurrentDepth());
+        assertEquals("id", cursor.CurrentName());
+        assertEquals(42, cursor.GetLong());
+        assertTrue(cursor.Next());
+        assertEquals(-125.0, cursor.GetDouble());
+        assertEquals(-125, cursor.GetLong());
+        assertTrue(cursor.Next());
+        assertEquals(new BigDecimal("123456789012345678901234567890"), cursor.GetBigDecimal());
+        assertTrue(cursor.Next());
+        assertEquals("näme", cursor.CurrentName());
+        assertEquals("café \"x\"", cursor.GetString());
+        assertTrue(cursor.Next());
+        assertEquals(6, cursor.Size());
+
+        assertTrue(cursor.Down());
+        assertEquals(2, cursor.CurrentDepth());
+        assertNull(cursor.CurrentName());
+        assertTrue(cursor.Next());
+        assertFalse(cursor.Down(), "empty array");
+        assertTrue(cursor.Next());
+        assertFalse(cursor.Down(), "empty object");
+        assertTrue(cursor.Next());
+        assertTrue(cursor.IsNull());
+        assertTrue(cursor.Next());
+        assertTrue(cursor.GetBoolean());
+        assertTrue(cursor.Next());
+        assertFalse(cursor.GetBoolean());
+        assertFalse(cursor.Next());
+        assertTrue(cursor.Up());
+
+        assertEquals("tags", cursor.CurrentName());
+        assertTrue(cursor.Next());
+        assertTrue(cursor.Next());
+        assertFalse(cursor.Next());
+        assertEquals(2, cursor.GetLong());
+        assertTrue(cursor.Up());
+        assertEquals(0, cursor.CurrentDepth());
+    }
+
+    @Test
+    void FindAndElement() throws ParseException {
+        final TapeCursor cursor = new TapeParser(DOCUMENT).Parse().Cursor();
+        assertTrue(cursor.Find("näme"));
+        assertEquals("café \"x\"", cursor.GetString());
+        cursor.Up();
+        assertEquals(2, cursor.Find("dup") ? cursor.GetLong() : -1, "later duplicates win");
+        cursor.Up();
+        assertFalse(cursor.Find("missing"));
+        assertFalse(cursor.Find("i"));
+        assertEquals(0, cursor.CurrentDepth());
+
+        assertTrue(cursor.Find("tags"));
+        assertTrue(cursor.Element(1));
+        assertEquals(Kind.ARRAY, cursor.GetKind());
+        cursor.Up();
+        assertFalse(cursor.Element(6));
+        assertFalse(cursor.Element(-1));
+        assertTrue(cursor.Element(0));
+        assertEquals("a", cursor.GetString());
+        assertEquals("\"a\"", cursor.ToJsonType().toString());
+    }
+
+    @Test
+    void WrongKindsAndMalformedInput() throws ParseException {
+        final TapeCursor cursor = new TapeParser("[\"s\"]").Parse().Cursor();
+        assertEquals("Expected OBJECT, got ARRAY",
+                assertThrows(IllegalStateException.class, () -> cursor.Find("a")).getMessage());
+        cursor.Down();
+        assertThrows(IllegalStateException.class, cursor::GetLong);
+        assertThrows(IllegalStateException.class, cursor::Down);
+        assertThrows(IllegalStateException.class, cursor::Size);
+
+        for (String json : new String[] { "[1,]", "{\"a\"}", "[1 2]", "{1: 2}", "[" })
+            assertThrows(ParseException.class, () -> new TapeParser(json).Parse(), json);
+        assertEquals("Unexpected data after the top-level value",
+                assertThrows(ParseException.class, () -> new TapeParser("{} {}").Parse()).getMessage());
+    }
+
+    @Test
+    void MemorySize() throws ParseException {
+        // An entry per container start and end, two per number, and one per
+        // string plus its length and bytes in the arena.
+        assertEquals(8 * (2 + 3 * 2), new TapeParser("[1, 2.5, 3]").Parse().MemorySize());
+        assertEquals(8 * 3 + 4 + 3, new TapeParser("[\"abc\"]").Parse().MemorySize());
+    }
+}
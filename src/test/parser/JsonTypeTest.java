@@ -0,0 +1,57 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class JsonTypeTest {
+    @Test
+    void StringsAreEscaped() throws ParseException {
+        final String value = "quote \" backslash \\ slash / \b\f\n\r\t \u0000\u001f\u007f é € 😀";
+        final String json = new JsonString(value).toString();
+        assertTrue(JsonValidator.Validate(json.getBytes(StandardCharsets.UTF_8)), json);
+        assertEquals(value, new JsonParser(json).Parse().GetValue());
+    }
+
+    @Test
+    void TreesAreValidJson() throws ParseException {
+        LinkedHashMap<String, JsonType> fields = new LinkedHashMap<>();
+        fields.put("a \"key\"", new JsonNumber(1));
+        fields.put("list", new JsonArray(new ArrayList<>(List.of(new JsonBool(true), new JsonNull(),
+                new JsonNumber(-2.5), new JsonArray(new ArrayList<>())))));
+        fields.put("empty", new JsonObj(new LinkedHashMap<>()));
+        final String json = new JsonObj(fields).toString();
+        assertEquals("{\"a \\\"key\\\"\":1,\"list\":[true,null,-2.5,[]],\"empty\":{}}", json);
+        assertTrue(JsonValidator.Validate(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void DoublesAreShortestAndReadBack() throws ParseException {
+        assertEquals("0.1", new JsonNumber(0.1).toString());
+        assertEquals("100", new JsonNumber(100.0).toString());
+        assertEquals("-0.0", new JsonNumber(-0.0).toString());
+        final Random random = new Random(3);
+        for (int i = 0; i < 20000; i++) {
+            final double d = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(d) || Double.isInfinite(d))
+                continue;
+            final String json = new JsonNumber(d).toString();
+            assertTrue(JsonValidator.Validate(json.getBytes(StandardCharsets.UTF_8)), json);
+            assertEquals(d, Double.parseDouble(json), json);
+        }
+    }
+
+    @Test
+    void NonFiniteNumbersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new JsonNumber(Double.NaN).toString());
+        assertThrows(IllegalArgumentException.class, () -> new JsonNumber(Double.NEGATIVE_INFINITY).toString());
+    }
+}
@@ -0,0 +1,96 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class JsonValidatorTest {
+    private static byte[] Bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static boolean Parses(String json) {
+        try {
+            new JsonParser(json).Parse();
+            return true;
+        } catch (ParseException e) {
+            return false;
+        }
+    }
+
+    @Test
+    void Valid() {
+        final String[] documents = { "0", "-0.5e+10", " true ", "null", "\"\"", "[]", "{}", "[[], {}]",
+            "{\"a\": [1, {\"b\": null}], \"c\": \"\\u00e9\\n\\\"\"}", "\"é € 😀\"", "[1E5, 0.25, -7]",
+            "\t\r\n[ 1 , 2 ]\n" };
+        for (String json : documents) {
+            assertTrue(JsonValidator.Validate(Bytes(json)), json);
+            assertTrue(Parses(json), json);
+        }
+    }
+
+    @Test
+    void Invalid() {
+        final String[] documents = { "", " ", "[", "]", "[1,]", "[,1]", "{\"a\"}", "{\"a\":}", "{1: 2}",
+            "{\"a\": 1,}", "[1 2]", "01", "1.", ".5", "1e", "-", "+1", "tru", "nul", "True", "\"abc",
+            "\"\\x\"", "\"\\u12G4\"", "[1]]", "[1] 2", "{\"a\": 1]", "[1}" };
+        for (String json : documents) {
+            assertFalse(JsonValidator.Validate(Bytes(json)), json);
+            assertFalse(Parses(json), json);
+        }
+        // Stricter than the parser, which lets raw control characters through.
+        assertEquals(1, JsonValidator.FindError(Bytes("\"\t\"")));
+    }
+
+    @Test
+    void MalformedUtf8() {
+        final byte[][] strings = {
+            { '"', (byte) 0xC0, (byte) 0xAF, '"' }, // overlong '/'
+            { '"', (byte) 0xED, (byte) 0xA0, (byte) 0x80, '"' }, // surrogate
+            { '"', (byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80, '"' }, // past U+10FFFF
+            { '"', (byte) 0xE2, (byte) 0x82, '"' }, // cut short
+            { '"', (byte) 0x80, '"' }, // stray continuation byte
+        };
+        final int[] errors = { 1, 2, 2, 3, 1 };
+        for (int i = 0; i < strings.length; i++)
+            assertEquals(errors[i], JsonValidator.FindError(strings[i]));
+        assertTrue(JsonValidator.Validate(new byte[] { '"', (byte) 0xF0, (byte) 0x9F, (byte) 0x98, (byte) 0x80, '"' }));
+    }
+
+    @Test
+    void ErrorOffsets() {
+        assertEquals(-1, JsonValidator.FindError(Bytes("[1, 2]")));
+        assertEquals(4, JsonValidator.FindError(Bytes("[1, ]")));
+        assertEquals(2, JsonValidator.FindError(Bytes("[1")));
+        assertEquals(4, JsonValidator.FindError(Bytes("[1] x")));
+        assertEquals(1, JsonValidator.FindError(Bytes("01")));
+    }
+
+    @Test
+    void Ranges() {
+        final byte[] framed = Bytes("xx[1, {\"a\": 2}]yy");
+        assertTrue(JsonValidator.Validate(framed, 2, framed.length - 4));
+        assertEquals(framed.length - 4, JsonValidator.FindError(framed, 2, framed.length - 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> JsonValidator.Validate(framed, 10, framed.length));
+    }
+
+    @Test
+    void DeepNesting() {
+        final int depth = 1000;
+        final StringBuilder json = new StringBuilder();
+        for (int i = 0; i < depth; i++)
+            json.append(i % 3 == 0 ? "{\"k\":" : "[");
+        json.append("0");
+        for (int i = depth - 1; i >= 0; i--)
+            json.append(i % 3 == 0 ? "}" : "]");
+        assertTrue(JsonValidator.Validate(Bytes(json.toString())));
+        // Closing with the wrong bracket deep inside.
+        json.setCharAt(depth * 2, json.charAt(depth * 2) == '}' ? ']' : '}');
+        assertFalse(JsonValidator.Validate(Bytes(json.toString())));
+    }
+}
@@ -0,0 +1,30 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class JsonWriterTest {
+    private static String RoundTrip(String json) throws ParseException {
+        final String written = new JsonParser(json).Parse().toString();
+        // Whatever is written has to parse back to the same text.
+        assertEquals(written, new JsonParser(written).Parse().toString());
+        return written;
+    }
+
+    @Test
+    void ZeroWithExponent() throws ParseException {
+        assertEquals("[0]", RoundTrip("[0e5]"));
+        assertEquals("[0]", RoundTrip("[0.0e10]"));
+        assertEquals("[0]", RoundTrip("[0E+400]"));
+        assertEquals("[-0.0]", RoundTrip("[-0e3]"));
+        assertEquals("[0,0]", RoundTrip("[0.000,0e-7]"));
+    }
+
+    @Test
+    void Decimals() throws ParseException {
+        assertEquals("[1.5,100,0.001,-12.25]", RoundTrip("[1.5,1e2,1e-3,-1225e-2]"));
+        assertEquals("[1E30]", RoundTrip("[1e30]"));
+        assertEquals("[1E-7]", RoundTrip("[1e-7]"));
+    }
+}
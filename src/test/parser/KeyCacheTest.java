@@ -0,0 +1,72 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import src.dom.parser.JsonReader.Event;
+
+class KeyCacheTest {
+    private static List<String> Keys(JsonParser parser) throws ParseException {
+        ArrayList<String> keys = new ArrayList<>();
+        parser.ParseObj().ForEach((key, value) -> keys.add(key));
+        return keys;
+    }
+
+    @Test
+    void RepeatedKeysShareOneString() throws ParseException {
+        final KeyCache cache = new KeyCache();
+        final JsonParser first = new JsonParser("{\"name\": 1}");
+        first.SetKeyCache(cache);
+        final JsonParser second = new JsonParser("{\"name\": 2}");
+        second.SetKeyCache(cache);
+        final String name = Keys(first).get(0);
+        assertSame(name, Keys(second).get(0));
+        final String uncached = Keys(new JsonParser("{\"name\": 1}")).get(0);
+        assertNotSame(uncached, Keys(new JsonParser("{\"name\": 1}")).get(0));
+
+        // Readers share the cache with parsers, and seeded keys are returned as given.
+        final String seeded = new String("id".toCharArray());
+        cache.Add(seeded);
+        final JsonReader reader = new JsonReader("{\"id\": 1, \"name\": 2}");
+        reader.SetKeyCache(cache);
+        reader.NextToken();
+        reader.NextToken();
+        assertSame(seeded, reader.CurrentName());
+        reader.NextToken();
+        assertEquals(Event.FIELD_NAME, reader.NextToken());
+        assertSame(name, reader.CurrentName());
+    }
+
+    @Test
+    void LongAndEscapedKeys() throws ParseException {
+        final String longKey = "k".repeat(KeyCache.MAX_KEY_LENGTH + 1);
+        final KeyCache cache = new KeyCache();
+        final String json = "{\"" + longKey + "\": 1, \"caf\\u00e9\": 2, \"café\": 3}";
+        final JsonParser parser = new JsonParser(json);
+        parser.SetKeyCache(cache);
+        assertEquals(List.of(longKey, "café"), Keys(parser));
+        final byte[] bytes = longKey.getBytes(StandardCharsets.UTF_8);
+        assertNull(cache.Get(bytes, 0, bytes.length));
+    }
+
+    // A full cache replaces entries instead of growing, and still returns the right keys.
+    @Test
+    void BoundedCapacity() throws ParseException {
+        final KeyCache cache = new KeyCache(16);
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 1000; i++) {
+                final JsonParser parser = new JsonParser("{\"key" + i + "\": " + i + "}");
+                parser.SetKeyCache(cache);
+                assertEquals(List.of("key" + i), Keys(parser));
+            }
+        }
+    }
+}
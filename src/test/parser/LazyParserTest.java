@@ -0,0 +1,98 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class LazyParserTest {
+    private static JsonType Lazy(String json) throws ParseException {
+        return new LazyParser(json.getBytes(StandardCharsets.UTF_8)).Parse();
+    }
+
+    @Test
+    void GetMatchesTheEagerParse() throws ParseException {
+        final String json = "[1, \"two\", [3, [4]], {\"five\": 5, \"six\": [6]}, null, true, -7.5]";
+        final JsonParser parser = new JsonParser(json);
+        parser.SetObjectLayout(JsonParser.ObjectLayout.ORDERED);
+        final JsonArray eager = parser.ParseArray();
+        final JsonArray lazy = (JsonArray) Lazy(json);
+        assertEquals(eager.Size(), lazy.Size());
+        for (int i = lazy.Size() - 1; i >= 0; i--)
+            assertEquals(eager.Get(i).toString(), lazy.Get(i).toString());
+        assertEquals("[4]", ((JsonArray) ((JsonArray) lazy.Get(2)).Get(1)).toString());
+        assertEquals("[6]", ((JsonObj) lazy.Get(3)).Get("six").toString());
+        assertNull(((JsonObj) lazy.Get(3)).Get("seven"));
+        assertEquals(eager.toString(), lazy.toString());
+    }
+
+    @Test
+    void OutOfBounds() throws ParseException {
+        final JsonArray lazy = (JsonArray) Lazy("[1, 2]");
+        assertThrows(IndexOutOfBoundsException.class, () -> lazy.Get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> lazy.Get(-1));
+        assertEquals(0, ((JsonArray) Lazy("[]")).Size());
+    }
+
+    // Walking the tape from the first element on every Get() would take
+    // minutes here.
+    @Test
+    void IndexingALargeArray() throws ParseException {
+        final StringBuilder json = new StringBuilder("[");
+        final int n = 200000;
+        for (int i = 0; i < n; i++)
+            json.append(i == 0 ? "" : ",").append("[").append(i).append("]");
+        final JsonArray lazy = (JsonArray) Lazy(json.append("]").toString());
+        final long sum = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            long total = 0;
+            for (int i = 0; i < lazy.Size(); i++)
+                total += ((JsonNumber) ((JsonArray) lazy.Get(i)).Get(0)).AsLong();
+            return total;
+        });
+        assertEquals((long) n * (n - 1) / 2, sum);
+    }
+
+    @Test
+    void GetReturnsTheSameNode() throws ParseException {
+        final JsonObj lazy = (JsonObj) Lazy("{\"a\": {\"x\": [1]}, \"b\": [[2]], \"a\": {\"y\": [3]}}");
+        assertSame(lazy.Get("a"), lazy.Get("a"));
+        assertSame(lazy.Get("b"), lazy.Get("b"));
+        assertNull(lazy.Get("c"));
+        final JsonArray b = (JsonArray) lazy.Get("b");
+        assertSame(b.Get(0), b.Get(0));
+        // Later duplicates win, before and after the keys are indexed.
+        assertEquals("[3]", ((JsonObj) lazy.Get("a")).Get("y").toString());
+    }
+
+    @Test
+    void MutationsOfAChildAreKept() throws ParseException {
+        final JsonObj lazy = (JsonObj) Lazy("{\"a\": {\"x\": 1}, \"b\": [[2]]}");
+        ((JsonObj) lazy.Get("a")).GetValue().put("y", new JsonBool(true));
+        ((JsonArray) ((JsonArray) lazy.Get("b")).Get(0)).GetValue().add(new JsonNull());
+        assertEquals("{\"a\":{\"x\":1,\"y\":true},\"b\":[[2,null]]}", lazy.toString());
+        assertSame(lazy.Get("a"), lazy.GetValue().get("a"));
+    }
+
+    // Comparing every key on every Get() would take minutes here.
+    @Test
+    void LookingUpManyKeys() throws ParseException {
+        final StringBuilder json = new StringBuilder("{");
+        final int n = 100000;
+        for (int i = 0; i < n; i++)
+            json.append(i == 0 ? "" : ",").append("\"k").append(i).append("\":").append(i);
+        final JsonObj lazy = (JsonObj) Lazy(json.append("}").toString());
+        final long sum = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            long total = 0;
+            for (int i = 0; i < n; i++)
+                total += ((JsonNumber) lazy.Get("k" + i)).AsLong();
+            return total;
+        });
+        assertEquals((long) n * (n - 1) / 2, sum);
+    }
+}
@@ -0,0 +1,60 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class ObjectShapeTest {
+    private static JsonObj Shaped(String json, KeyCache cache) throws ParseException {
+        final JsonParser parser = new JsonParser(json);
+        parser.SetKeyCache(cache);
+        parser.SetObjectLayout(JsonParser.ObjectLayout.SHAPED);
+        return parser.ParseObj();
+    }
+
+    @Test
+    void TransitionsAreShared() {
+        final ObjectShape root = ObjectShape.Root();
+        final ObjectShape ab = root.With("a").With("b");
+        assertSame(ab, root.With("a").With("b"));
+        assertNotSame(ab, root.With("b").With("a"));
+        assertEquals(1, ab.IndexOf("b"));
+        assertEquals(-1, ab.IndexOf("c"));
+    }
+
+    @Test
+    void ShapedObjects() throws ParseException {
+        final String json = "{\"b\": 1, \"a\": [true], \"c\": {\"a\": null}, \"b\": 2}";
+        final JsonObj obj = Shaped(json, new KeyCache());
+        assertInstanceOf(ShapedObj.class, obj);
+        assertEquals("{\"b\":2,\"a\":[true],\"c\":{\"a\":null}}", obj.toString());
+        assertEquals("[true]", obj.Get("a").toString());
+        assertNull(obj.Get("d"));
+        assertEquals(obj.toString(), new JsonObj(obj.GetValue()).toString());
+        obj.GetValue().put("d", new JsonNull());
+        assertEquals("null", obj.Get("d").toString());
+        assertEquals("{}", Shaped("{}", new KeyCache()).toString());
+    }
+
+    // Objects past the key or shape limits fall back to a map with the same contents.
+    @Test
+    void Limits() throws ParseException {
+        final StringBuilder wide = new StringBuilder("{");
+        for (int i = 0; i <= ObjectShape.MAX_KEYS; i++)
+            wide.append(i == 0 ? "" : ",").append("\"k").append(i).append("\":").append(i);
+        final JsonObj obj = Shaped(wide.append('}').toString(), new KeyCache());
+        assertEquals(ObjectShape.MAX_KEYS + 1, obj.GetValue().size());
+        assertEquals("64", obj.Get("k64").toString());
+
+        final KeyCache cache = new KeyCache();
+        for (int i = 0; i < ObjectShape.MAX_SHAPES + 10; i++) {
+            final JsonObj record = Shaped("{\"id\": 1, \"f" + i + "\": " + i + "}", cache);
+            assertEquals(String.valueOf(i), record.Get("f" + i).toString());
+            assertEquals("{\"id\":1,\"f" + i + "\":" + i + "}", record.toString());
+        }
+    }
+}
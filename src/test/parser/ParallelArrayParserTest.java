@@ -0,0 +1,86 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ParallelArrayParserTest {
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void Start() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void Stop() {
+        pool.shutdown();
+    }
+
+    // Large enough to be pre-scanned in several chunks, with strings full of
+    // brackets, commas, quotes and backslashes that the chunks have to see
+    // through whichever way they start.
+    private static String Document() {
+        final StringBuilder json = new StringBuilder("[");
+        for (int i = 0; json.length() < 6 * ParallelArrayParser.SPLIT_THRESHOLD; i++) {
+            if (i > 0)
+                json.append(",\n ");
+            switch (i % 5) {
+                case 0:
+                    json.append("{\"id\": ").append(i).append(", \"tags\": [\"a,b\", \"]}\", {\"x\": [1, 2]}]}");
+                    break;
+                case 1:
+                    json.append("\"quote \\\" and , [ { \\\\\"");
+                    break;
+                case 2:
+                    json.append("\"").append("\\\\".repeat(i % 7)).append("\"");
+                    break;
+                case 3:
+                    json.append("[[[], {}], \"\\u005d\", -1.5e3]");
+                    break;
+                default:
+                    json.append("\"").append("x".repeat(i % 300)).append(",]\"");
+                    break;
+            }
+        }
+        return json.append("]").toString();
+    }
+
+    @Test
+    void MatchesTheSerialParser() throws ParseException {
+        final byte[] bytes = Document().getBytes(StandardCharsets.UTF_8);
+        final String expected = new JsonParser(bytes).Parse().toString();
+        assertEquals(expected, new ParallelArrayParser(bytes).Parse(pool).toString());
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        assertEquals(expected, new ParallelArrayParser(direct).Parse(pool).toString());
+    }
+
+    @Test
+    void SmallArrays() throws ParseException {
+        assertEquals("[]", new ParallelArrayParser("[ ]".getBytes()).Parse(pool).toString());
+        assertEquals("[1,[2,3],\"4,5\"]",
+                new ParallelArrayParser(" [1, [2, 3], \"4,5\"] ".getBytes()).Parse(pool).toString());
+    }
+
+    @Test
+    void Malformed() {
+        final String large = Document();
+        final String[] inputs = { "{}", "[1, 2", "[1]]", "[\"a]", large.substring(0, large.length() - 2) + "]]]",
+                large.substring(0, large.length() / 2) + "]" + large.substring(large.length() / 2) };
+        for (String json : inputs) {
+            assertThrows(ParseException.class, () -> new ParallelArrayParser(json.getBytes()).Parse(pool));
+        }
+        final ParseException e = assertThrows(ParseException.class,
+                () -> new ParallelArrayParser("[[1]], 2]".getBytes()).Parse(pool));
+        assertEquals("Unbalanced ] at byte 4", e.getMessage());
+    }
+}
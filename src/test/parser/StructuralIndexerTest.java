@@ -0,0 +1,80 @@
+package src.dom.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class StructuralIndexerTest {
+    private static String Tokens(String json, boolean indexed) throws ParseException {
+        final Tokenizer tokenizer = new Tokenizer(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)), indexed);
+        final StringBuilder res = new StringBuilder();
+        while (tokenizer.HasToken()) {
+            final TokenType type = tokenizer.Tokenize();
+            res.append(type);
+            if (type == TokenType.STRING)
+                res.append('=').append(tokenizer.StringValue());
+            else if (type == TokenType.NUMBER)
+                res.append('=').append(tokenizer.NumberValue());
+            res.append(' ');
+        }
+        return res.toString();
+    }
+
+    private static void AssertSameTokens(String json) throws ParseException {
+        assertEquals(Tokens(json, false), Tokens(json, true), json);
+    }
+
+    @Test
+    void MatchesTheByteLoop() throws ParseException {
+        AssertSameTokens("{\"a\": [1, -2.5e3, true, false, null], \"b\": {}, \"c\": []}");
+        AssertSameTokens("[\"\\\"\", \"\\\\\", \"\\\\\\\"\", \"a\\\\\\\\\", \"\\u00e9\", \"caf\u00e9\"]");
+        AssertSameTokens("  \n\t[ 1 ,2\r\n, \"x y\" ]  ");
+        AssertSameTokens("\"just a string\"");
+        AssertSameTokens("12345");
+    }
+
+    // Strings, escapes and numbers that straddle the 64-byte blocks and the
+    // windows the positions are produced in.
+    @Test
+    void AcrossBlocksAndWindows() throws ParseException {
+        final Random random = new Random(7);
+        final String[] pieces = { "\"abc\"", "\"a\\\"b\"", "\"\\\\\"", "\"\\\\\\\\\\\"x\"", "123456789",
+            "-0.5e-7", "true", "null", "{}", "[]", "{\"k\": [1, \"v\"]}", "\"" + "x".repeat(70) + "\"",
+            "\"" + "\\\\".repeat(40) + "\"" };
+        for (int round = 0; round < 20; round++) {
+            final StringBuilder json = new StringBuilder("[");
+            final int n = round < 10 ? 50 : 3000;
+            for (int i = 0; i < n; i++) {
+                json.append(i == 0 ? "" : ",").append(" ".repeat(random.nextInt(3)));
+                json.append(pieces[random.nextInt(pieces.length)]);
+            }
+            AssertSameTokens(json.append("]").toString());
+        }
+    }
+
+    @Test
+    void RejectsLiteralsRunningIntoTheNextToken() {
+        assertThrows(ParseException.class, () -> Tokens("[truex]", true));
+        assertThrows(ParseException.class, () -> Tokens("[12x]", true));
+        // Tokens without a comma between them are left to the parser.
+        assertThrows(ParseException.class, () -> new JsonParser(
+                ByteBuffer.wrap("[1\"a\"]".getBytes(StandardCharsets.UTF_8)), true).Parse());
+    }
+
+    @Test
+    void ParsesAndReads() throws ParseException {
+        final String json = "{\"a\": [1, {\"b\": \"c\\nd\"}], \"e\": null}";
+        final ByteBuffer source = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+        assertEquals(new JsonParser(json).Parse().toString(), new JsonParser(source, true).Parse().toString());
+        final JsonReader reader = new JsonReader(source.duplicate(), true);
+        int events = 0;
+        while (reader.NextToken() != JsonReader.Event.END_DOCUMENT)
+            events++;
+        assertEquals(12, events);
+    }
+}